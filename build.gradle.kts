@@ -4,6 +4,7 @@ plugins {
   java
   id("org.springframework.boot") version "2.3.0.M3"
   id("io.spring.dependency-management") version "1.0.9.RELEASE"
+  id("me.champeau.gradle.jmh") version "0.5.0"
 }
 
 group = "eu.maksimov.demo"
@@ -17,6 +18,9 @@ repositories {
 dependencies {
   implementation("org.springframework.boot:spring-boot-starter")
   implementation("org.springframework.boot:spring-boot-starter-web")
+  implementation("org.springframework.boot:spring-boot-starter-actuator")
+  implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+  implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
 
   implementation("org.springdoc:springdoc-openapi-ui:1.2.34")
 
@@ -28,6 +32,90 @@ configure<JavaPluginConvention> {
   sourceCompatibility = JavaVersion.VERSION_11
 }
 
+val loadTest: SourceSet by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output
+  runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// e.g. ./gradlew loadTest -Dloadtest.concurrency=32 -Dloadtest.jvmArgs="-XX:+UseParallelGC -Xmx512m"
+// or   ./gradlew loadTest -Dloadtest.httpVersion=HTTP_2 -Dloadtest.args=--spring.profiles.active=performance
+tasks.register<JavaExec>("loadTest") {
+  description = "Boots the application and measures throughput, latency, allocation rate and GC pauses."
+  group = "verification"
+  classpath = loadTest.runtimeClasspath
+  main = "eu.maksimov.demo.spring.versioning.loadtest.LoadTest"
+  systemProperties(System.getProperties().filterKeys { it.toString().startsWith("loadtest.") }.mapKeys { it.key.toString() })
+  System.getProperty("loadtest.jvmArgs")?.let { jvmArgs(it.split(" ").filter(String::isNotBlank)) }
+  System.getProperty("loadtest.args")?.let { args(it.split(" ").filter(String::isNotBlank)) }
+}
+
+// Application class-data sharing: ./gradlew cdsArchive startupBenchmark, then build/cds/run.sh
+// CDS archives classes from plain jars only, so the application classes are packaged separately from bootJar.
+val cdsJar by tasks.registering(Jar::class) {
+  archiveClassifier.set("cds")
+  from(sourceSets.main.get().output)
+}
+val cdsClasspath = files(cdsJar) + configurations.runtimeClasspath.get()
+val cdsArchiveFile = file("$buildDir/cds/application.jsa")
+
+tasks.register<JavaExec>("cdsArchive") {
+  description = "Creates a class-data-sharing archive from a training run of the application (JDK 13+)."
+  group = "build"
+  dependsOn(cdsJar)
+  inputs.files(cdsClasspath)
+  outputs.file(cdsArchiveFile)
+  classpath = loadTest.runtimeClasspath
+  main = "eu.maksimov.demo.spring.versioning.loadtest.StartupBenchmark"
+  args("train")
+  systemProperty("startup.archive", cdsArchiveFile)
+  doFirst { systemProperty("startup.classpath", cdsClasspath.asPath) }
+  finalizedBy("cdsLaunchScript")
+}
+
+tasks.register("cdsLaunchScript") {
+  description = "Writes a launch script starting the application with the class-data-sharing archive."
+  val script = file("$buildDir/cds/run.sh")
+  outputs.file(script)
+  doLast {
+    script.writeText("""
+      |#!/bin/sh
+      |exec java -XX:SharedArchiveFile="$cdsArchiveFile" -Xshare:auto ${'$'}JAVA_OPTS \
+      |  -cp "${cdsClasspath.asPath}" eu.maksimov.demo.spring.versioning.Application "${'$'}@"
+      |""".trimMargin())
+    script.setExecutable(true)
+  }
+}
+
+tasks.register<JavaExec>("startupBenchmark") {
+  description = "Reports time-to-first-request and RSS with and without the class-data-sharing archive."
+  group = "verification"
+  dependsOn("cdsArchive")
+  classpath = loadTest.runtimeClasspath
+  main = "eu.maksimov.demo.spring.versioning.loadtest.StartupBenchmark"
+  args("benchmark")
+  systemProperty("startup.archive", cdsArchiveFile)
+  doFirst { systemProperty("startup.classpath", cdsClasspath.asPath) }
+  System.getProperty("startup.iterations")?.let { systemProperty("startup.iterations", it) }
+  System.getProperty("startup.jvmArgs")?.let { systemProperty("startup.jvmArgs", it) }
+}
+
+// e.g. ./gradlew scalingBenchmark -Dscaling.controllers=100,400,1600 -Dscaling.jvmArgs=-Xmx1g
+tasks.register<JavaExec>("scalingBenchmark") {
+  description = "Reports startup, OpenAPI generation, OpenAPI heap and routing latency for growing numbers of synthetic controllers."
+  group = "verification"
+  classpath = loadTest.runtimeClasspath
+  main = "eu.maksimov.demo.spring.versioning.loadtest.ScalingBenchmark"
+  systemProperties(System.getProperties().filterKeys { it.toString().startsWith("scaling.") }.mapKeys { it.key.toString() })
+}
+
+jmh {
+  (project.findProperty("jmh.include") as String?)?.let { include = listOf(it) }
+  (project.findProperty("jmh.profilers") as String?)?.let { profilers = it.split(",") }
+}
+
 tasks.withType<Test> {
   useJUnitPlatform()
 }
@@ -0,0 +1,86 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.PathResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of resolving the caller context of a request as {@link CallerContextFilter} does, through the
+ * {@link CallerContextCache} compared to asking the {@link PropertiesCallerContextSource} every time, which costs a
+ * file modification check per request even though the parsed file is kept.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pjmh.include=CallerContextBenchmark -Pjmh.profilers=gc} to see that cache hits do not
+ * allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CallerContextBenchmark {
+
+  @Param({"cache", "source"})
+  private String lookup;
+
+  @Param({"100"})
+  private int applications;
+
+  private Path file;
+  private CallerContextSource source;
+  private CallerContextCache cache;
+  private String[] applicationIds;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    var contents = new StringBuilder();
+    for (int i = 0; i < applications; i++) {
+      contents.append("app-").append(i).append(".versions=v1,v2,latest\n");
+    }
+    file = Files.createTempFile("callers", ".properties");
+    Files.writeString(file, contents);
+    source = new PropertiesCallerContextSource(new PathResource(file));
+    cache = new CallerContextCache(source, new CallerProperties());
+
+    applicationIds = new String[4096];
+    for (int i = 0; i < applicationIds.length; i++) {
+      applicationIds[i] = "app-" + ThreadLocalRandom.current().nextInt(applications);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    cache.destroy();
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public boolean resolve() throws IOException {
+    var applicationId = applicationIds[ThreadLocalRandom.current().nextInt(applicationIds.length)];
+    if (!CallerContextFilter.isValidId(applicationId, CallerContextFilter.MAX_APPLICATION_ID_LENGTH)) {
+      return false;
+    }
+    var context = "cache".equals(lookup) ? cache.get(applicationId) : source.load(applicationId);
+    return context != null && context.isVersionAllowed(2) && context.tryAcquire(System.nanoTime());
+  }
+
+}
@@ -0,0 +1,152 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.IntegerSchema;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.swagger.v3.oas.models.security.SecurityScheme.Type.HTTP;
+
+/**
+ * Heap held by the OpenAPI documents of all groups with and without {@link OpenApiInterner}, and the time to generate
+ * them.
+ * <p>
+ * The synthetic API resembles what springdoc builds for this application grown to {@code versions * endpoints}:
+ * version 1 declares every endpoint and each later version redeclares every tenth of them, so group {@code vN} lists
+ * each endpoint as declared by its newest version up to {@code N}. Retained heap is printed once per trial. Run with
+ * {@code ./gradlew jmh -Pjmh.include=OpenApiInterningBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class OpenApiInterningBenchmark {
+
+  @Param({"false", "true"})
+  private boolean interned;
+
+  @Param({"30"})
+  private int versions;
+
+  @Param({"200"})
+  private int endpoints;
+
+  private List<OpenAPI> retainedGroups;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var heapBefore = usedHeap();
+    retainedGroups = generateGroups();
+    var retained = usedHeap() - heapBefore;
+    System.out.printf("%n%d groups of %d endpoints, interned %s: %d KB heap%n",
+      retainedGroups.size(), endpoints, interned, retained >> 10);
+  }
+
+  @Benchmark
+  public List<OpenAPI> generateGroups() {
+    var interner = new OpenApiInterner();
+    List<OpenAPI> groups = new ArrayList<>();
+    for (int groupVersion = 1; groupVersion <= versions + 1; groupVersion++) {
+      var isLatest = groupVersion > versions;
+      var group = generateGroup(Math.min(groupVersion, versions), isLatest ? "latest" : "v" + groupVersion);
+      if (interned) {
+        interner.intern(group);
+      }
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  /**
+   * Builds fresh model instances for every group, as springdoc does.
+   */
+  private OpenAPI generateGroup(int groupVersion, String groupVersionName) {
+    var components = new Components()
+      .addParameters("header-x-application-id", new Parameter().in("header").name("X-Application-Id").required(true)
+        .schema(new StringSchema()._default("swagger-ui")))
+      .addParameters("header-x-user-id", new Parameter().in("header").name("X-User-Id").required(true)
+        .schema(new StringSchema()._default("swagger-ui")))
+      .addSecuritySchemes("access-token", new SecurityScheme().type(HTTP).scheme("bearer")
+        .in(SecurityScheme.In.HEADER).name("Authorization"));
+    var paths = new Paths();
+    for (int endpoint = 0; endpoint < endpoints; endpoint++) {
+      var declaringVersion = getDeclaringVersion(endpoint, groupVersion);
+      var schemaName = "Endpoint" + endpoint + "V" + declaringVersion;
+      components.addSchemas(schemaName, createSchema(endpoint, declaringVersion));
+      paths.addPathItem("/api/" + groupVersionName + "/endpoint" + endpoint + "/{id}",
+        createPathItem(endpoint, declaringVersion, schemaName));
+    }
+    return new OpenAPI().components(components).paths(paths);
+  }
+
+  private static int getDeclaringVersion(int endpoint, int groupVersion) {
+    for (int version = groupVersion; version > 1; version--) {
+      if ((endpoint + version) % 10 == 0) {
+        return version;
+      }
+    }
+    return 1;
+  }
+
+  private static Schema<?> createSchema(int endpoint, int version) {
+    var schema = new ObjectSchema().description("Answer of endpoint " + endpoint + " in version " + version);
+    schema.addProperties("id", new IntegerSchema().format("int64"));
+    schema.addProperties("name", new StringSchema());
+    schema.addProperties("answer", new StringSchema().description("Answer of version " + version));
+    return schema;
+  }
+
+  private static PathItem createPathItem(int endpoint, int version, String schemaName) {
+    var content = new Content();
+    for (var mediaType : List.of("application/json", "application/cbor", "application/x-jackson-smile")) {
+      var schema = new Schema<>().$ref("#/components/schemas/" + schemaName);
+      content.addMediaType(mediaType, new MediaType().schema(schema));
+    }
+    var operation = new Operation()
+      .tags(List.of("endpoint" + endpoint + "-v" + version))
+      .operationId("getById" + endpoint)
+      .addParametersItem(new Parameter().in("path").name("id").required(true).schema(new StringSchema()))
+      .addParametersItem(new Parameter().$ref("#/components/parameters/header-x-application-id"))
+      .addParametersItem(new Parameter().$ref("#/components/parameters/header-x-user-id"))
+      .responses(new ApiResponses()
+        .addApiResponse("200", new ApiResponse().description("OK").content(content))
+        .addApiResponse("404", new ApiResponse().description("Not Found")));
+    return new PathItem().get(operation);
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+}
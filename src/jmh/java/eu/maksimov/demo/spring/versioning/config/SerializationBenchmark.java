@@ -0,0 +1,82 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Serialization cost and payload size of the binary formats offered by {@link BinaryFormatConverters} compared to JSON.
+ * <p>
+ * Payload sizes are printed once per trial. Run with {@code ./gradlew jmh -Pjmh.include=SerializationBenchmark}
+ * and add {@code -prof gc} through {@code jmh.profilers} to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({"json", "cbor", "smile"})
+  private String format;
+
+  /**
+   * Number of answers in the payload, 1 resembles {@code getById}, more resemble a {@code getAll} listing.
+   */
+  @Param({"1", "100"})
+  private int answers;
+
+  private ObjectMapper mapper;
+  private CollectionType payloadType;
+  private List<String> payload;
+  private byte[] serialized;
+
+  @Setup
+  public void setUp() throws Exception {
+    switch (format) {
+      case "cbor":
+        mapper = Jackson2ObjectMapperBuilder.cbor().build();
+        break;
+      case "smile":
+        mapper = Jackson2ObjectMapperBuilder.smile().build();
+        break;
+      default:
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+    payloadType = mapper.getTypeFactory().constructCollectionType(List.class, String.class);
+    payload = IntStream.range(0, answers)
+      .mapToObj(id -> "answer from PersonV3Controller.getById(" + id + ")")
+      .collect(Collectors.toList());
+    serialized = mapper.writeValueAsBytes(payload);
+
+    System.out.printf("%n%s payload of %d answer(s): %d bytes%n", format, answers, serialized.length);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws Exception {
+    return mapper.writeValueAsBytes(payload);
+  }
+
+  @Benchmark
+  public List<String> deserialize() throws Exception {
+    return mapper.readValue(serialized, payloadType);
+  }
+
+}
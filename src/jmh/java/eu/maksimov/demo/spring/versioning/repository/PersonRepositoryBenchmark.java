@@ -0,0 +1,116 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link OffHeapPersonRepository} compared to persons held on heap in a {@code ConcurrentHashMap<String, Person>}.
+ * <p>
+ * The heap used by each store is printed once per trial. Run with
+ * {@code ./gradlew jmh -Pjmh.include=PersonRepositoryBenchmark -Pjmh.profilers=gc} to see allocation and GC time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-XX:MaxDirectMemorySize=2g"})
+public class PersonRepositoryBenchmark {
+
+  @Param({"offHeap", "concurrentHashMap"})
+  private String store;
+
+  @Param({"1000000"})
+  private int persons;
+
+  private PersonRepository repository;
+  private String[] ids;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var heapBefore = usedHeap();
+    repository = "offHeap".equals(store)
+      ? new OffHeapPersonRepository(16 * 1024 * 1024, persons)
+      : new ConcurrentMapPersonRepository();
+    for (long id = 1; id <= persons; id++) {
+      repository.save(new Person(id, "Person " + id));
+    }
+    System.out.printf("%n%s holding %d persons: %d MB heap%n", store, persons, (usedHeap() - heapBefore) >> 20);
+
+    ids = new String[4096];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = String.valueOf(ThreadLocalRandom.current().nextLong(1, persons + 1));
+    }
+  }
+
+  @Benchmark
+  public Optional<Person> getById() {
+    return repository.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void getAll(Blackhole blackhole) {
+    repository.forEach(blackhole::consume);
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Baseline keeping boxed persons by their id as string.
+   */
+  private static class ConcurrentMapPersonRepository implements PersonRepository {
+
+    private final ConcurrentMap<String, Person> persons = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Person> findById(long id) {
+      return findById(String.valueOf(id));
+    }
+
+    @Override
+    public Optional<Person> findById(String id) {
+      return Optional.ofNullable(persons.get(id));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Person> action) {
+      persons.values().forEach(action);
+    }
+
+    @Override
+    public void save(Person person) {
+      persons.put(String.valueOf(person.getId()), person);
+    }
+
+    @Override
+    public int count() {
+      return persons.size();
+    }
+
+  }
+
+}
@@ -0,0 +1,129 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.PathResource;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second a single thread can authorize when every request pays the signature check ({@code verified})
+ * compared to a {@link VerifiedTokenCache} hit ({@code cached}), for RSA 2048 and ECDSA P-256 keys.
+ * <p>
+ * Run with {@code ./gradlew jmh -Pjmh.include=TokenVerificationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+  private static final String KEY_ID = "benchmark";
+
+  @Param({"verified", "cached"})
+  private String verification;
+
+  @Param({"RS256", "ES256"})
+  private String algorithm;
+
+  /**
+   * Distinct tokens, e.g. one per active user.
+   */
+  @Param({"1000"})
+  private int tokens;
+
+  private Path keySetFile;
+  private TokenVerifier verifier;
+  private VerifiedTokenCache cache;
+  private String[] signedTokens;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    var rsa = "RS256".equals(algorithm);
+    var generator = KeyPairGenerator.getInstance(rsa ? "RSA" : "EC");
+    if (rsa) {
+      generator.initialize(2048);
+    } else {
+      generator.initialize(new ECGenParameterSpec("secp256r1"));
+    }
+    var keyPair = generator.generateKeyPair();
+
+    String jwk;
+    if (rsa) {
+      var publicKey = (RSAPublicKey) keyPair.getPublic();
+      jwk = "{\"kty\":\"RSA\",\"kid\":\"" + KEY_ID + "\",\"n\":\"" + encode(publicKey.getModulus())
+        + "\",\"e\":\"" + encode(publicKey.getPublicExponent()) + "\"}";
+    } else {
+      var point = ((ECPublicKey) keyPair.getPublic()).getW();
+      jwk = "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"" + KEY_ID + "\",\"x\":\"" + encode(point.getAffineX())
+        + "\",\"y\":\"" + encode(point.getAffineY()) + "\"}";
+    }
+    keySetFile = Files.createTempFile("benchmark-keys", ".json");
+    Files.writeString(keySetFile, "{\"keys\":[" + jwk + "]}");
+    var properties = new TokenProperties();
+    var keySet = new KeySet(new PathResource(keySetFile), properties.getKeySetCheckInterval());
+    verifier = new TokenVerifier(keySet, properties, Clock.systemUTC());
+    cache = new VerifiedTokenCache(verifier, properties.getCacheMaximumSize());
+
+    var header = encode("{\"alg\":\"" + algorithm + "\",\"typ\":\"JWT\",\"kid\":\"" + KEY_ID + "\"}");
+    var expiresAt = Instant.now().plusSeconds(3600).getEpochSecond();
+    signedTokens = new String[tokens];
+    for (int i = 0; i < tokens; i++) {
+      var signingInput = header + '.' + encode("{\"sub\":\"user-" + i + "\",\"exp\":" + expiresAt + "}");
+      var signer = Signature.getInstance(rsa ? "SHA256withRSA" : "SHA256withECDSAinP1363Format");
+      signer.initSign(keyPair.getPrivate());
+      signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+      signedTokens[i] = signingInput + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+      cache.verify(signedTokens[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(keySetFile);
+  }
+
+  @Benchmark
+  public VerifiedToken authorize() {
+    var token = signedTokens[ThreadLocalRandom.current().nextInt(signedTokens.length)];
+    return "cached".equals(verification) ? cache.verify(token) : verifier.verify(token);
+  }
+
+  private static String encode(String json) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String encode(BigInteger value) {
+    var bytes = value.toByteArray();
+    var unsigned = bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+  }
+
+}
@@ -0,0 +1,110 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Allocation and GC figures of the JVM the application is booted in.
+ * <p>
+ * Allocation is measured per thread via {@link com.sun.management.ThreadMXBean}, restricted to threads matching the
+ * given predicate (the servlet container workers), so load generating threads are not accounted for.
+ * GC pauses are collected from GC notifications.
+ */
+class JvmMetrics {
+
+  private final com.sun.management.ThreadMXBean threadBean =
+    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final Predicate<String> measuredThreads;
+  private final Map<Long, Long> allocatedAtStart = new HashMap<>();
+  private final List<Long> gcPausesMillis = new ArrayList<>();
+  private final List<Registration> registrations = new ArrayList<>();
+
+  JvmMetrics(Predicate<String> measuredThreads) {
+    this.measuredThreads = measuredThreads;
+  }
+
+  void start() {
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    allocatedAtStart.putAll(allocatedBytesPerThread());
+
+    NotificationListener listener = (notification, handback) -> {
+      if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+        var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        synchronized (gcPausesMillis) {
+          gcPausesMillis.add(info.getGcInfo().getDuration());
+        }
+      }
+    };
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      var emitter = (NotificationEmitter) gcBean;
+      emitter.addNotificationListener(listener, null, null);
+      registrations.add(new Registration(emitter, listener));
+    }
+  }
+
+  /**
+   * @return bytes allocated by the measured threads since {@link #start()}
+   */
+  long stop() {
+    for (var registration : registrations) {
+      try {
+        registration.emitter.removeNotificationListener(registration.listener);
+      } catch (ListenerNotFoundException e) {
+        // already removed
+      }
+    }
+    long allocated = 0;
+    for (var entry : allocatedBytesPerThread().entrySet()) {
+      allocated += entry.getValue() - allocatedAtStart.getOrDefault(entry.getKey(), 0L);
+    }
+    return allocated;
+  }
+
+  List<Long> getGcPausesMillis() {
+    synchronized (gcPausesMillis) {
+      return new ArrayList<>(gcPausesMillis);
+    }
+  }
+
+  private Map<Long, Long> allocatedBytesPerThread() {
+    var ids = Arrays.stream(threadBean.getThreadInfo(threadBean.getAllThreadIds()))
+      .filter(it -> it != null && measuredThreads.test(it.getThreadName()))
+      .mapToLong(ThreadInfo::getThreadId)
+      .toArray();
+    var allocated = threadBean.getThreadAllocatedBytes(ids);
+
+    Map<Long, Long> result = new HashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      if (allocated[i] >= 0) {
+        result.put(ids[i], allocated[i]);
+      }
+    }
+    return result;
+  }
+
+  private static final class Registration {
+
+    private final NotificationEmitter emitter;
+    private final NotificationListener listener;
+
+    private Registration(NotificationEmitter emitter, NotificationListener listener) {
+      this.emitter = emitter;
+      this.listener = listener;
+    }
+
+  }
+
+}
@@ -0,0 +1,79 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+/**
+ * Fixed-size log-linear histogram of non-negative values (e.g. latencies in microseconds).
+ * <p>
+ * Values below 128 are recorded exactly, larger values with a relative error below 1.6%. Recording does not
+ * allocate, so a histogram per load generating thread does not disturb the allocation rate of the measured
+ * application. Not thread-safe: {@link #add(LatencyHistogram) merge} per-thread histograms after the run.
+ */
+class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+  private final long[] counts = new long[SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS];
+  private long totalCount;
+  private long max;
+
+  void record(long value) {
+    counts[indexOf(Math.max(0, value))]++;
+    totalCount++;
+    max = Math.max(max, value);
+  }
+
+  void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    max = Math.max(max, other.max);
+  }
+
+  long getTotalCount() {
+    return totalCount;
+  }
+
+  long getMax() {
+    return max;
+  }
+
+  /**
+   * @param percentile in range {@code (0, 100]}
+   * @return highest value of the bucket containing the requested percentile
+   */
+  long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulative += counts[i];
+      if (cumulative >= target) {
+        return Math.min(highestValueOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    int top = (int) (value >>> shift);
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+  }
+
+  private static long highestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    long top = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+
+}
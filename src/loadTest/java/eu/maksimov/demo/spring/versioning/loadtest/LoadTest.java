@@ -0,0 +1,233 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+import eu.maksimov.demo.spring.versioning.Application;
+import eu.maksimov.demo.spring.versioning.config.OpenApiGroupProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Closed-loop load generator for the versioned endpoints.
+ * <p>
+ * Boots {@link Application} in-process on a random port (unless {@code loadtest.target} points to an already
+ * running instance), warms it up, replays the configured traffic mix with {@code loadtest.concurrency} workers for
+ * {@code loadtest.duration} and prints throughput, latency percentiles, allocation rate and GC pauses.
+ * Allocation and GC figures are only available for the in-process application.
+ * <p>
+ * System properties (defaults in brackets):
+ * <ul>
+ * <li>{@code loadtest.target} - base URL of a running application, which must know the callers of
+ * {@code loadtest-callers.properties} [boot in-process]</li>
+ * <li>{@code loadtest.concurrency} - number of workers [16]</li>
+ * <li>{@code loadtest.httpVersion} - {@code HTTP_1_1} or {@code HTTP_2}, the latter upgrading to h2c [HTTP_1_1]</li>
+ * <li>{@code loadtest.warmup} - warm-up duration, ISO-8601 [PT10S]</li>
+ * <li>{@code loadtest.duration} - measurement duration, ISO-8601 [PT30S]</li>
+ * <li>{@code loadtest.scopes} - weighted scopes [person:4,session:1]</li>
+ * <li>{@code loadtest.versions} - weighted versions [v1:1,v2:2,v3:2,latest:5]</li>
+ * <li>{@code loadtest.getAllRatio} - fraction of {@code getAll} requests [0.1]</li>
+ * <li>{@code loadtest.ids} - number of distinct ids [10000]</li>
+ * <li>{@code loadtest.idSkew} - Zipf exponent of the id distribution [1.1]</li>
+ * <li>{@code loadtest.token} - bearer token for the session scope of a running application [none]</li>
+ * </ul>
+ * The in-process application verifies tokens against a key pair generated for the run, each worker sends its own
+ * token.
+ * Remaining arguments are passed to the application, e.g. {@code --versioning.coalescing.enabled=false} or
+ * {@code --spring.profiles.active=performance} (together with {@code loadtest.httpVersion=HTTP_2}).
+ */
+public class LoadTest {
+
+  public static void main(String[] args) throws Exception {
+    var concurrency = Integer.getInteger("loadtest.concurrency", 16);
+    var httpVersion = HttpClient.Version.valueOf(System.getProperty("loadtest.httpVersion", "HTTP_1_1"));
+    var warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    var duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    var mix = new TrafficMix(
+      System.getProperty("loadtest.scopes", "person:4,session:1"),
+      System.getProperty("loadtest.versions", "v1:1,v2:2,v3:2,latest:5"),
+      Double.parseDouble(System.getProperty("loadtest.getAllRatio", "0.1")),
+      Integer.getInteger("loadtest.ids", 10_000),
+      Double.parseDouble(System.getProperty("loadtest.idSkew", "1.1"))
+    );
+
+    ConfigurableApplicationContext context = null;
+    var target = System.getProperty("loadtest.target");
+    TestTokens tokens = null;
+    if (target == null) {
+      tokens = new TestTokens();
+      context = bootApplication(args, tokens.writeKeySet());
+      target = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+    var authorizations = new String[concurrency];
+    for (int i = 0; i < concurrency; i++) {
+      var token = tokens != null
+        ? tokens.sign("loadtest-" + i, Duration.ofHours(1))
+        : System.getProperty("loadtest.token");
+      authorizations[i] = token != null ? "Bearer " + token : null;
+    }
+
+    try {
+      System.out.printf("Target: %s (%s), workers: %d, mix: %s%n", target, httpVersion, concurrency, mix);
+      var client = HttpClient.newBuilder().version(httpVersion).build();
+
+      System.out.printf("Warming up for %s%n", warmup);
+      run(client, target, mix, authorizations, warmup);
+
+      var jvmMetrics = context != null ? new JvmMetrics(it -> it.startsWith("http-nio-")) : null;
+      if (jvmMetrics != null) {
+        jvmMetrics.start();
+      }
+      System.out.printf("Measuring for %s%n", duration);
+      var result = run(client, target, mix, authorizations, duration);
+      var allocatedBytes = jvmMetrics != null ? jvmMetrics.stop() : -1;
+
+      report(result, allocatedBytes, jvmMetrics != null ? jvmMetrics.getGcPausesMillis() : null);
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext bootApplication(String[] args, Path keySet) {
+    var appArgs = new ArrayList<String>();
+    appArgs.add("--server.port=0");
+    appArgs.add("--logging.level.root=WARN");
+    appArgs.add("--versioning.token.enabled=true");
+    appArgs.add("--versioning.token.key-set=" + keySet.toUri());
+    appArgs.add("--versioning.caller.source=classpath:loadtest-callers.properties");
+    appArgs.addAll(List.of(args));
+    Class<?>[] primarySources = {Application.class, OpenApiGroupProcessor.class};
+    return SpringApplication.run(primarySources, appArgs.toArray(String[]::new));
+  }
+
+  /**
+   * @param authorizations {@code Authorization} header per worker, {@code null} for none
+   */
+  private static Result run(HttpClient client, String target, TrafficMix mix, String[] authorizations,
+                            Duration duration) throws InterruptedException {
+    var concurrency = authorizations.length;
+    var running = new AtomicBoolean(true);
+    var done = new CountDownLatch(concurrency);
+    var workers = new ArrayList<Worker>();
+    for (int i = 0; i < concurrency; i++) {
+      var worker = new Worker(client, target, mix, authorizations[i], running, done);
+      workers.add(worker);
+      new Thread(worker, "loadtest-worker-" + i).start();
+    }
+
+    var startedNanos = nanoTime();
+    Thread.sleep(duration.toMillis());
+    running.set(false);
+    done.await();
+    var elapsedNanos = nanoTime() - startedNanos;
+
+    var result = new Result(elapsedNanos);
+    workers.forEach(it -> {
+      result.latencyMicros.add(it.latencyMicros);
+      result.errors += it.errors;
+    });
+    return result;
+  }
+
+  private static void report(Result result, long allocatedBytes, List<Long> gcPausesMillis) {
+    var seconds = result.elapsedNanos / 1e9;
+    var histogram = result.latencyMicros;
+    var requests = histogram.getTotalCount();
+
+    System.out.printf("Requests:   %d (%d errors)%n", requests, result.errors);
+    System.out.printf("Throughput: %.1f req/s%n", requests / seconds);
+    System.out.printf("Latency:    p50=%dus p99=%dus p999=%dus max=%dus%n",
+      histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+      histogram.getValueAtPercentile(99.9), histogram.getMax());
+    if (allocatedBytes >= 0) {
+      System.out.printf("Allocation: %.1f MB/s, %d B/req%n",
+        allocatedBytes / seconds / (1 << 20), requests == 0 ? 0 : allocatedBytes / requests);
+    }
+    if (gcPausesMillis != null) {
+      System.out.printf("GC pauses:  count=%d total=%dms max=%dms%n",
+        gcPausesMillis.size(),
+        gcPausesMillis.stream().mapToLong(Long::longValue).sum(),
+        gcPausesMillis.stream().mapToLong(Long::longValue).max().orElse(0));
+    }
+  }
+
+  private static final class Worker implements Runnable {
+
+    private final HttpClient client;
+    private final String target;
+    private final TrafficMix mix;
+    private final String authorization;
+    private final AtomicBoolean running;
+    private final CountDownLatch done;
+    private final LatencyHistogram latencyMicros = new LatencyHistogram();
+    private long errors;
+
+    private Worker(HttpClient client, String target, TrafficMix mix, String authorization, AtomicBoolean running,
+                   CountDownLatch done) {
+      this.client = client;
+      this.target = target;
+      this.mix = mix;
+      this.authorization = authorization;
+      this.running = running;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (running.get()) {
+          var builder = HttpRequest.newBuilder(URI.create(target + mix.nextPath()))
+            .header("X-Application-Id", "loadtest")
+            .header("X-User-Id", "loadtest")
+            .GET();
+          if (authorization != null) {
+            builder.header("Authorization", authorization);
+          }
+          var request = builder.build();
+          var startedNanos = nanoTime();
+          try {
+            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+              errors++;
+            }
+          } catch (IOException e) {
+            errors++;
+          }
+          latencyMicros.record((nanoTime() - startedNanos) / 1_000);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        done.countDown();
+      }
+    }
+
+  }
+
+  private static final class Result {
+
+    private final long elapsedNanos;
+    private final LatencyHistogram latencyMicros = new LatencyHistogram();
+    private long errors;
+
+    private Result(long elapsedNanos) {
+      this.elapsedNanos = elapsedNanos;
+    }
+
+  }
+
+}
@@ -0,0 +1,285 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+import eu.maksimov.demo.spring.versioning.Application;
+import eu.maksimov.demo.spring.versioning.config.OpenApiGroupProcessor;
+import org.springdoc.core.GroupedOpenApi;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Measures how startup, OpenAPI group generation and routing scale with the number of controllers.
+ * <p>
+ * For every size in {@code scaling.controllers} a separate JVM generates that many synthetic {@code @RestController}
+ * classes with four endpoints each, spread over {@code scaling.scopes} scopes and {@code scaling.versions} versions,
+ * compiles them, boots the application with them and reports:
+ * <ul>
+ * <li>startup - duration of {@code SpringApplication.run}, including {@link OpenApiGroupProcessor}</li>
+ * <li>docs - first {@code /v3/api-docs/{group}} request of every group, which builds the group's OpenAPI model,
+ * in total and the slowest group; pregeneration is disabled for this</li>
+ * <li>OpenAPI heap - heap retained by the built group models, compared after a full GC each, approximate</li>
+ * <li>routing - {@code HandlerMapping.getHandler} latency for random versioned paths, without the network</li>
+ * </ul>
+ * System properties (defaults in brackets): {@code scaling.controllers} [50,200,800], {@code scaling.scopes} [10],
+ * {@code scaling.versions} [5], {@code scaling.lookups} [100000], {@code scaling.jvmArgs}.
+ */
+public class ScalingBenchmark {
+
+  private static final String PACKAGE = Application.class.getPackageName() + ".synthetic";
+  private static final String RESULT = "RESULT ";
+  private static final String HEADER = String.format("%11s %9s %6s %10s %7s %11s %12s %13s %13s",
+    "controllers", "endpoints", "groups", "startup-ms", "docs-ms", "docs-max-ms", "openapi-heap", "route-p50-ns",
+    "route-p99-ns");
+
+  private final int scopes = Integer.getInteger("scaling.scopes", 10);
+  private final int versions = Integer.getInteger("scaling.versions", 5);
+  private final int lookups = Integer.getInteger("scaling.lookups", 100_000);
+
+  public static void main(String[] args) throws Exception {
+    var benchmark = new ScalingBenchmark();
+    if (args.length == 2 && args[0].equals("run")) {
+      benchmark.run(Integer.parseInt(args[1]));
+    } else {
+      benchmark.benchmark(System.getProperty("scaling.controllers", "50,200,800").split(","));
+    }
+  }
+
+  /**
+   * Runs every size in a fresh JVM, so that neither classes nor JIT state of one run speed up the next one.
+   */
+  private void benchmark(String[] sizes) throws Exception {
+    List<String> rows = new ArrayList<>();
+    for (var size : sizes) {
+      List<String> command = new ArrayList<>();
+      command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+      for (var arg : System.getProperty("scaling.jvmArgs", "").split(" ")) {
+        if (!arg.isBlank()) {
+          command.add(arg);
+        }
+      }
+      command.addAll(List.of(
+        "-Dscaling.scopes=" + scopes, "-Dscaling.versions=" + versions, "-Dscaling.lookups=" + lookups,
+        "-cp", System.getProperty("java.class.path"), ScalingBenchmark.class.getName(), "run", size.trim()
+      ));
+      var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      try (var output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+        String line;
+        while ((line = output.readLine()) != null) {
+          if (line.startsWith(RESULT)) {
+            rows.add(line.substring(RESULT.length()));
+          } else {
+            System.out.println(line);
+          }
+        }
+      }
+      if (process.waitFor() != 0) {
+        throw new IllegalStateException("Run with " + size + " controllers exited with code " + process.exitValue());
+      }
+    }
+    System.out.println(HEADER);
+    rows.forEach(System.out::println);
+  }
+
+  private void run(int controllers) throws Exception {
+    var classLoader = generateControllers(Files.createTempDirectory("scaling-benchmark"), controllers);
+    Thread.currentThread().setContextClassLoader(classLoader);
+
+    var startedNanos = nanoTime();
+    var application = new SpringApplication(
+      new DefaultResourceLoader(classLoader), Application.class, OpenApiGroupProcessor.class
+    );
+    // documents are built by the first request of each group, which is what the docs columns measure
+    var context = application.run(
+      "--server.port=0", "--logging.level.root=WARN", "--versioning.openapi.pregeneration.enabled=false"
+    );
+    var startupMillis = (nanoTime() - startedNanos) / 1_000_000;
+    try {
+      var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      List<String> groups = new ArrayList<>();
+      context.getBeansOfType(GroupedOpenApi.class).values().forEach(it -> groups.add(it.getGroup()));
+
+      var heapBefore = usedHeapAfterGc();
+      var client = HttpClient.newHttpClient();
+      long docsNanos = 0;
+      long docsMaxNanos = 0;
+      for (var group : groups) {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v3/api-docs/" + group)).build();
+        var groupStartedNanos = nanoTime();
+        var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        var groupNanos = nanoTime() - groupStartedNanos;
+        if (response.statusCode() != 200) {
+          throw new IllegalStateException("Group " + group + " answered " + response.statusCode());
+        }
+        docsNanos += groupNanos;
+        docsMaxNanos = Math.max(docsMaxNanos, groupNanos);
+      }
+      var openApiHeap = usedHeapAfterGc() - heapBefore;
+
+      var routing = measureRouting(context.getBean("requestMappingHandlerMapping", HandlerMapping.class), controllers);
+
+      System.out.println(RESULT + String.format("%11d %9d %6d %10d %7d %11d %9.1f MB %13d %13d",
+        controllers, controllers * 4, groups.size(), startupMillis, docsNanos / 1_000_000, docsMaxNanos / 1_000_000,
+        openApiHeap / 1024.0 / 1024, routing.getValueAtPercentile(50), routing.getValueAtPercentile(99)));
+    } finally {
+      context.close();
+    }
+  }
+
+  /**
+   * Controller {@code i} serves {@code /scope<s>/v<v>/resource<r>}, so that every scope gets all versions before a
+   * scope gets another resource.
+   */
+  private URLClassLoader generateControllers(Path directory, int controllers) throws IOException {
+    var sources = Files.createDirectories(directory.resolve("src"));
+    var classes = Files.createDirectories(directory.resolve("classes"));
+    List<String> files = new ArrayList<>();
+    for (int i = 0; i < controllers; i++) {
+      var name = "Scope" + scope(i) + "Resource" + resource(i) + "V" + version(i) + "Controller";
+      var file = sources.resolve(name + ".java");
+      Files.writeString(file, String.join("\n",
+        "package " + PACKAGE + ";",
+        "import org.springframework.web.bind.annotation.*;",
+        "import java.util.List;",
+        "@RestController",
+        "@RequestMapping(\"/scope" + scope(i) + "/v" + version(i) + "/resource" + resource(i) + "\")",
+        "public class " + name + " {",
+        "  @GetMapping public List<String> getAll() { return List.of(\"1\", \"2\"); }",
+        "  @GetMapping(\"{id}\") public String getById(@PathVariable String id) { return id; }",
+        "  @PostMapping public String create(@RequestBody String body) { return body; }",
+        "  @DeleteMapping(\"{id}\") public void delete(@PathVariable String id) { }",
+        "}"
+      ));
+      files.add(file.toString());
+    }
+
+    var compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("Generating controllers needs a JDK, not a JRE");
+    }
+    List<String> arguments = new ArrayList<>(List.of(
+      "-proc:none", "-classpath", System.getProperty("java.class.path"), "-d", classes.toString()
+    ));
+    arguments.addAll(files);
+    if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+      throw new IllegalStateException("Compiling the generated controllers failed");
+    }
+    return new URLClassLoader(new URL[]{classes.toUri().toURL()}, ScalingBenchmark.class.getClassLoader());
+  }
+
+  private int scope(int controller) {
+    return controller % scopes;
+  }
+
+  private int version(int controller) {
+    return 1 + controller / scopes % versions;
+  }
+
+  private int resource(int controller) {
+    return controller / (scopes * versions);
+  }
+
+  private LatencyHistogram measureRouting(HandlerMapping handlerMapping, int controllers) throws Exception {
+    var random = new Random(42);
+    var paths = new String[1024];
+    for (int i = 0; i < paths.length; i++) {
+      var controller = random.nextInt(controllers);
+      var version = random.nextBoolean() ? "v" + version(controller) : "latest";
+      paths[i] = "/scope" + scope(controller) + "/" + version + "/resource" + resource(controller) + "/" + i;
+    }
+
+    var histogram = new LatencyHistogram();
+    // the first half warms up the lookup
+    for (int i = 0; i < 2 * lookups; i++) {
+      var request = lookupRequest(paths[i % paths.length]);
+      var startedNanos = nanoTime();
+      var handler = handlerMapping.getHandler(request);
+      var elapsedNanos = nanoTime() - startedNanos;
+      if (handler == null) {
+        throw new IllegalStateException("No handler for " + request.getRequestURI());
+      }
+      if (i >= lookups) {
+        histogram.record(elapsedNanos);
+      }
+    }
+    return histogram;
+  }
+
+  /**
+   * @return {@code GET} request of the path, all other methods answer {@code null} or zero
+   */
+  private static HttpServletRequest lookupRequest(String path) {
+    Map<String, Object> attributes = new HashMap<>();
+    return (HttpServletRequest) Proxy.newProxyInstance(
+      ScalingBenchmark.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getRequestURI":
+          case "getServletPath":
+            return path;
+          case "getContextPath":
+            return "";
+          case "getMethod":
+            return "GET";
+          case "getDispatcherType":
+            return DispatcherType.REQUEST;
+          case "getAttribute":
+            return attributes.get(args[0]);
+          case "setAttribute":
+            attributes.put((String) args[0], args[1]);
+            return null;
+          case "removeAttribute":
+            attributes.remove(args[0]);
+            return null;
+          case "getAttributeNames":
+            return Collections.enumeration(attributes.keySet());
+          case "getHeaders":
+          case "getHeaderNames":
+          case "getParameterNames":
+            return Collections.emptyEnumeration();
+          case "getParameterMap":
+            return Map.of();
+          default:
+            var type = method.getReturnType();
+            return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+      }
+    );
+  }
+
+  private static long usedHeapAfterGc() throws InterruptedException {
+    var memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      memory.gc();
+      Thread.sleep(100);
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+}
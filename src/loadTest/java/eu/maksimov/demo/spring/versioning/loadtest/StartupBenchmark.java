@@ -0,0 +1,173 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup measurements of the application in a separate JVM, with and without an application class-data-sharing
+ * archive.
+ * <p>
+ * Modes (first argument):
+ * <ul>
+ * <li>{@code train} - starts the application with {@code -XX:ArchiveClassesAtExit}, sends the first request and
+ * stops it gracefully, which dumps the archive</li>
+ * <li>{@code benchmark} - starts the application {@code startup.iterations} times with and without the archive and
+ * reports time-to-first-request and resident set size after the first request</li>
+ * </ul>
+ * System properties: {@code startup.classpath} (plain jars only, CDS ignores directories and nested jars),
+ * {@code startup.archive}, {@code startup.iterations} [5], {@code startup.jvmArgs}.
+ */
+public class StartupBenchmark {
+
+  private static final String MAIN_CLASS = "eu.maksimov.demo.spring.versioning.Application";
+  private static final String FIRST_REQUEST = "/api/latest/person/1";
+  private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+  private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+  private final String classpath = System.getProperty("startup.classpath");
+  private final Path archive = Paths.get(System.getProperty("startup.archive"));
+  private final List<String> jvmArgs = split(System.getProperty("startup.jvmArgs", ""));
+
+  public static void main(String[] args) throws Exception {
+    var benchmark = new StartupBenchmark();
+    switch (args.length > 0 ? args[0] : "benchmark") {
+      case "train":
+        benchmark.train();
+        break;
+      case "benchmark":
+        benchmark.benchmark(Integer.getInteger("startup.iterations", 5));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown mode '" + args[0] + "', expected train or benchmark");
+    }
+  }
+
+  private void train() throws Exception {
+    Files.createDirectories(archive.toAbsolutePath().getParent());
+    var sample = start(List.of("-XX:ArchiveClassesAtExit=" + archive));
+    System.out.printf("Training run: first request after %d ms, archive %s%n", sample.timeToFirstRequestMillis, archive);
+  }
+
+  private void benchmark(int iterations) throws Exception {
+    if (!Files.exists(archive)) {
+      throw new IllegalStateException("Archive " + archive + " does not exist, run the training first");
+    }
+    List<Sample> withoutArchive = new ArrayList<>();
+    List<Sample> withArchive = new ArrayList<>();
+    for (int i = 0; i < iterations; i++) {
+      withoutArchive.add(start(List.of("-Xshare:auto")));
+      withArchive.add(start(List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto")));
+    }
+    report("without archive", withoutArchive);
+    report("with archive", withArchive);
+  }
+
+  private Sample start(List<String> cdsArgs) throws Exception {
+    int port = freePort();
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(cdsArgs);
+    command.addAll(jvmArgs);
+    command.addAll(List.of("-cp", classpath, MAIN_CLASS, "--server.port=" + port, "--logging.level.root=WARN"));
+    // the application classpath does not contain the harness resources
+    command.add("--versioning.caller.source=" + StartupBenchmark.class.getResource("/loadtest-callers.properties"));
+
+    var startedNanos = System.nanoTime();
+    var process = new ProcessBuilder(command).inheritIO().start();
+    try {
+      awaitFirstRequest(process, port);
+      var timeToFirstRequestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+      return new Sample(timeToFirstRequestMillis, residentSetSizeKb(process.pid()));
+    } finally {
+      process.destroy(); // SIGTERM, graceful shutdown writes the dynamic archive
+      if (!process.waitFor(30, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private void awaitFirstRequest(Process process, int port) throws Exception {
+    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST))
+      .header("X-Application-Id", "startup-benchmark")
+      .header("X-User-Id", "startup-benchmark")
+      .build();
+    var deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+    while (System.nanoTime() < deadline) {
+      if (!process.isAlive()) {
+        throw new IllegalStateException("Application exited with code " + process.exitValue());
+      }
+      try {
+        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500) {
+          return;
+        }
+      } catch (ConnectException e) {
+        // not listening yet
+      }
+      Thread.sleep(5);
+    }
+    throw new IllegalStateException("Application did not answer within " + STARTUP_TIMEOUT);
+  }
+
+  /**
+   * @return VmRSS from {@code /proc}, or {@code -1} on systems without it
+   */
+  private static long residentSetSizeKb(long pid) throws IOException {
+    var status = Paths.get("/proc", String.valueOf(pid), "status");
+    if (!Files.exists(status)) {
+      return -1;
+    }
+    return Files.readAllLines(status).stream()
+      .filter(it -> it.startsWith("VmRSS:"))
+      .map(it -> it.replaceAll("\\D", ""))
+      .mapToLong(Long::parseLong)
+      .findFirst().orElse(-1);
+  }
+
+  private static void report(String name, List<Sample> samples) {
+    System.out.printf("%-16s time-to-first-request: min=%d ms avg=%.0f ms, RSS: avg=%.1f MB%n", name,
+      samples.stream().mapToLong(it -> it.timeToFirstRequestMillis).min().orElse(0),
+      samples.stream().mapToLong(it -> it.timeToFirstRequestMillis).average().orElse(0),
+      samples.stream().mapToLong(it -> it.rssKb).average().orElse(0) / 1024);
+  }
+
+  private static int freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static List<String> split(String args) {
+    List<String> result = new ArrayList<>();
+    for (var arg : args.split(" ")) {
+      if (!arg.isBlank()) {
+        result.add(arg);
+      }
+    }
+    return result;
+  }
+
+  private static final class Sample {
+
+    private final long timeToFirstRequestMillis;
+    private final long rssKb;
+
+    private Sample(long timeToFirstRequestMillis, long rssKb) {
+      this.timeToFirstRequestMillis = timeToFirstRequestMillis;
+      this.rssKb = rssKb;
+    }
+
+  }
+
+}
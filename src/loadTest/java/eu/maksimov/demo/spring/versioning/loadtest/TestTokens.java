@@ -0,0 +1,66 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * RSA key pair of a load test run, published as a JSON Web Key Set file for the application under test
+ * ({@code versioning.token.key-set}), and bearer tokens signed with it.
+ */
+final class TestTokens {
+
+  private static final String KEY_ID = "loadtest";
+
+  private final KeyPair keyPair;
+
+  TestTokens() throws GeneralSecurityException {
+    var generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    this.keyPair = generator.generateKeyPair();
+  }
+
+  /**
+   * @return temporary file deleted on exit
+   */
+  Path writeKeySet() throws IOException {
+    var publicKey = (RSAPublicKey) keyPair.getPublic();
+    var file = Files.createTempFile("loadtest-keys", ".json");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"" + KEY_ID + "\",\"alg\":\"RS256\","
+      + "\"n\":\"" + encode(publicKey.getModulus()) + "\",\"e\":\"" + encode(publicKey.getPublicExponent()) + "\"}]}");
+    return file;
+  }
+
+  String sign(String subject, Duration validity) throws GeneralSecurityException {
+    var header = encode("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + KEY_ID + "\"}");
+    var claims = encode("{\"sub\":\"" + subject + "\",\"exp\":" + Instant.now().plus(validity).getEpochSecond() + "}");
+    var signer = Signature.getInstance("SHA256withRSA");
+    signer.initSign(keyPair.getPrivate());
+    signer.update((header + '.' + claims).getBytes(StandardCharsets.US_ASCII));
+    return header + '.' + claims + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+  }
+
+  private static String encode(String json) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String encode(BigInteger value) {
+    var bytes = value.toByteArray();
+    // unsigned big-endian, without the sign byte
+    var unsigned = bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+  }
+
+}
@@ -0,0 +1,107 @@
+package eu.maksimov.demo.spring.versioning.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates request paths for a weighted mix of scopes and versions with Zipf distributed ids, so that a few hot ids
+ * receive most of the {@code getById} traffic - like real clients do.
+ * <p>
+ * Weights are given as {@code name:weight} lists, e.g. {@code v1:1,v2:2,v3:3,latest:4}.
+ */
+class TrafficMix {
+
+  private final Weighted scopes;
+  private final Weighted versions;
+  private final double getAllRatio;
+  private final double[] idCumulativeProbabilities;
+
+  TrafficMix(String scopes, String versions, double getAllRatio, int idCount, double idSkew) {
+    this.scopes = Weighted.parse(scopes);
+    this.versions = Weighted.parse(versions);
+    this.getAllRatio = getAllRatio;
+    this.idCumulativeProbabilities = zipfCumulativeProbabilities(idCount, idSkew);
+  }
+
+  String nextPath() {
+    var random = ThreadLocalRandom.current();
+    var prefix = "/api/" + versions.next(random.nextDouble()) + "/" + scopes.next(random.nextDouble());
+    if (random.nextDouble() < getAllRatio) {
+      return prefix;
+    }
+    return prefix + "/" + nextId(random.nextDouble());
+  }
+
+  private int nextId(double uniform) {
+    int index = Arrays.binarySearch(idCumulativeProbabilities, uniform);
+    return (index >= 0 ? index : -index - 1) + 1;
+  }
+
+  private static double[] zipfCumulativeProbabilities(int count, double skew) {
+    var cumulative = new double[count];
+    double sum = 0;
+    for (int rank = 1; rank <= count; rank++) {
+      sum += 1 / Math.pow(rank, skew);
+      cumulative[rank - 1] = sum;
+    }
+    for (int i = 0; i < count; i++) {
+      cumulative[i] /= sum;
+    }
+    cumulative[count - 1] = 1;
+    return cumulative;
+  }
+
+  @Override
+  public String toString() {
+    return "scopes=" + scopes + ", versions=" + versions + ", getAllRatio=" + getAllRatio
+      + ", ids=" + idCumulativeProbabilities.length;
+  }
+
+  private static final class Weighted {
+
+    private final List<String> names;
+    private final double[] cumulativeWeights;
+
+    private Weighted(List<String> names, double[] cumulativeWeights) {
+      this.names = names;
+      this.cumulativeWeights = cumulativeWeights;
+    }
+
+    static Weighted parse(String spec) {
+      List<String> names = new ArrayList<>();
+      List<Double> weights = new ArrayList<>();
+      for (var entry : spec.split(",")) {
+        var parts = entry.trim().split(":");
+        names.add(parts[0]);
+        weights.add(parts.length > 1 ? Double.parseDouble(parts[1]) : 1);
+      }
+      double total = weights.stream().mapToDouble(Double::doubleValue).sum();
+      var cumulative = new double[weights.size()];
+      double sum = 0;
+      for (int i = 0; i < weights.size(); i++) {
+        sum += weights.get(i) / total;
+        cumulative[i] = sum;
+      }
+      cumulative[cumulative.length - 1] = 1;
+      return new Weighted(names, cumulative);
+    }
+
+    String next(double uniform) {
+      for (int i = 0; i < cumulativeWeights.length; i++) {
+        if (uniform < cumulativeWeights[i]) {
+          return names.get(i);
+        }
+      }
+      return names.get(names.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+      return names.toString();
+    }
+
+  }
+
+}
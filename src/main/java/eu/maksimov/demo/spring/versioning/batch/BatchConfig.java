@@ -0,0 +1,32 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.HandlerExceptionResolverComposite;
+import org.springframework.web.servlet.mvc.annotation.ResponseStatusExceptionResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.support.DefaultHandlerExceptionResolver;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(BatchProperties.class)
+public class BatchConfig {
+
+  @Bean
+  public BatchExecutor batchExecutor(
+    @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+    @Qualifier("requestMappingHandlerAdapter") RequestMappingHandlerAdapter handlerAdapter,
+    BatchProperties properties
+  ) {
+    var exceptionResolver = new HandlerExceptionResolverComposite();
+    exceptionResolver.setExceptionResolvers(List.of(
+      new ResponseStatusExceptionResolver(), new DefaultHandlerExceptionResolver()
+    ));
+    return new BatchExecutor(handlerMapping, handlerAdapter, exceptionResolver, properties);
+  }
+
+}
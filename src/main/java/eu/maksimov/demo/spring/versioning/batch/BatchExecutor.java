@@ -0,0 +1,222 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+import eu.maksimov.demo.spring.versioning.caller.CallerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executes batch entries in parallel on a bounded pool, each through the same handler mapping (and thus the same
+ * version fall-through rules), interceptors and handler adapter as a standalone request.
+ * <p>
+ * Only the Spring MVC part of the request processing is repeated per entry: the connection, TLS, servlet filters and
+ * request headers are paid once for the whole batch.
+ * <p>
+ * Every entry counts against the requests per second of the caller's {@link CallerContext}, the first one is covered
+ * by the batch request itself. Entries beyond the limit are answered with {@code 429}.
+ * <p>
+ * Entries carry no body, the batch request's own body has already been read. Textual response bodies are returned
+ * as strings, all others (e.g. CBOR, Smile) Base64-encoded.
+ */
+public class BatchExecutor implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BatchExecutor.class);
+
+  private final HandlerMapping handlerMapping;
+  private final HandlerAdapter handlerAdapter;
+  private final HandlerExceptionResolver exceptionResolver;
+  private final BatchProperties properties;
+  private final ThreadPoolExecutor executor;
+
+  public BatchExecutor(HandlerMapping handlerMapping, HandlerAdapter handlerAdapter,
+                       HandlerExceptionResolver exceptionResolver, BatchProperties properties) {
+    this.handlerMapping = handlerMapping;
+    this.handlerAdapter = handlerAdapter;
+    this.exceptionResolver = exceptionResolver;
+    this.properties = properties;
+    this.executor = new ThreadPoolExecutor(
+      properties.getThreads(), properties.getThreads(), 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("batch-")
+    );
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * @param versionPrefix path prefix the batch was requested with, e.g. {@code /api/v2}
+   * @return responses in the order of the requests
+   */
+  public List<BatchResponse> execute(HttpServletRequest batchRequest, HttpServletResponse batchResponse,
+                                     String versionPrefix, List<BatchRequest> requests) {
+    if (requests.size() > properties.getMaxRequests()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+        "Batch contains " + requests.size() + " requests, at most " + properties.getMaxRequests() + " are allowed");
+    }
+
+    var callerContext = CallerContext.get(batchRequest);
+    List<Future<BatchResponse>> futures = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      var request = requests.get(i);
+      if (i > 0 && callerContext != null && !callerContext.tryAcquire(System.nanoTime())) {
+        futures.add(CompletableFuture.completedFuture(errorResponse(request.getPath(), HttpStatus.TOO_MANY_REQUESTS,
+          "Application " + callerContext.getApplicationId() + " exceeded " + callerContext.getRequestsPerSecond()
+            + " requests per second")));
+        continue;
+      }
+      futures.add(submit(batchRequest, batchResponse, versionPrefix, request));
+    }
+
+    var deadline = System.nanoTime() + properties.getTimeout().toNanos();
+    List<BatchResponse> responses = new ArrayList<>(requests.size());
+    for (int i = 0; i < futures.size(); i++) {
+      responses.add(await(futures.get(i), requests.get(i).getPath(), deadline));
+    }
+    return responses;
+  }
+
+  private Future<BatchResponse> submit(HttpServletRequest batchRequest, HttpServletResponse batchResponse,
+                                       String versionPrefix, BatchRequest request) {
+    var path = request.getPath();
+    if (path == null || !path.startsWith("/")) {
+      return CompletableFuture.completedFuture(
+        errorResponse(path, HttpStatus.BAD_REQUEST, "Path must be relative to the version, e.g. /person/1")
+      );
+    }
+
+    var method = request.getMethod();
+    if (method == null || method.isBlank()) {
+      return CompletableFuture.completedFuture(errorResponse(path, HttpStatus.BAD_REQUEST, "Method is required"));
+    }
+    if (request.getBody() != null) {
+      return CompletableFuture.completedFuture(
+        errorResponse(path, HttpStatus.BAD_REQUEST, "Request bodies are not supported in batch entries")
+      );
+    }
+
+    var subRequest = new SubRequest(batchRequest, method.toUpperCase(Locale.ROOT), versionPrefix + path);
+    var subResponse = new BufferedResponse(batchResponse);
+    try {
+      return executor.submit(() -> dispatch(subRequest, subResponse, path));
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(
+        errorResponse(path, HttpStatus.SERVICE_UNAVAILABLE, "Batch pool is full")
+      );
+    }
+  }
+
+  private BatchResponse await(Future<BatchResponse> future, String path, long deadline) {
+    try {
+      return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      return errorResponse(path, HttpStatus.GATEWAY_TIMEOUT, "Timed out after " + properties.getTimeout());
+    } catch (ExecutionException e) {
+      LOG.error("Batch request {} failed", path, e.getCause());
+      return errorResponse(path, HttpStatus.INTERNAL_SERVER_ERROR, null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      return errorResponse(path, HttpStatus.SERVICE_UNAVAILABLE, null);
+    }
+  }
+
+  private BatchResponse dispatch(SubRequest request, BufferedResponse response, String path) {
+    HandlerExecutionChain chain = null;
+    HandlerInterceptor[] interceptors = {};
+    int preHandled = 0;
+    Exception failure = null;
+    try {
+      chain = handlerMapping.getHandler(request);
+      if (chain == null) {
+        response.setStatus(HttpStatus.NOT_FOUND.value());
+      } else {
+        interceptors = chain.getInterceptors() != null ? chain.getInterceptors() : interceptors;
+        while (preHandled < interceptors.length
+          && interceptors[preHandled].preHandle(request, response, chain.getHandler())) {
+          preHandled++;
+        }
+        if (preHandled == interceptors.length) {
+          handlerAdapter.handle(request, response, chain.getHandler());
+          for (int i = interceptors.length - 1; i >= 0; i--) {
+            interceptors[i].postHandle(request, response, chain.getHandler(), null);
+          }
+        }
+      }
+    } catch (Exception e) {
+      failure = e;
+      var handler = chain != null ? chain.getHandler() : null;
+      if (exceptionResolver.resolveException(request, response, handler, e) == null) {
+        LOG.error("Batch request {} failed", path, e);
+        response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+      }
+    } finally {
+      // like DispatcherServlet, only for interceptors whose preHandle returned true
+      for (int i = preHandled - 1; i >= 0; i--) {
+        try {
+          interceptors[i].afterCompletion(request, response, chain.getHandler(), failure);
+        } catch (Exception e) {
+          LOG.error("HandlerInterceptor.afterCompletion threw exception", e);
+        }
+      }
+    }
+    var contentType = response.getContentType();
+    var body = response.getBody();
+    if (body.length > 0 && !isTextual(contentType)) {
+      return new BatchResponse(path, response.getStatus(), contentType, Base64.getEncoder().encodeToString(body), true);
+    }
+    return new BatchResponse(path, response.getStatus(), contentType, new String(body, response.getCharset()));
+  }
+
+  /**
+   * @return {@code true} for {@code text/*}, JSON, XML and content types with a charset, which survive as a string
+   */
+  static boolean isTextual(@Nullable String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    MediaType mediaType;
+    try {
+      mediaType = MediaType.parseMediaType(contentType);
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
+    var subtype = mediaType.getSubtype();
+    return "text".equals(mediaType.getType()) || mediaType.getCharset() != null
+      || "json".equals(subtype) || subtype.endsWith("+json") || "xml".equals(subtype) || subtype.endsWith("+xml");
+  }
+
+  private static BatchResponse errorResponse(String path, HttpStatus status, String message) {
+    return new BatchResponse(path, status.value(), null, message);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+}
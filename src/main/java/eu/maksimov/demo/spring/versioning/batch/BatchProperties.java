@@ -0,0 +1,59 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.batch")
+public class BatchProperties {
+
+  /**
+   * Maximum number of sub-requests in one batch.
+   */
+  private int maxRequests = 50;
+  /**
+   * Threads executing sub-requests, shared by all batches.
+   */
+  private int threads = 16;
+  /**
+   * Sub-requests waiting for a thread; above that they are answered with 503.
+   */
+  private int queueCapacity = 256;
+  /**
+   * Sub-requests not finished within this time are answered with 504.
+   */
+  private Duration timeout = Duration.ofSeconds(10);
+
+  public int getMaxRequests() {
+    return maxRequests;
+  }
+
+  public void setMaxRequests(int maxRequests) {
+    this.maxRequests = maxRequests;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+}
@@ -0,0 +1,47 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+/**
+ * Sub-request of a batch, relative to the version the batch was requested with, e.g. {@code /person/42?x=y}.
+ */
+public class BatchRequest {
+
+  private String method = "GET";
+  private String path;
+  /**
+   * Only read to reject entries that carry a body, sub-requests have none.
+   */
+  private Object body;
+
+  public BatchRequest() {
+  }
+
+  public BatchRequest(String method, String path) {
+    this.method = method;
+    this.path = path;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public void setMethod(String method) {
+    this.method = method;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public void setPath(String path) {
+    this.path = path;
+  }
+
+  public Object getBody() {
+    return body;
+  }
+
+  public void setBody(Object body) {
+    this.body = body;
+  }
+
+}
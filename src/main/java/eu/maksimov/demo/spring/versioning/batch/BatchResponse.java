@@ -0,0 +1,46 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+public class BatchResponse {
+
+  private final String path;
+  private final int status;
+  private final String contentType;
+  private final String body;
+  private final boolean base64;
+
+  public BatchResponse(String path, int status, String contentType, String body) {
+    this(path, status, contentType, body, false);
+  }
+
+  /**
+   * @param base64 {@code true} if the body is not textual and has been Base64-encoded
+   */
+  public BatchResponse(String path, int status, String contentType, String body, boolean base64) {
+    this.path = path;
+    this.status = status;
+    this.contentType = contentType;
+    this.body = body;
+    this.base64 = base64;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  public boolean isBase64() {
+    return base64;
+  }
+
+}
@@ -0,0 +1,265 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Response of a batch sub-request, buffered in memory. Nothing is passed on to the batch response.
+ */
+class BufferedResponse extends HttpServletResponseWrapper {
+
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+  private int status = SC_OK;
+  private String contentType;
+  private String characterEncoding;
+  private Locale locale = Locale.getDefault();
+  private PrintWriter writer;
+  private boolean committed;
+
+  BufferedResponse(HttpServletResponse batchResponse) {
+    super(batchResponse);
+  }
+
+  byte[] getBody() {
+    if (writer != null) {
+      writer.flush();
+    }
+    return body.toByteArray();
+  }
+
+  Charset getCharset() {
+    return characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.UTF_8;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() {
+    return new ServletOutputStream() {
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void write(int b) {
+        body.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        body.write(b, off, len);
+      }
+    };
+  }
+
+  @Override
+  public PrintWriter getWriter() {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(body, getCharset()));
+    }
+    return writer;
+  }
+
+  @Override
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public void setStatus(int status, String message) {
+    this.status = status;
+  }
+
+  @Override
+  public void sendError(int status) {
+    sendError(status, null);
+  }
+
+  @Override
+  public void sendError(int status, String message) {
+    this.status = status;
+    if (message != null) {
+      body.reset();
+      body.writeBytes(message.getBytes(getCharset()));
+    }
+    committed = true;
+  }
+
+  @Override
+  public void sendRedirect(String location) {
+    status = SC_FOUND;
+    setHeader(HttpHeaders.LOCATION, location);
+    committed = true;
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  @Override
+  public void setContentType(String contentType) {
+    this.contentType = contentType;
+    if (contentType != null) {
+      var charsetStart = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+      if (charsetStart >= 0) {
+        characterEncoding = contentType.substring(charsetStart + "charset=".length()).trim();
+      }
+    }
+  }
+
+  @Override
+  public String getContentType() {
+    if (contentType != null && characterEncoding != null && !contentType.contains("charset=")) {
+      return contentType + ";charset=" + characterEncoding;
+    }
+    return contentType;
+  }
+
+  @Override
+  public void setCharacterEncoding(String characterEncoding) {
+    this.characterEncoding = characterEncoding;
+  }
+
+  @Override
+  public String getCharacterEncoding() {
+    return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+  }
+
+  @Override
+  public void setContentLength(int length) {
+    setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
+  }
+
+  @Override
+  public void setContentLengthLong(long length) {
+    setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
+  }
+
+  @Override
+  public void setLocale(Locale locale) {
+    this.locale = locale;
+  }
+
+  @Override
+  public Locale getLocale() {
+    return locale;
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+      setContentType(value);
+      return;
+    }
+    var values = new ArrayList<String>();
+    values.add(value);
+    headers.put(name, values);
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+      setContentType(value);
+      return;
+    }
+    headers.computeIfAbsent(name, it -> new ArrayList<>()).add(value);
+  }
+
+  @Override
+  public void setIntHeader(String name, int value) {
+    setHeader(name, String.valueOf(value));
+  }
+
+  @Override
+  public void addIntHeader(String name, int value) {
+    addHeader(name, String.valueOf(value));
+  }
+
+  @Override
+  public void setDateHeader(String name, long date) {
+    setHeader(name, formatDate(date));
+  }
+
+  @Override
+  public void addDateHeader(String name, long date) {
+    addHeader(name, formatDate(date));
+  }
+
+  private static String formatDate(long date) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+  }
+
+  @Override
+  public boolean containsHeader(String name) {
+    return headers.containsKey(name);
+  }
+
+  @Override
+  public String getHeader(String name) {
+    var values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  @Override
+  public Collection<String> getHeaders(String name) {
+    return headers.getOrDefault(name, List.of());
+  }
+
+  @Override
+  public Collection<String> getHeaderNames() {
+    return new ArrayList<>(headers.keySet());
+  }
+
+  @Override
+  public void flushBuffer() {
+    committed = true;
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return committed;
+  }
+
+  @Override
+  public void reset() {
+    resetBuffer();
+    headers.clear();
+    status = SC_OK;
+    contentType = null;
+    characterEncoding = null;
+  }
+
+  @Override
+  public void resetBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+    body.reset();
+  }
+
+}
@@ -0,0 +1,287 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request of a batch entry, dispatched on a batch thread while the batch request itself is still being served.
+ * <p>
+ * Everything that differs from the batch request (method, path, query, attributes) is held here; headers and locale
+ * are copied up front, so the container's request object is not read concurrently. The body is empty, the batch
+ * request's own body has already been read; async processing is not supported.
+ */
+class SubRequest extends HttpServletRequestWrapper {
+
+  /**
+   * Body headers describe the batch, {@code Accept} is dropped so that entries are answered in their default
+   * (textual) representation.
+   */
+  private static final List<String> NOT_COPIED_HEADERS = List.of(
+    HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.ACCEPT
+  );
+
+  private final String method;
+  private final String contextPath;
+  private final String path;
+  private final String queryString;
+  private final Map<String, String[]> parameters;
+  private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+  private final Locale locale;
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+  /**
+   * @param pathAndQuery path within the servlet, optionally followed by a query string
+   */
+  SubRequest(HttpServletRequest batchRequest, String method, String pathAndQuery) {
+    super(batchRequest);
+    this.method = method;
+    this.contextPath = batchRequest.getContextPath();
+
+    int queryStart = pathAndQuery.indexOf('?');
+    this.path = queryStart < 0 ? pathAndQuery : pathAndQuery.substring(0, queryStart);
+    this.queryString = queryStart < 0 ? null : pathAndQuery.substring(queryStart + 1);
+    this.parameters = parseParameters(queryString);
+
+    for (var names = batchRequest.getHeaderNames(); names.hasMoreElements(); ) {
+      var name = names.nextElement();
+      if (NOT_COPIED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+        headers.put(name, Collections.list(batchRequest.getHeaders(name)));
+      }
+    }
+    this.locale = batchRequest.getLocale();
+  }
+
+  private static Map<String, String[]> parseParameters(String queryString) {
+    Map<String, String[]> result = new LinkedHashMap<>();
+    if (queryString == null) {
+      return result;
+    }
+    MultiValueMap<String, String> params = UriComponentsBuilder.newInstance().query(queryString).build()
+      .getQueryParams();
+    params.forEach((name, values) -> result.put(
+      UriUtils.decode(name, StandardCharsets.UTF_8),
+      values.stream().map(it -> it == null ? "" : UriUtils.decode(it, StandardCharsets.UTF_8)).toArray(String[]::new)
+    ));
+    return result;
+  }
+
+  @Override
+  public String getMethod() {
+    return method;
+  }
+
+  @Override
+  public String getRequestURI() {
+    return contextPath + path;
+  }
+
+  @Override
+  public StringBuffer getRequestURL() {
+    var url = new StringBuffer(getScheme()).append("://").append(getServerName());
+    if (getServerPort() > 0) {
+      url.append(':').append(getServerPort());
+    }
+    return url.append(getRequestURI());
+  }
+
+  @Override
+  public String getContextPath() {
+    return contextPath;
+  }
+
+  @Override
+  public String getServletPath() {
+    return path;
+  }
+
+  @Override
+  public String getPathInfo() {
+    return null;
+  }
+
+  @Override
+  public String getPathTranslated() {
+    return null;
+  }
+
+  @Override
+  public String getQueryString() {
+    return queryString;
+  }
+
+  @Override
+  public String getParameter(String name) {
+    var values = parameters.get(name);
+    return values == null || values.length == 0 ? null : values[0];
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    return Collections.unmodifiableMap(parameters);
+  }
+
+  @Override
+  public Enumeration<String> getParameterNames() {
+    return Collections.enumeration(parameters.keySet());
+  }
+
+  @Override
+  public String[] getParameterValues(String name) {
+    return parameters.get(name);
+  }
+
+  @Override
+  public String getHeader(String name) {
+    var values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  @Override
+  public Enumeration<String> getHeaders(String name) {
+    return Collections.enumeration(headers.getOrDefault(name, List.of()));
+  }
+
+  @Override
+  public Enumeration<String> getHeaderNames() {
+    return Collections.enumeration(new ArrayList<>(headers.keySet()));
+  }
+
+  @Override
+  public int getIntHeader(String name) {
+    var value = getHeader(name);
+    return value == null ? -1 : Integer.parseInt(value);
+  }
+
+  @Override
+  public String getContentType() {
+    return null;
+  }
+
+  @Override
+  public int getContentLength() {
+    return 0;
+  }
+
+  @Override
+  public long getContentLengthLong() {
+    return 0;
+  }
+
+  @Override
+  public String getCharacterEncoding() {
+    return null;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    return new ServletInputStream() {
+      @Override
+      public boolean isFinished() {
+        return true;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int read() {
+        return -1;
+      }
+    };
+  }
+
+  @Override
+  public BufferedReader getReader() {
+    return new BufferedReader(Reader.nullReader());
+  }
+
+  @Override
+  public Locale getLocale() {
+    return locale;
+  }
+
+  @Override
+  public Enumeration<Locale> getLocales() {
+    return Collections.enumeration(List.of(locale));
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNames() {
+    return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (value == null) {
+      attributes.remove(name);
+    } else {
+      attributes.put(name, value);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+
+  @Override
+  public DispatcherType getDispatcherType() {
+    return DispatcherType.REQUEST;
+  }
+
+  @Override
+  public boolean isAsyncSupported() {
+    return false;
+  }
+
+  @Override
+  public boolean isAsyncStarted() {
+    return false;
+  }
+
+  @Override
+  public AsyncContext startAsync() {
+    throw new IllegalStateException("Async processing is not supported for batch sub-requests");
+  }
+
+  @Override
+  public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+    throw new IllegalStateException("Async processing is not supported for batch sub-requests");
+  }
+
+}
@@ -0,0 +1,108 @@
+package eu.maksimov.demo.spring.versioning.bulkhead;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of the handlers of one scope and version.
+ * <p>
+ * At most {@code threads + queueCapacity} requests are admitted at a time, see {@link #tryAcquire()}. Only admitted
+ * requests are submitted to the executor, so its queue holds at most {@code queueCapacity} of them, plus the tasks of
+ * timed-out requests that were released before their task was {@link #purge() purged} or dequeued. The queue is
+ * bounded by the whole capacity to leave room for those.
+ */
+public final class Bulkhead {
+
+  private final String name;
+  private final int capacity;
+  private final Duration timeout;
+  private final ThreadPoolExecutor executor;
+  private final AsyncTaskExecutor taskExecutor;
+  private final AtomicInteger admitted = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  Bulkhead(String name, int threads, int queueCapacity, Duration timeout) {
+    this.name = name;
+    this.capacity = threads + queueCapacity;
+    this.timeout = timeout;
+    this.executor = new ThreadPoolExecutor(
+      threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(capacity),
+      new CustomizableThreadFactory("bulkhead-" + name + "-")
+    );
+    this.executor.allowCoreThreadTimeOut(true);
+    this.taskExecutor = new TaskExecutorAdapter(executor);
+  }
+
+  /**
+   * @return {@code false} if the bulkhead is full, otherwise the request must {@link #release()} once it completed
+   */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = admitted.get();
+      if (current >= capacity) {
+        rejected.increment();
+        return false;
+      }
+    } while (!admitted.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  public void release() {
+    admitted.decrementAndGet();
+  }
+
+  /**
+   * Removes cancelled tasks, e.g. of timed-out requests, from the queue.
+   */
+  public void purge() {
+    executor.purge();
+  }
+
+  /**
+   * @return e.g. {@code api-v1}
+   */
+  public String getName() {
+    return name;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public AsyncTaskExecutor getExecutor() {
+    return taskExecutor;
+  }
+
+  /**
+   * @return admitted requests, running, queued or served on their own thread
+   */
+  public int getAdmitted() {
+    return admitted.get();
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveThreads() {
+    return executor.getActiveCount();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+}
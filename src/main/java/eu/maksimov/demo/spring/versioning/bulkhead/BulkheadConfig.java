@@ -0,0 +1,41 @@
+package eu.maksimov.demo.spring.versioning.bulkhead;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Bounded pools per scope and version of the serving handler, enabled by {@code versioning.bulkhead.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "versioning.bulkhead.enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private ObjectProvider<RouteRegistry> routeRegistry;
+
+  @Autowired
+  private BulkheadProperties bulkheadProperties;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Bean
+  public Bulkheads bulkheads() {
+    return new Bulkheads(bulkheadProperties, meterRegistry);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new BulkheadInterceptor(routeRegistry, bulkheads(), bulkheadProperties));
+  }
+
+}
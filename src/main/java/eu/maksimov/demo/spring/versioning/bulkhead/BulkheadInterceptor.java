@@ -0,0 +1,86 @@
+package eu.maksimov.demo.spring.versioning.bulkhead;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Admits the requests of every versioned route to the {@link Bulkhead} of its scope and version and answers
+ * {@code 503} with {@code Retry-After} if it is full. The handler is then invoked on the bulkhead's threads, see
+ * {@link eu.maksimov.demo.spring.versioning.web.BulkheadInvocableHandlerMethod}.
+ * <p>
+ * The admission is held until the request completes, across the dispatches of asynchronous requests. Rejected
+ * requests are marked with {@link Bulkheads#REJECTED_ATTRIBUTE}.
+ */
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+  private final ObjectProvider<RouteRegistry> routeRegistryProvider;
+  private final Bulkheads bulkheads;
+  private final String retryAfter;
+  private volatile RouteRegistry routeRegistry;
+
+  /**
+   * @param routeRegistryProvider resolved lazily, the registry depends on the handler mapping this interceptor is
+   *                              registered with
+   */
+  public BulkheadInterceptor(ObjectProvider<RouteRegistry> routeRegistryProvider, Bulkheads bulkheads,
+                             BulkheadProperties properties) {
+    this.routeRegistryProvider = routeRegistryProvider;
+    this.bulkheads = bulkheads;
+    this.retryAfter = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    throws IOException {
+    if (!(handler instanceof HandlerMethod) || bulkheads.getBulkhead(request) != null) {
+      return true;
+    }
+    var pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern == null) {
+      return true;
+    }
+    var route = getRouteRegistry().getSnapshot().getRoute((HandlerMethod) handler, pattern).orElse(null);
+    if (route == null) {
+      return true;
+    }
+
+    var bulkhead = bulkheads.getBulkhead(route);
+    if (!bulkhead.tryAcquire()) {
+      request.setAttribute(Bulkheads.REJECTED_ATTRIBUTE, bulkhead);
+      response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Bulkhead " + bulkhead.getName() + " is full");
+      return false;
+    }
+    request.setAttribute(Bulkheads.ATTRIBUTE, bulkhead);
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                              Exception ex) {
+    var bulkhead = bulkheads.getBulkhead(request);
+    if (bulkhead != null) {
+      request.removeAttribute(Bulkheads.ATTRIBUTE);
+      bulkhead.release();
+    }
+  }
+
+  private RouteRegistry getRouteRegistry() {
+    var registry = routeRegistry;
+    if (registry == null) {
+      registry = routeRegistryProvider.getObject();
+      routeRegistry = registry;
+    }
+    return registry;
+  }
+
+}
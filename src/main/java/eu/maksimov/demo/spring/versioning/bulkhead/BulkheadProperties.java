@@ -0,0 +1,131 @@
+package eu.maksimov.demo.spring.versioning.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties("versioning.bulkhead")
+public class BulkheadProperties {
+
+  /**
+   * Run the handlers of every scope and version on their own bounded pool instead of the container's threads.
+   */
+  private boolean enabled;
+  /**
+   * Threads per bulkhead, unless configured in {@link #versions}.
+   */
+  private int threads = 10;
+  /**
+   * Requests per bulkhead waiting for a thread, unless configured in {@link #versions}. Further requests are
+   * rejected.
+   */
+  private int queueCapacity = 50;
+  /**
+   * Time a request may wait and run in its bulkhead before it is answered with {@code 503}.
+   */
+  private Duration timeout = Duration.ofSeconds(30);
+  /**
+   * {@code Retry-After} of rejected requests.
+   */
+  private Duration retryAfter = Duration.ofSeconds(1);
+  /**
+   * Sizes of individual bulkheads by {@code <scope>-v<version>} of the serving handler, e.g. {@code api-v1}.
+   */
+  private Map<String, Pool> versions = new LinkedHashMap<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter(Duration retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+  public Map<String, Pool> getVersions() {
+    return versions;
+  }
+
+  public void setVersions(Map<String, Pool> versions) {
+    this.versions = versions;
+  }
+
+  /**
+   * @return threads of the bulkhead
+   */
+  public int getThreads(String bulkhead) {
+    var pool = versions.get(bulkhead);
+    return pool != null && pool.getThreads() > 0 ? pool.getThreads() : threads;
+  }
+
+  /**
+   * @return queue capacity of the bulkhead
+   */
+  public int getQueueCapacity(String bulkhead) {
+    var pool = versions.get(bulkhead);
+    return pool != null && pool.getQueueCapacity() >= 0 ? pool.getQueueCapacity() : queueCapacity;
+  }
+
+  public static class Pool {
+
+    /**
+     * Defaults to {@code versioning.bulkhead.threads}.
+     */
+    private int threads;
+    /**
+     * Defaults to {@code versioning.bulkhead.queue-capacity}.
+     */
+    private int queueCapacity = -1;
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+  }
+
+}
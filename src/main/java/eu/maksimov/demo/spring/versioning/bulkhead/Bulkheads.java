@@ -0,0 +1,81 @@
+package eu.maksimov.demo.spring.versioning.bulkhead;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link Bulkhead}s by scope and version of the serving handler, created on first use and exposed as
+ * {@code versioning.bulkhead.*} meters tagged with the {@code bulkhead}, e.g. {@code api-v1}.
+ * <p>
+ * Requests to {@code /api/v1/session}, {@code /api/v2/session} and {@code /api/latest/session} all share the
+ * {@code api-v1} bulkhead as long as they are served by {@code SessionV1Controller}.
+ */
+public class Bulkheads implements DisposableBean {
+
+  static final String ATTRIBUTE = Bulkheads.class.getName() + ".bulkhead";
+  /**
+   * Holds the {@link Bulkhead} that answered the request with {@code 503}, because it was full or the request timed
+   * out in it, rather than the handler.
+   */
+  public static final String REJECTED_ATTRIBUTE = Bulkheads.class.getName() + ".rejected";
+
+  private final BulkheadProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+  public Bulkheads(BulkheadProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Bulkhead getBulkhead(Route route) {
+    var name = route.getScope() + "-" + route.getVersionName();
+    var bulkhead = bulkheads.get(name);
+    return bulkhead != null ? bulkhead : bulkheads.computeIfAbsent(name, this::create);
+  }
+
+  /**
+   * @return bulkhead the request was admitted to, {@code null} if it is not served by one
+   */
+  @Nullable
+  public Bulkhead getBulkhead(HttpServletRequest request) {
+    return (Bulkhead) request.getAttribute(ATTRIBUTE);
+  }
+
+  private Bulkhead create(String name) {
+    var bulkhead = new Bulkhead(
+      name, Math.max(1, properties.getThreads(name)), Math.max(0, properties.getQueueCapacity(name)),
+      properties.getTimeout()
+    );
+    Gauge.builder("versioning.bulkhead.queue-depth", bulkhead, Bulkhead::getQueueDepth)
+      .description("Admitted requests waiting for a thread of the bulkhead")
+      .tag("bulkhead", name)
+      .register(meterRegistry);
+    Gauge.builder("versioning.bulkhead.active", bulkhead, Bulkhead::getActiveThreads)
+      .description("Threads of the bulkhead running a handler")
+      .tag("bulkhead", name)
+      .register(meterRegistry);
+    Gauge.builder("versioning.bulkhead.admitted", bulkhead, Bulkhead::getAdmitted)
+      .tag("bulkhead", name)
+      .register(meterRegistry);
+    FunctionCounter.builder("versioning.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+      .description("Requests rejected with 503 because the bulkhead was full")
+      .tag("bulkhead", name)
+      .register(meterRegistry);
+    return bulkhead;
+  }
+
+  @Override
+  public void destroy() {
+    bulkheads.values().forEach(Bulkhead::shutdown);
+  }
+
+}
@@ -0,0 +1,17 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Resource version stamps, shared by conditional {@code GET} and {@link PrebuiltResponse prebuilt responses}.
+ */
+@Configuration
+public class CachingConfig {
+
+  @Bean
+  public ResourceVersions resourceVersions() {
+    return new ResourceVersions();
+  }
+
+}
@@ -0,0 +1,29 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Conditional {@code GET} for versioned single-resource endpoints, enabled by {@code versioning.etag.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "versioning.etag.enabled", havingValue = "true")
+public class ConditionalGetConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private ObjectProvider<RouteRegistry> routeRegistry;
+
+  @Autowired
+  private ResourceVersions resourceVersions;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new ConditionalGetInterceptor(routeRegistry, resourceVersions));
+  }
+
+}
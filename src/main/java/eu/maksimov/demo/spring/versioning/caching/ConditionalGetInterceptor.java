@@ -0,0 +1,102 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sets {@code ETag} and {@code Last-Modified} on versioned {@code GET} requests of single resources and answers
+ * {@code 304 Not Modified} before the handler runs when the client's validators are still current.
+ * <p>
+ * The validator is built from the version of the handler that actually serves the request and the
+ * {@link ResourceVersions} stamp of the resource, e.g. {@code /api/v1/session/1} and {@code /api/v2/session/1} are both
+ * served by {@code SessionV1Controller} and share {@code W/"v1-<epoch>-<generation>"}. It is weak because the same
+ * resource can be rendered in several media types.
+ * <p>
+ * Only routes with URI variables in their endpoint (e.g. {@code /person/{id}}) are covered: collection and query
+ * endpoints such as {@code /person?ids=1,2} are not versioned by a single resource stamp. Unknown ids, which the
+ * handler answers with {@code 404}, get neither validators nor a {@code 304}, see {@link ResourceVersions#exists}.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+  private final ObjectProvider<RouteRegistry> routeRegistryProvider;
+  private final ResourceVersions resourceVersions;
+  private volatile RouteRegistry routeRegistry;
+
+  /**
+   * @param routeRegistryProvider resolved lazily, the registry depends on the handler mapping this interceptor is
+   *                              registered with
+   */
+  public ConditionalGetInterceptor(ObjectProvider<RouteRegistry> routeRegistryProvider,
+                                   ResourceVersions resourceVersions) {
+    this.routeRegistryProvider = routeRegistryProvider;
+    this.resourceVersions = resourceVersions;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // validated before the handler ran, not again when its asynchronous result is dispatched
+    if (!(handler instanceof HandlerMethod) || !isGetOrHead(request)
+      || request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+    var pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    var lookupPath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+    if (pattern == null || lookupPath == null) {
+      return true;
+    }
+    var route = getRouteRegistry().getSnapshot().getRoute((HandlerMethod) handler, pattern).orElse(null);
+    if (route == null || !isSingleResource(route)) {
+      return true;
+    }
+    var resource = getResource(lookupPath);
+    if (resource == null || !resourceVersions.exists(resource)) {
+      return true;
+    }
+
+    var stamp = resourceVersions.get(resource);
+    var eTag = getETag(route.getVersion(), resourceVersions.getEpoch(), stamp);
+    // sets the validators on the response in both cases
+    return !new ServletWebRequest(request, response).checkNotModified(eTag, stamp.getLastModified());
+  }
+
+  static String getETag(int handlerVersion, long epoch, ResourceVersions.Stamp stamp) {
+    return "W/\"v" + handlerVersion + '-' + Long.toHexString(epoch) + '-' + stamp.getGeneration() + '"';
+  }
+
+  /**
+   * @param lookupPath e.g. {@code /api/latest/session/1}
+   * @return path without scope and version, e.g. {@code /session/1}, {@code null} if there is no such path
+   */
+  static String getResource(String lookupPath) {
+    var scopeEnd = lookupPath.indexOf('/', 1);
+    var versionEnd = scopeEnd < 0 ? -1 : lookupPath.indexOf('/', scopeEnd + 1);
+    return versionEnd < 0 || versionEnd == lookupPath.length() - 1 ? null : lookupPath.substring(versionEnd);
+  }
+
+  private static boolean isSingleResource(Route route) {
+    return route.isGet() && route.getEndpoint().indexOf('{') >= 0;
+  }
+
+  private static boolean isGetOrHead(HttpServletRequest request) {
+    return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+  }
+
+  private RouteRegistry getRouteRegistry() {
+    var registry = routeRegistry;
+    if (registry == null) {
+      registry = routeRegistryProvider.getObject();
+      routeRegistry = registry;
+    }
+    return registry;
+  }
+
+}
@@ -0,0 +1,29 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code GET} handler method whose response body only depends on the {@code Accept} header and the given
+ * {@link ResourceVersions resources}: the body is encoded once and the bytes are written as they are to subsequent
+ * requests, skipping the handler, content negotiation and message conversion, until one of the resources is
+ * {@linkplain ResourceVersions#touch(String) touched}.
+ * <p>
+ * Only the status {@code 200}, content type and body are kept, so the handler must not set other response headers.
+ * Handlers with asynchronous return values are not supported. Every body is held on the heap, once per content type,
+ * so handlers streaming a whole store (e.g. {@code getAll}) must not be marked.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PrebuiltResponse {
+
+  /**
+   * @return resources the body is built from, e.g. {@code /person}, none for a constant body
+   */
+  String[] resources() default {};
+
+}
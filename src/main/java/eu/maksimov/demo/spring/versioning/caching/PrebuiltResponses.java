@@ -0,0 +1,186 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encoded bodies of the {@link PrebuiltResponse} handler methods, one per negotiated content type.
+ * <p>
+ * Which content type an {@code Accept} header value is answered with is learned from the first build for that value,
+ * so header values that differ in their spelling only (order, quality values, wildcards) share a body. The learned
+ * values are bounded; when a handler has seen too many of them, they are forgotten and learned again.
+ * <p>
+ * A body is stamped with the generation of its resources taken before the handler ran, so a change made while it was
+ * being built invalidates it right away.
+ */
+public class PrebuiltResponses {
+
+  /**
+   * Bodies kept per handler method, bodies of further content types are built on every request.
+   */
+  static final int MAX_VARIANTS = 8;
+  /**
+   * {@code Accept} header values whose content type is kept per handler method.
+   */
+  static final int MAX_ACCEPT_VALUES = 64;
+
+  private static final List<Class<?>> ASYNC_RETURN_TYPES = List.of(
+    Callable.class, CompletionStage.class, DeferredResult.class, WebAsyncTask.class, ResponseBodyEmitter.class,
+    StreamingResponseBody.class
+  );
+  private static final Handler NONE = new Handler(new String[0]);
+
+  private final ResourceVersions resourceVersions;
+  private final ConcurrentMap<Method, Handler> handlers = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder builds = new LongAdder();
+
+  public PrebuiltResponses(ResourceVersions resourceVersions) {
+    this.resourceVersions = resourceVersions;
+  }
+
+  /**
+   * @return {@code null} if the handler method is not a {@link PrebuiltResponse}
+   */
+  @Nullable
+  public Handler getHandler(HandlerMethod handlerMethod) {
+    var handler = handlers.get(handlerMethod.getMethod());
+    if (handler == null) {
+      handler = handlers.computeIfAbsent(handlerMethod.getMethod(), method -> create(handlerMethod));
+    }
+    return handler != NONE ? handler : null;
+  }
+
+  private static Handler create(HandlerMethod handlerMethod) {
+    var annotation = handlerMethod.getMethodAnnotation(PrebuiltResponse.class);
+    if (annotation == null) {
+      return NONE;
+    }
+    var returnType = handlerMethod.getReturnType().getParameterType();
+    for (var asyncType : ASYNC_RETURN_TYPES) {
+      Assert.state(!asyncType.isAssignableFrom(returnType),
+        () -> "@PrebuiltResponse handler " + handlerMethod + " must not be asynchronous");
+    }
+    return new Handler(annotation.resources());
+  }
+
+  /**
+   * @return current generation of the handler's resources, to be passed to {@link #put}
+   */
+  public long getGeneration(Handler handler) {
+    long generation = 0;
+    for (var resource : handler.resources) {
+      generation += resourceVersions.get(resource).getGeneration();
+    }
+    return generation;
+  }
+
+  /**
+   * @return {@code true} if a current body was written to the response
+   */
+  public boolean write(Handler handler, HttpServletRequest request, HttpServletResponse response)
+    throws IOException {
+    var variant = handler.variants.get(getAccept(request));
+    var body = variant != null ? handler.bodies.get(variant) : null;
+    if (body == null || body.generation != getGeneration(handler)) {
+      return false;
+    }
+    if (body.contentType != null) {
+      response.setContentType(body.contentType);
+    }
+    response.setContentLength(body.bytes.length);
+    response.getOutputStream().write(body.bytes);
+    hits.increment();
+    return true;
+  }
+
+  /**
+   * @param generation {@link #getGeneration(Handler)} before the handler was invoked
+   */
+  public void put(Handler handler, HttpServletRequest request, long generation, @Nullable String contentType,
+                  byte[] bytes) {
+    var variant = contentType != null ? contentType : "";
+    if (handler.bodies.size() < MAX_VARIANTS || handler.bodies.containsKey(variant)) {
+      // a slower build of an older generation must not replace a newer body
+      handler.bodies.merge(
+        variant, new Body(generation, contentType, bytes), (old, body) -> body.generation >= old.generation ? body : old
+      );
+      var accept = getAccept(request);
+      if (handler.variants.size() >= MAX_ACCEPT_VALUES && !handler.variants.containsKey(accept)) {
+        handler.variants.clear();
+      }
+      handler.variants.put(accept, variant);
+    }
+    builds.increment();
+  }
+
+  private static String getAccept(HttpServletRequest request) {
+    var accept = request.getHeader(HttpHeaders.ACCEPT);
+    return accept != null ? accept : "";
+  }
+
+  /**
+   * @return number of requests served with a prebuilt body
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of bodies built by invoking the handler
+   */
+  public long getBuilds() {
+    return builds.sum();
+  }
+
+  public static final class Handler {
+
+    private final String[] resources;
+    /**
+     * Bodies by content type, {@code ""} if the handler set none.
+     */
+    private final ConcurrentMap<String, Body> bodies = new ConcurrentHashMap<>();
+    /**
+     * Content type of {@link #bodies} by {@code Accept} header value.
+     */
+    private final ConcurrentMap<String, String> variants = new ConcurrentHashMap<>();
+
+    private Handler(String[] resources) {
+      this.resources = resources;
+    }
+
+  }
+
+  private static final class Body {
+
+    private final long generation;
+    @Nullable
+    private final String contentType;
+    private final byte[] bytes;
+
+    private Body(long generation, @Nullable String contentType, byte[] bytes) {
+      this.generation = generation;
+      this.contentType = contentType;
+      this.bytes = bytes;
+    }
+
+  }
+
+}
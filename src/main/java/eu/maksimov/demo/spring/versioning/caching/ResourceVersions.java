@@ -0,0 +1,88 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * Cheap per-resource version stamps used as validators instead of hashing rendered bodies.
+ * <p>
+ * Resources are identified by their path without scope and version, e.g. {@code /session/1}. A resource that was
+ * never {@link #touch(String) touched} shares the initial stamp, so only changed resources take up memory. The epoch
+ * (startup time) is part of every validator, so stamps issued before a restart never match.
+ * <p>
+ * Stamps exist for any path, the repositories confirm whether a resource exists with {@link #exists(String)}.
+ */
+public class ResourceVersions {
+
+  private final long epoch;
+  private final Stamp initial;
+  private final ConcurrentMap<String, Stamp> stamps = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Predicate<String>> lookups = new ConcurrentHashMap<>();
+
+  public ResourceVersions() {
+    this(System.currentTimeMillis());
+  }
+
+  ResourceVersions(long epoch) {
+    this.epoch = epoch;
+    this.initial = new Stamp(0, epoch);
+  }
+
+  public long getEpoch() {
+    return epoch;
+  }
+
+  public Stamp get(String resource) {
+    return stamps.getOrDefault(resource, initial);
+  }
+
+  /**
+   * Marks the resource as changed, invalidating validators handed out for it.
+   */
+  public Stamp touch(String resource) {
+    var now = Math.max(System.currentTimeMillis(), epoch);
+    return stamps.compute(resource, (key, stamp) -> new Stamp(stamp == null ? 1 : stamp.generation + 1, now));
+  }
+
+  /**
+   * @param collection e.g. {@code /person}
+   * @param exists     tests the id of a resource of the collection, e.g. {@code 1} of {@code /person/1}
+   */
+  public void addLookup(String collection, Predicate<String> exists) {
+    lookups.put(collection, exists);
+  }
+
+  /**
+   * @return {@code false} for unknown ids and resources of collections without a lookup
+   */
+  public boolean exists(String resource) {
+    var idStart = resource.lastIndexOf('/');
+    var lookup = idStart > 0 ? lookups.get(resource.substring(0, idStart)) : null;
+    return lookup != null && lookup.test(resource.substring(idStart + 1));
+  }
+
+  public static final class Stamp {
+
+    private final long generation;
+    private final long lastModified;
+
+    Stamp(long generation, long lastModified) {
+      this.generation = generation;
+      this.lastModified = lastModified;
+    }
+
+    public long getGeneration() {
+      return generation;
+    }
+
+    /**
+     * @return epoch millis of the last change, startup time if never changed
+     */
+    public long getLastModified() {
+      return lastModified;
+    }
+
+  }
+
+}
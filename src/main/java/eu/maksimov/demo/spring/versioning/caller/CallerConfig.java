@@ -0,0 +1,29 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caller context of {@code /api} requests, enabled by {@code versioning.caller.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "versioning.caller.enabled", havingValue = "true")
+@EnableConfigurationProperties(CallerProperties.class)
+public class CallerConfig {
+
+  @Bean
+  public CallerContextCache callerContextCache(CallerProperties properties) {
+    return new CallerContextCache(new PropertiesCallerContextSource(properties.getSource()), properties);
+  }
+
+  @Bean
+  public FilterRegistrationBean<CallerContextFilter> callerContextFilter(CallerContextCache callerContextCache) {
+    var registration = new FilterRegistrationBean<>(new CallerContextFilter(callerContextCache));
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+
+}
@@ -0,0 +1,106 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.springframework.lang.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What an application identified by {@code X-Application-Id} may do: which versions it may request and how many
+ * requests per second it may send. Resolved once per application by the {@link CallerContextCache} and attached to
+ * each request by the {@link CallerContextFilter}, see {@link #get(HttpServletRequest)}.
+ */
+public final class CallerContext {
+
+  static final String ATTRIBUTE = CallerContext.class.getName();
+  static final String USER_ID_ATTRIBUTE = CallerContext.class.getName() + ".userId";
+
+  /**
+   * Bit {@code N} allows {@code vN}, bit {@code 0} ({@link Route#LATEST_VERSION}) allows {@code latest}.
+   */
+  static final long ALL_VERSIONS = -1L;
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final String applicationId;
+  private final long allowedVersions;
+  private final int requestsPerSecond;
+  /**
+   * Fixed one-second window: second since {@link System#nanoTime()} origin in the upper, requests in the lower half.
+   */
+  private final AtomicLong window = new AtomicLong();
+
+  /**
+   * @param allowedVersions   bit set of {@link Route#getRequestedVersion(String) requested versions}
+   * @param requestsPerSecond {@code 0} for unlimited
+   */
+  CallerContext(String applicationId, long allowedVersions, int requestsPerSecond) {
+    this.applicationId = applicationId;
+    this.allowedVersions = allowedVersions;
+    this.requestsPerSecond = requestsPerSecond;
+  }
+
+  /**
+   * @return context attached by the {@link CallerContextFilter}, {@code null} outside of {@code /api} requests
+   */
+  @Nullable
+  public static CallerContext get(HttpServletRequest request) {
+    return (CallerContext) request.getAttribute(ATTRIBUTE);
+  }
+
+  /**
+   * @return validated {@code X-User-Id} of the request, {@code null} outside of {@code /api} requests
+   */
+  @Nullable
+  public static String getUserId(HttpServletRequest request) {
+    return (String) request.getAttribute(USER_ID_ATTRIBUTE);
+  }
+
+  public String getApplicationId() {
+    return applicationId;
+  }
+
+  /**
+   * @param requestedVersion see {@link Route#getRequestedVersion(String)}
+   */
+  public boolean isVersionAllowed(int requestedVersion) {
+    return requestedVersion >= 0 && requestedVersion < Long.SIZE
+      ? (allowedVersions & (1L << requestedVersion)) != 0
+      : allowedVersions == ALL_VERSIONS;
+  }
+
+  public int getRequestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  /**
+   * Counts a request against the limit of the current second. Called by the {@link CallerContextFilter} for every
+   * request and by the batch executor for every further entry of a batch.
+   *
+   * @param nanoTime {@link System#nanoTime()}
+   * @return {@code false} if the limit is exhausted
+   */
+  public boolean tryAcquire(long nanoTime) {
+    if (requestsPerSecond == 0) {
+      return true;
+    }
+    var second = nanoTime / NANOS_PER_SECOND;
+    while (true) {
+      var current = window.get();
+      var count = current >>> 32 == (second & 0xFFFF_FFFFL) ? current & 0xFFFF_FFFFL : 0;
+      if (count >= requestsPerSecond) {
+        return false;
+      }
+      if (window.compareAndSet(current, (second << 32) | (count + 1))) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return applicationId;
+  }
+
+}
@@ -0,0 +1,160 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Bounded cache of {@link CallerContext}s by application id with refresh-ahead: a hit older than
+ * {@code refresh-after} is reloaded on a background thread while the current context is still answered, so only the
+ * first request of an application and requests after {@code expire-after} of inactivity wait for the source.
+ * <p>
+ * Unknown applications are cached as well, so that invalid ids do not reach the source on every request. A hit
+ * allocates nothing: it is a map lookup and a clock read. When the cache is full, the entry loaded longest ago out of
+ * the first few in iteration order is evicted, entries of active applications are kept young by their refreshes.
+ */
+public class CallerContextCache implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CallerContextCache.class);
+
+  private static final int EVICTION_SAMPLE_SIZE = 8;
+  private static final int REFRESH_QUEUE_CAPACITY = 1024;
+
+  private final CallerContextSource source;
+  private final int maximumSize;
+  private final long refreshAfterNanos;
+  private final long expireAfterNanos;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor refreshExecutor;
+
+  public CallerContextCache(CallerContextSource source, CallerProperties properties) {
+    this.source = source;
+    this.maximumSize = properties.getMaximumSize();
+    this.refreshAfterNanos = properties.getRefreshAfter().toNanos();
+    this.expireAfterNanos = properties.getExpireAfter().toNanos();
+    this.refreshExecutor = new ThreadPoolExecutor(
+      1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+      new CustomizableThreadFactory("caller-refresh-")
+    );
+    this.refreshExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * @return {@code null} if the application is not known
+   * @throws UncheckedIOException if the source cannot be read on a miss
+   */
+  @Nullable
+  public CallerContext get(String applicationId) {
+    var entry = entries.get(applicationId);
+    var now = System.nanoTime();
+    if (entry == null || now - entry.loadedAt >= expireAfterNanos) {
+      return load(applicationId);
+    }
+    if (now - entry.loadedAt >= refreshAfterNanos && entry.startRefresh()) {
+      refreshAsync(applicationId, entry);
+    }
+    return entry.context;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  @Nullable
+  private CallerContext load(String applicationId) {
+    if (!entries.containsKey(applicationId)) {
+      evictIfFull();
+    }
+    // concurrent misses of the same application wait for one load
+    return entries.compute(applicationId, (id, current) -> {
+      var now = System.nanoTime();
+      return current != null && now - current.loadedAt < expireAfterNanos ? current : new Entry(loadContext(id), now);
+    }).context;
+  }
+
+  private void refreshAsync(String applicationId, Entry entry) {
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          // not put back if evicted or reloaded meanwhile
+          entries.replace(applicationId, entry, new Entry(loadContext(applicationId), System.nanoTime()));
+        } catch (RuntimeException e) {
+          // the current context is answered until it expires
+          LOG.warn("Refreshing caller context of {} failed", applicationId, e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      entry.refreshing = 0;
+    }
+  }
+
+  @Nullable
+  private CallerContext loadContext(String applicationId) {
+    try {
+      return source.load(applicationId);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Loading caller context of " + applicationId + " failed", e);
+    }
+  }
+
+  private void evictIfFull() {
+    if (entries.size() < maximumSize) {
+      return;
+    }
+    String oldestId = null;
+    var oldestLoadedAt = 0L;
+    var iterator = entries.entrySet().iterator();
+    for (int sampled = 0; iterator.hasNext() && sampled < EVICTION_SAMPLE_SIZE; sampled++) {
+      var candidate = iterator.next();
+      if (oldestId == null || candidate.getValue().loadedAt - oldestLoadedAt < 0) {
+        oldestId = candidate.getKey();
+        oldestLoadedAt = candidate.getValue().loadedAt;
+      }
+    }
+    if (oldestId != null) {
+      entries.remove(oldestId);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    refreshExecutor.shutdownNow();
+  }
+
+  private static final class Entry {
+
+    private static final AtomicIntegerFieldUpdater<Entry> REFRESHING =
+      AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+    @Nullable
+    private final CallerContext context;
+    private final long loadedAt;
+    private volatile int refreshing;
+
+    private Entry(@Nullable CallerContext context, long loadedAt) {
+      this.context = context;
+      this.loadedAt = loadedAt;
+    }
+
+    /**
+     * @return {@code true} for the first caller only
+     */
+    private boolean startRefresh() {
+      return refreshing == 0 && REFRESHING.compareAndSet(this, 0, 1);
+    }
+
+  }
+
+}
@@ -0,0 +1,99 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import eu.maksimov.demo.spring.versioning.warmup.WarmUpFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Enforces the {@code X-Application-Id} and {@code X-User-Id} headers documented as required in the OpenAPI, resolves
+ * the application to its {@link CallerContext} and attaches both to the request:
+ * <ul>
+ *   <li>{@code 400} if a header is missing or malformed,</li>
+ *   <li>{@code 403} if the application is unknown or may not request the version of the path,</li>
+ *   <li>{@code 429} with {@code Retry-After} if the application exceeded its requests per second.</li>
+ * </ul>
+ * A batch request is counted once here, its further entries are counted as they are dispatched. Warm-up requests,
+ * recognized by the {@link WarmUpFilter} in front of this one, pass without a context.
+ * Valid requests of cached applications are checked without allocating.
+ */
+public class CallerContextFilter extends OncePerRequestFilter {
+
+  static final String APPLICATION_ID_HEADER = "X-Application-Id";
+  static final String USER_ID_HEADER = "X-User-Id";
+  static final int MAX_APPLICATION_ID_LENGTH = 64;
+  static final int MAX_USER_ID_LENGTH = 128;
+
+  private final CallerContextCache cache;
+
+  public CallerContextFilter(CallerContextCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+    throws ServletException, IOException {
+    if (WarmUpFilter.isWarmUp(request)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    var applicationId = request.getHeader(APPLICATION_ID_HEADER);
+    if (!isValidId(applicationId, MAX_APPLICATION_ID_LENGTH)) {
+      response.sendError(HttpStatus.BAD_REQUEST.value(), "Missing or invalid " + APPLICATION_ID_HEADER + " header");
+      return;
+    }
+    var userId = request.getHeader(USER_ID_HEADER);
+    if (!isValidId(userId, MAX_USER_ID_LENGTH)) {
+      response.sendError(HttpStatus.BAD_REQUEST.value(), "Missing or invalid " + USER_ID_HEADER + " header");
+      return;
+    }
+
+    var context = cache.get(applicationId);
+    if (context == null) {
+      response.sendError(HttpStatus.FORBIDDEN.value(), "Unknown application " + applicationId);
+      return;
+    }
+    if (!context.isVersionAllowed(Route.getRequestedVersion(request.getServletPath()))) {
+      response.sendError(HttpStatus.FORBIDDEN.value(),
+        "Application " + applicationId + " may not request version of " + request.getServletPath());
+      return;
+    }
+    if (!context.tryAcquire(System.nanoTime())) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(),
+        "Application " + applicationId + " exceeded " + context.getRequestsPerSecond() + " requests per second");
+      return;
+    }
+
+    request.setAttribute(CallerContext.ATTRIBUTE, context);
+    request.setAttribute(CallerContext.USER_ID_ATTRIBUTE, userId);
+    filterChain.doFilter(request, response);
+  }
+
+  /**
+   * @return {@code true} for non-empty ids of letters, digits and {@code -_.@+}
+   */
+  static boolean isValidId(@Nullable String id, int maxLength) {
+    if (id == null || id.isEmpty() || id.length() > maxLength) {
+      return false;
+    }
+    for (int i = 0; i < id.length(); i++) {
+      var c = id.charAt(i);
+      var valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+        || c == '-' || c == '_' || c == '.' || c == '@' || c == '+';
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,18 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Origin of the {@link CallerContext}s, consulted by the {@link CallerContextCache} on misses and refreshes only.
+ */
+public interface CallerContextSource {
+
+  /**
+   * @return {@code null} if the application is not known
+   */
+  @Nullable
+  CallerContext load(String applicationId) throws IOException;
+
+}
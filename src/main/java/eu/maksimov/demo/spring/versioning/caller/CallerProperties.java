@@ -0,0 +1,73 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.caller")
+public class CallerProperties {
+
+  /**
+   * Require valid {@code X-Application-Id} and {@code X-User-Id} headers of known applications on {@code /api}.
+   */
+  private boolean enabled;
+  /**
+   * Properties file of the known applications, see {@link PropertiesCallerContextSource}.
+   */
+  private Resource source = new ClassPathResource("callers.properties");
+  /**
+   * Upper bound of cached applications, unknown ones included.
+   */
+  private int maximumSize = 10_000;
+  /**
+   * Age after which a cache hit reloads the application in the background, still answering with the current context.
+   */
+  private Duration refreshAfter = Duration.ofMinutes(1);
+  /**
+   * Age after which the application is reloaded before answering.
+   */
+  private Duration expireAfter = Duration.ofMinutes(10);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Resource getSource() {
+    return source;
+  }
+
+  public void setSource(Resource source) {
+    this.source = source;
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  public void setMaximumSize(int maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  public Duration getRefreshAfter() {
+    return refreshAfter;
+  }
+
+  public void setRefreshAfter(Duration refreshAfter) {
+    this.refreshAfter = refreshAfter;
+  }
+
+  public Duration getExpireAfter() {
+    return expireAfter;
+  }
+
+  public void setExpireAfter(Duration expireAfter) {
+    this.expireAfter = expireAfter;
+  }
+
+}
@@ -0,0 +1,116 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Applications defined in a local properties file, re-read when it is modified, e.g.
+ * <pre>
+ * swagger-ui.versions=*
+ * partner-app.versions=v2,v3,latest
+ * partner-app.requests-per-second=100
+ * </pre>
+ * {@code versions} is required, {@code requests-per-second} defaults to {@code 0}, i.e. unlimited. The same context
+ * instance is returned until the file changes.
+ */
+public class PropertiesCallerContextSource implements CallerContextSource {
+
+  private static final String VERSIONS = ".versions";
+  private static final String REQUESTS_PER_SECOND = ".requests-per-second";
+
+  private final Resource resource;
+  private volatile Snapshot snapshot = new Snapshot(Long.MIN_VALUE, Map.of());
+
+  public PropertiesCallerContextSource(Resource resource) {
+    this.resource = resource;
+  }
+
+  @Nullable
+  @Override
+  public CallerContext load(String applicationId) throws IOException {
+    var current = snapshot;
+    var lastModified = resource.lastModified();
+    if (lastModified != current.lastModified) {
+      current = read(lastModified);
+    }
+    return current.contexts.get(applicationId);
+  }
+
+  private synchronized Snapshot read(long lastModified) throws IOException {
+    if (snapshot.lastModified == lastModified) {
+      return snapshot;
+    }
+    var properties = new Properties();
+    try (var in = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+      properties.load(in);
+    }
+    Map<String, CallerContext> contexts = new HashMap<>();
+    for (var key : properties.stringPropertyNames()) {
+      if (key.endsWith(VERSIONS)) {
+        var applicationId = key.substring(0, key.length() - VERSIONS.length());
+        var requestsPerSecond = properties.getProperty(applicationId + REQUESTS_PER_SECOND, "0").trim();
+        contexts.put(applicationId, new CallerContext(
+          applicationId, parseVersions(properties.getProperty(key), key),
+          parseRequestsPerSecond(requestsPerSecond, applicationId)
+        ));
+      }
+    }
+    snapshot = new Snapshot(lastModified, contexts);
+    return snapshot;
+  }
+
+  /**
+   * @return bit set as in {@link CallerContext}
+   */
+  static long parseVersions(String versions, String key) {
+    if ("*".equals(versions.trim())) {
+      return CallerContext.ALL_VERSIONS;
+    }
+    var allowedVersions = 0L;
+    for (var version : versions.split(",")) {
+      var requestedVersion = Route.getRequestedVersion("/scope/" + version.trim());
+      if (requestedVersion < 0 || requestedVersion >= Long.SIZE) {
+        throw new IllegalStateException(
+          "Invalid version '" + version.trim() + "' of " + key + ", expected latest or v1..v" + (Long.SIZE - 1)
+        );
+      }
+      allowedVersions |= 1L << requestedVersion;
+    }
+    return allowedVersions;
+  }
+
+  private static int parseRequestsPerSecond(String requestsPerSecond, String applicationId) {
+    try {
+      var limit = Integer.parseInt(requestsPerSecond);
+      if (limit >= 0) {
+        return limit;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalStateException(
+      "Invalid " + applicationId + REQUESTS_PER_SECOND + " '" + requestsPerSecond + "', expected a number >= 0"
+    );
+  }
+
+  private static final class Snapshot {
+
+    private final long lastModified;
+    private final Map<String, CallerContext> contexts;
+
+    private Snapshot(long lastModified, Map<String, CallerContext> contexts) {
+      this.lastModified = lastModified;
+      this.contexts = contexts;
+    }
+
+  }
+
+}
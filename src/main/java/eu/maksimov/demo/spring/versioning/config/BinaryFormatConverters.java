@@ -0,0 +1,47 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Compact binary alternatives to JSON/text, produced by Jackson from the same response model.
+ * <p>
+ * The converters write a response only if the client explicitly accepts their media type. They are not offered as
+ * producible types, so requests accepting {@code *}{@code /*} keep on getting the default representation.
+ */
+public final class BinaryFormatConverters {
+
+  public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+  public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+  private BinaryFormatConverters() {
+  }
+
+  public static List<MediaType> mediaTypes() {
+    return List.of(CBOR, SMILE);
+  }
+
+  public static List<HttpMessageConverter<?>> create() {
+    return List.of(
+      new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build()) {
+        @Override
+        public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+          return mediaType != null && super.canWrite(clazz, mediaType);
+        }
+      },
+      new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile().build()) {
+        @Override
+        public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+          return mediaType != null && super.canWrite(clazz, mediaType);
+        }
+      }
+    );
+  }
+
+}
@@ -0,0 +1,76 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Applies {@link ConnectorProperties} to the embedded Tomcat connector.
+ * <p>
+ * See {@code application-performance.properties} for the profile used for many-small-request workloads.
+ */
+@Configuration
+@EnableConfigurationProperties(ConnectorProperties.class)
+public class ConnectorConfig {
+
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> connectorCustomizer(ConnectorProperties properties) {
+    return factory -> factory.addConnectorCustomizers(connector -> {
+      customizeHttp11(connector, properties);
+      if (properties.isH2c()) {
+        customizeHttp2(connector, properties);
+      }
+    });
+  }
+
+  private void customizeHttp11(Connector connector, ConnectorProperties properties) {
+    if (!(connector.getProtocolHandler() instanceof AbstractHttp11Protocol)) {
+      return;
+    }
+    var protocol = (AbstractHttp11Protocol<?>) connector.getProtocolHandler();
+    setIfPresent(properties.getAcceptorThreads(), protocol::setAcceptorThreadCount);
+    setIfPresent(properties.getMaxThreads(), protocol::setMaxThreads);
+    setIfPresent(properties.getMinSpareThreads(), protocol::setMinSpareThreads);
+    setIfPresent(properties.getMaxConnections(), protocol::setMaxConnections);
+    setIfPresent(properties.getAcceptCount(), protocol::setAcceptCount);
+    setIfPresent(properties.getMaxKeepAliveRequests(), protocol::setMaxKeepAliveRequests);
+    if (properties.getKeepAliveTimeout() != null) {
+      protocol.setKeepAliveTimeout((int) properties.getKeepAliveTimeout().toMillis());
+    }
+  }
+
+  private void customizeHttp2(Connector connector, ConnectorProperties properties) {
+    // server.http2.enabled may already have registered one
+    var http2 = Arrays.stream(connector.findUpgradeProtocols())
+      .filter(Http2Protocol.class::isInstance)
+      .map(Http2Protocol.class::cast)
+      .findFirst()
+      .orElseGet(() -> {
+        var protocol = new Http2Protocol();
+        connector.addUpgradeProtocol(protocol);
+        return protocol;
+      });
+
+    setIfPresent(properties.getHttp2MaxConcurrentStreams(), http2::setMaxConcurrentStreams);
+    setIfPresent(properties.getHttp2MaxConcurrentStreamExecution(), http2::setMaxConcurrentStreamExecution);
+    if (properties.getHttp2KeepAliveTimeout() != null) {
+      http2.setKeepAliveTimeout(properties.getHttp2KeepAliveTimeout().toMillis());
+    }
+  }
+
+  private static <T> void setIfPresent(T value, Consumer<T> setter) {
+    if (value != null) {
+      setter.accept(value);
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tuning of the embedded Tomcat connector and its HTTP/2 upgrade protocol. Unset values keep Tomcat defaults.
+ */
+@ConfigurationProperties("versioning.connector")
+public class ConnectorProperties {
+
+  /**
+   * Enables cleartext HTTP/2 (h2c), via {@code Upgrade: h2c} or prior knowledge.
+   */
+  private boolean h2c;
+  private Integer acceptorThreads;
+  private Integer maxThreads;
+  private Integer minSpareThreads;
+  private Integer maxConnections;
+  private Integer acceptCount;
+  private Integer maxKeepAliveRequests;
+  private Duration keepAliveTimeout;
+  private Long http2MaxConcurrentStreams;
+  private Long http2MaxConcurrentStreamExecution;
+  private Duration http2KeepAliveTimeout;
+
+  public boolean isH2c() {
+    return h2c;
+  }
+
+  public void setH2c(boolean h2c) {
+    this.h2c = h2c;
+  }
+
+  public Integer getAcceptorThreads() {
+    return acceptorThreads;
+  }
+
+  public void setAcceptorThreads(Integer acceptorThreads) {
+    this.acceptorThreads = acceptorThreads;
+  }
+
+  public Integer getMaxThreads() {
+    return maxThreads;
+  }
+
+  public void setMaxThreads(Integer maxThreads) {
+    this.maxThreads = maxThreads;
+  }
+
+  public Integer getMinSpareThreads() {
+    return minSpareThreads;
+  }
+
+  public void setMinSpareThreads(Integer minSpareThreads) {
+    this.minSpareThreads = minSpareThreads;
+  }
+
+  public Integer getMaxConnections() {
+    return maxConnections;
+  }
+
+  public void setMaxConnections(Integer maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  public Integer getAcceptCount() {
+    return acceptCount;
+  }
+
+  public void setAcceptCount(Integer acceptCount) {
+    this.acceptCount = acceptCount;
+  }
+
+  public Integer getMaxKeepAliveRequests() {
+    return maxKeepAliveRequests;
+  }
+
+  public void setMaxKeepAliveRequests(Integer maxKeepAliveRequests) {
+    this.maxKeepAliveRequests = maxKeepAliveRequests;
+  }
+
+  public Duration getKeepAliveTimeout() {
+    return keepAliveTimeout;
+  }
+
+  public void setKeepAliveTimeout(Duration keepAliveTimeout) {
+    this.keepAliveTimeout = keepAliveTimeout;
+  }
+
+  public Long getHttp2MaxConcurrentStreams() {
+    return http2MaxConcurrentStreams;
+  }
+
+  public void setHttp2MaxConcurrentStreams(Long http2MaxConcurrentStreams) {
+    this.http2MaxConcurrentStreams = http2MaxConcurrentStreams;
+  }
+
+  public Long getHttp2MaxConcurrentStreamExecution() {
+    return http2MaxConcurrentStreamExecution;
+  }
+
+  public void setHttp2MaxConcurrentStreamExecution(Long http2MaxConcurrentStreamExecution) {
+    this.http2MaxConcurrentStreamExecution = http2MaxConcurrentStreamExecution;
+  }
+
+  public Duration getHttp2KeepAliveTimeout() {
+    return http2KeepAliveTimeout;
+  }
+
+  public void setHttp2KeepAliveTimeout(Duration http2KeepAliveTimeout) {
+    this.http2KeepAliveTimeout = http2KeepAliveTimeout;
+  }
+
+}
@@ -1,5 +1,7 @@
 package eu.maksimov.demo.spring.versioning.config;
 
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.ExternalDocumentation;
@@ -11,9 +13,14 @@ import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import org.springdoc.core.customizers.OperationCustomizer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.info.BuildProperties;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.web.bind.annotation.RequestMapping;
 
@@ -30,23 +37,28 @@ import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.joining;
 
 @Configuration
+@EnableConfigurationProperties(OpenApiPregenerationProperties.class)
 public class OpenApiConfig {
 
   @Autowired
   private ResourceLoader resourceLoader;
   @Autowired
   private BuildProperties buildInfo;
+  private volatile String description;
 
+  /**
+   * A new instance for every group: springdoc builds a group's document into this very instance, so a shared one
+   * would leak parts of one group into the next and change the parts {@link OpenApiInterner} shares between groups.
+   * Groups may also be built concurrently, see {@link OpenApiPregenerator}.
+   */
   @Bean
+  @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
   public OpenAPI applicationOpenApi() throws IOException {
     return new OpenAPI()
       .info(new Info()
         .title("Demo Spring API versioning application with Swagger")
         .version(buildInfo.getVersion())
-        .description(
-          getResourceContents("classpath:openapi/description")
-            + "<hr/><p>Buildtime (UTC): " + buildInfo.getTime() + "<p/><hr/>"
-        )
+        .description(getDescription())
       )
       .externalDocs(new ExternalDocumentation()
         .description("GitHub repository")
@@ -63,6 +75,16 @@ public class OpenApiConfig {
       );
   }
 
+  private String getDescription() throws IOException {
+    var result = description;
+    if (result == null) {
+      result = getResourceContents("classpath:openapi/description")
+        + "<hr/><p>Buildtime (UTC): " + buildInfo.getTime() + "<p/><hr/>";
+      description = result;
+    }
+    return result;
+  }
+
   private String getResourceContents(String location) throws IOException {
     var resource = resourceLoader.getResource(location);
     try (
@@ -91,4 +113,18 @@ public class OpenApiConfig {
     };
   }
 
+  @Bean
+  @ConditionalOnProperty(name = "versioning.openapi.pregeneration.enabled", havingValue = "true")
+  public OpenApiPregenerator openApiPregenerator(OpenApiPregenerationProperties properties,
+                                                 MeterRegistry meterRegistry) {
+    return new OpenApiPregenerator(properties, meterRegistry);
+  }
+
+  @Bean
+  public OpenApiGroupTracker openApiGroupTracker(ApplicationContext context, RouteRegistry routeRegistry) {
+    var tracker = new OpenApiGroupTracker(context);
+    routeRegistry.addListener(tracker);
+    return tracker;
+  }
+
 }
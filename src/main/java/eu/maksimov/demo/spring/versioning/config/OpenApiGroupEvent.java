@@ -0,0 +1,33 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of the registration of an OpenAPI group or the generation of its paths by {@link OpenApiGroupProcessor}.
+ */
+@Name("eu.maksimov.versioning.OpenApiGroup")
+@Label("OpenAPI Group")
+@Category({"Versioning", "OpenAPI"})
+@Description("Registration of an OpenAPI group or customization of its paths")
+@StackTrace(false)
+class OpenApiGroupEvent extends Event {
+
+  static final String REGISTRATION = "registration";
+  static final String PATHS_CUSTOMIZATION = "paths customization";
+
+  @Label("Group")
+  String group;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Path Count")
+  @Description("Paths in the group after customization, 0 for registration")
+  int pathCount;
+
+}
@@ -3,6 +3,9 @@ package eu.maksimov.demo.spring.versioning.config;
 import eu.maksimov.demo.spring.versioning.Application;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.responses.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -40,6 +43,7 @@ public class OpenApiGroupProcessor implements BeanDefinitionRegistryPostProcesso
 
   private static final Logger LOG = LoggerFactory.getLogger(OpenApiGroupProcessor.class);
   public static final Marker MARKER = MarkerFactory.getMarker("[OpenAPI]");
+  private static final OpenApiInterner INTERNER = new OpenApiInterner();
 
   @Override
   public int getOrder() {
@@ -98,21 +102,43 @@ public class OpenApiGroupProcessor implements BeanDefinitionRegistryPostProcesso
   }
 
   private void registerGroupedOpenApi(BeanDefinitionRegistry registry, String scope, String version) {
-    var groupName = scope + "-" + version;
+    var event = new OpenApiGroupEvent();
+    event.begin();
+    var groupName = getGroupName(scope, version);
     LOG.debug(MARKER, "Registering {} '{}'", GroupedOpenApi.class.getSimpleName(), groupName);
 
-    Supplier<GroupedOpenApi> groupedApiSupplier = () -> GroupedOpenApi.builder()
-      .setGroup(groupName)
-      .pathsToMatch("/" + scope + "/**")
-      .addOpenApiCustomiser(api -> customizePaths(api, version))
-      .build();
+    Supplier<GroupedOpenApi> groupedApiSupplier = () -> createGroupedOpenApi(scope, version);
 
     var bean = BeanDefinitionBuilder.genericBeanDefinition(GroupedOpenApi.class, groupedApiSupplier)
       .getBeanDefinition();
     registry.registerBeanDefinition(scope + "-" + version + "-groupedOpenApi", bean);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.group = groupName;
+      event.operation = OpenApiGroupEvent.REGISTRATION;
+      event.commit();
+    }
+  }
+
+  static String getGroupName(String scope, String version) {
+    return scope + "-" + version;
+  }
+
+  static GroupedOpenApi createGroupedOpenApi(String scope, String version) {
+    return GroupedOpenApi.builder()
+      .setGroup(getGroupName(scope, version))
+      .pathsToMatch("/" + scope + "/**")
+      .addOpenApiCustomiser(api -> customizePaths(api, scope, version))
+      .addOpenApiCustomiser(OpenApiGroupProcessor::documentBinaryFormats)
+      // last, the interned parts are shared with other groups
+      .addOpenApiCustomiser(INTERNER::intern)
+      .build();
   }
 
-  private void customizePaths(OpenAPI api, String overriddenVersion) {
+  private static void customizePaths(OpenAPI api, String scope, String overriddenVersion) {
+    var event = new OpenApiGroupEvent();
+    event.begin();
     var pathItemsPerVersion = api.getPaths().entrySet().stream()
       .collect(groupingBy(it -> getApiVersion(it.getKey()), TreeMap::new, toList()));
 
@@ -130,9 +156,34 @@ public class OpenApiGroupProcessor implements BeanDefinitionRegistryPostProcesso
       });
 
     api.setPaths(newPaths);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.group = getGroupName(scope, overriddenVersion);
+      event.operation = OpenApiGroupEvent.PATHS_CUSTOMIZATION;
+      event.pathCount = newPaths.size();
+      event.commit();
+    }
+  }
+
+  private static void documentBinaryFormats(OpenAPI api) {
+    api.getPaths().values().stream()
+      .flatMap(pathItem -> pathItem.readOperations().stream())
+      .filter(operation -> operation.getResponses() != null)
+      .flatMap(operation -> operation.getResponses().values().stream())
+      .map(ApiResponse::getContent)
+      .filter(content -> content != null && !content.isEmpty())
+      .forEach(OpenApiGroupProcessor::addBinaryMediaTypes);
+  }
+
+  private static void addBinaryMediaTypes(Content content) {
+    var schema = content.values().iterator().next().getSchema();
+    BinaryFormatConverters.mediaTypes().forEach(
+      mediaType -> content.putIfAbsent(mediaType.toString(), new MediaType().schema(schema))
+    );
   }
 
-  private int getApiVersion(String path) {
+  private static int getApiVersion(String path) {
     return Arrays.stream(path.split("/")).filter(it -> !it.isBlank())
       .skip(1).limit(1)
       .map(it -> it.substring(1)) // trimStart 'v'
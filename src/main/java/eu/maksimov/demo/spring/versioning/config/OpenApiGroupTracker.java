@@ -0,0 +1,68 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import eu.maksimov.demo.spring.versioning.routing.RouteTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springdoc.core.GroupedOpenApi;
+import org.springframework.context.ApplicationContext;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static eu.maksimov.demo.spring.versioning.config.OpenApiGroupProcessor.MARKER;
+
+/**
+ * Reports OpenAPI groups that are missing for handlers registered at runtime.
+ * <p>
+ * {@link OpenApiGroupProcessor} registers groups once at startup and springdoc offers no public API to add groups
+ * later, so groups for {@code (scope, version)} pairs that appear at runtime are documented after a restart.
+ */
+public class OpenApiGroupTracker implements Consumer<RouteTable> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OpenApiGroupTracker.class);
+
+  private final ApplicationContext context;
+  private final Set<String> reportedGroups = new HashSet<>();
+  private boolean initialized;
+  private Set<Route> knownRoutes = Set.of();
+
+  public OpenApiGroupTracker(ApplicationContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public synchronized void accept(RouteTable routeTable) {
+    if (routeTable == RouteTable.EMPTY) {
+      // published before the handler mapping is initialized
+      return;
+    }
+    var routes = Set.copyOf(routeTable.getRoutes());
+    if (!initialized || routes.equals(knownRoutes)) {
+      // the first table is covered by the groups registered at startup
+      initialized = true;
+      knownRoutes = routes;
+      return;
+    }
+    knownRoutes = routes;
+
+    Set<String> groupNames = new HashSet<>(reportedGroups);
+    context.getBeansOfType(GroupedOpenApi.class).values().forEach(it -> groupNames.add(it.getGroup()));
+
+    routeTable.getVersionsPerScope().forEach((scope, versions) -> {
+      Set<String> versionNames = new HashSet<>();
+      versions.forEach(version -> versionNames.add("v" + version));
+      versionNames.add("latest");
+      versionNames.stream()
+        .map(version -> OpenApiGroupProcessor.getGroupName(scope, version))
+        .filter(group -> !groupNames.contains(group))
+        .forEach(group -> {
+          LOG.warn(MARKER, "No {} '{}' for handlers registered at runtime, it is documented after restart",
+            GroupedOpenApi.class.getSimpleName(), group);
+          reportedGroups.add(group);
+        });
+    });
+  }
+
+}
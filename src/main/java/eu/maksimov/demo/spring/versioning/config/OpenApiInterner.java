@@ -0,0 +1,72 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Lets the documents of all OpenAPI groups share one instance of every part with equal content.
+ * <p>
+ * springdoc builds a complete {@link OpenAPI} model per group, so the same path items (an endpoint of version 1 is
+ * listed in every group from {@code v1} to {@code latest}), schemas and components are held once per group. Interning
+ * replaces them with canonical instances, so memory grows with the distinct content instead of scopes * versions.
+ * <p>
+ * Interned instances are shared between groups and must be treated as immutable, hence interning must be the last
+ * customization of a group. Canonical instances are weakly referenced and disappear with the last group using them.
+ */
+class OpenApiInterner {
+
+  private final Map<Object, WeakReference<Object>> canonicalInstances = new WeakHashMap<>();
+
+  void intern(OpenAPI api) {
+    var components = api.getComponents();
+    if (components != null) {
+      internValues(components.getSchemas());
+      internValues(components.getParameters());
+      internValues(components.getResponses());
+      internValues(components.getHeaders());
+      internValues(components.getSecuritySchemes());
+      api.setComponents(intern(components));
+    }
+    if (api.getPaths() != null) {
+      api.getPaths().replaceAll((path, pathItem) -> intern(internOperations(pathItem)));
+    }
+  }
+
+  /**
+   * Path items differing in a detail (e.g. an operation id) still share their parameters and responses.
+   */
+  private PathItem internOperations(PathItem pathItem) {
+    pathItem.readOperations().forEach(operation -> {
+      if (operation.getParameters() != null) {
+        operation.getParameters().replaceAll(this::intern);
+      }
+      internValues(operation.getResponses());
+    });
+    return pathItem;
+  }
+
+  private <T> void internValues(Map<String, T> map) {
+    if (map != null) {
+      map.replaceAll((key, value) -> intern(value));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  synchronized <T> T intern(T instance) {
+    if (instance == null) {
+      return null;
+    }
+    var reference = canonicalInstances.get(instance);
+    var canonical = reference != null ? (T) reference.get() : null;
+    if (canonical == null) {
+      canonicalInstances.put(instance, new WeakReference<>(instance));
+      return instance;
+    }
+    return canonical;
+  }
+
+}
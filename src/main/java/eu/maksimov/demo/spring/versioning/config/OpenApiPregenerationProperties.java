@@ -0,0 +1,35 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.openapi.pregeneration")
+public class OpenApiPregenerationProperties {
+
+  /**
+   * Generate the documents of all OpenAPI groups right after startup instead of on their first request.
+   */
+  private boolean enabled;
+  /**
+   * Groups not generated within this time are left to their first request.
+   */
+  private Duration timeout = Duration.ofMinutes(2);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+}
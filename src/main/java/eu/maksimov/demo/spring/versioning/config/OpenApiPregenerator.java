@@ -0,0 +1,119 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springdoc.core.GroupedOpenApi;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static eu.maksimov.demo.spring.versioning.config.OpenApiGroupProcessor.MARKER;
+
+/**
+ * Generates the documents of all OpenAPI groups in the background right after startup, so that the first Swagger UI
+ * visit does not wait for springdoc to build every group.
+ * <p>
+ * Like {@code WarmUp}, every group is requested from {@code /v3/api-docs/{group}} of the embedded server, which makes
+ * springdoc build and cache it through its regular path. The groups are built one after the other on a single
+ * background thread: it keeps one core busy alongside the requests that are already being served, and springdoc's
+ * shared state is never built concurrently. Each group is built into its own instance of the base {@code OpenAPI},
+ * see {@link OpenApiConfig#applicationOpenApi()}.
+ * <p>
+ * Meters: {@code versioning.openapi.pregeneration} (all groups) and {@code versioning.openapi.group-generation} (per
+ * group).
+ */
+public class OpenApiPregenerator implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OpenApiPregenerator.class);
+
+  private final OpenApiPregenerationProperties properties;
+  private final Timer totalTimer;
+  private final Timer groupTimer;
+
+  public OpenApiPregenerator(OpenApiPregenerationProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.totalTimer = Timer.builder("versioning.openapi.pregeneration")
+      .description("Generation of all OpenAPI group documents after startup")
+      .register(meterRegistry);
+    this.groupTimer = Timer.builder("versioning.openapi.group-generation")
+      .description("Generation of one OpenAPI group document after startup")
+      .register(meterRegistry);
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    var context = event.getApplicationContext();
+    if (!(context instanceof WebServerApplicationContext)) {
+      return;
+    }
+    var environment = context.getEnvironment();
+    var baseUri = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+      + environment.getProperty("server.servlet.context-path", "")
+      + environment.getProperty("springdoc.api-docs.path", "/v3/api-docs") + "/";
+    List<String> groups = new ArrayList<>();
+    context.getBeansOfType(GroupedOpenApi.class).values().forEach(it -> groups.add(it.getGroup()));
+
+    var thread = new Thread(() -> run(baseUri, groups), "openapi-pregeneration");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run(String baseUri, List<String> groups) {
+    var client = HttpClient.newHttpClient();
+    var startedNanos = System.nanoTime();
+    var deadline = startedNanos + properties.getTimeout().toNanos();
+    var generated = 0;
+    var failed = 0;
+    try {
+      for (var group : groups) {
+        var remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          break;
+        }
+        if (generate(client, URI.create(baseUri + group), Duration.ofNanos(remainingNanos))) {
+          generated++;
+        } else {
+          failed++;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    var elapsedNanos = System.nanoTime() - startedNanos;
+    totalTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    LOG.info(MARKER, "Generated {} of {} groups ({} failed) in {} ms",
+      generated, groups.size(), failed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+  }
+
+  private boolean generate(HttpClient client, URI uri, Duration timeout) throws InterruptedException {
+    var startedNanos = System.nanoTime();
+    try {
+      var request = HttpRequest.newBuilder(uri).timeout(timeout).build();
+      var status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      if (status != 200) {
+        LOG.warn(MARKER, "{} answered {}", uri, status);
+        return false;
+      }
+      return true;
+    } catch (IOException e) {
+      LOG.warn(MARKER, "{} failed: {}", uri, e.toString());
+      return false;
+    } finally {
+      groupTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+}
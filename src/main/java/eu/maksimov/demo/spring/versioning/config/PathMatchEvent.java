@@ -0,0 +1,59 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of one pattern matched against a path by {@link VersionedAntPathMatcher}.
+ * <p>
+ * Emitted for every candidate pattern of every request, hence disabled by default: enable
+ * {@code eu.maksimov.versioning.PathMatch} in the recording settings (e.g. a copy of {@code default.jfc} or JMC's
+ * template manager) to record it.
+ */
+@Name("eu.maksimov.versioning.PathMatch")
+@Label("Versioned Path Match")
+@Category({"Versioning", "Routing"})
+@Description("Pattern matched against a request path by the versioned path matcher")
+@StackTrace(false)
+@Enabled(false)
+class PathMatchEvent extends Event {
+
+  @Label("Pattern")
+  String pattern;
+
+  @Label("Path")
+  String path;
+
+  @Label("Requested Version")
+  @Description("Version in the path, e.g. v2 or latest, null if the path or pattern is not versioned")
+  String requestedVersion;
+
+  @Label("Resolved Version")
+  @Description("Version of the matched pattern, null if not matched or not versioned")
+  String resolvedVersion;
+
+  @Label("Matched")
+  boolean matched;
+
+  /**
+   * Cheaper than {@link #isEnabled()} of a new instance, whose allocation is not reliably optimized away, and does
+   * not initialize Flight Recorder (hundreds of milliseconds) unless it already runs.
+   */
+  static boolean isRecorded() {
+    return FlightRecorder.isInitialized() && Type.INSTANCE.isEnabled();
+  }
+
+  private static final class Type {
+
+    static final EventType INSTANCE = EventType.getEventType(PathMatchEvent.class);
+
+  }
+
+}
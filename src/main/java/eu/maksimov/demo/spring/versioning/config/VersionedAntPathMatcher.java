@@ -4,44 +4,158 @@ import org.springframework.util.AntPathMatcher;
 
 import java.util.Comparator;
 import java.util.Map;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * {@link AntPathMatcher} that lets a pattern of API version {@code N} match paths of version {@code N} and higher
+ * (including {@code latest}).
+ * <p>
+ * A path is versioned if it contains {@code /api/{version}/}, where version is either {@code v} followed by one or
+ * two digits or {@code latest}. The version is located by hand rather than by regular expression, and parsed
+ * patterns are cached, so matching adds no garbage on top of what {@link AntPathMatcher} itself allocates.
+ */
 public class VersionedAntPathMatcher extends AntPathMatcher {
 
-  private static final Pattern VERSIONED_PATH_REGEX = Pattern.compile("/api/(?<version>v\\d{1,2}|latest)/.*");
+  private static final String API_PREFIX = "/api/";
+  private static final String LATEST = "latest";
+  private static final int NOT_VERSIONED = -1;
+  private static final int CACHE_TURNOFF_THRESHOLD = 65536;
+
+  private final ConcurrentMap<String, VersionedPattern> versionedPatternCache = new ConcurrentHashMap<>(256);
 
   @Override
   protected boolean doMatch(String pattern, String path, boolean fullMatch, Map<String, String> uriTemplateVariables) {
-    if (path == null) {
+    if (!PathMatchEvent.isRecorded()) {
+      return doVersionedMatch(pattern, path, fullMatch, uriTemplateVariables);
+    }
+
+    var event = new PathMatchEvent();
+    event.begin();
+    var matched = doVersionedMatch(pattern, path, fullMatch, uriTemplateVariables);
+    event.end();
+    if (event.shouldCommit()) {
+      var versionedPattern = path == null || pattern == null ? VersionedPattern.NONE : getVersionedPattern(pattern);
+      var pathVersion = versionedPattern == VersionedPattern.NONE ? NOT_VERSIONED : getApiVersion(path, 0, false);
+      event.pattern = pattern;
+      event.path = path;
+      event.requestedVersion = getVersionName(pathVersion);
+      event.resolvedVersion = matched && pathVersion != NOT_VERSIONED ? getVersionName(versionedPattern.version) : null;
+      event.matched = matched;
+      event.commit();
+    }
+    return matched;
+  }
+
+  private boolean doVersionedMatch(String pattern, String path, boolean fullMatch,
+                                   Map<String, String> uriTemplateVariables) {
+    if (path == null || pattern == null) {
       return super.doMatch(pattern, path, fullMatch, uriTemplateVariables);
     }
 
-    Matcher patternMatcher = VERSIONED_PATH_REGEX.matcher(pattern);
-    Matcher pathMatcher = VERSIONED_PATH_REGEX.matcher(path);
-    if (!patternMatcher.find() || !pathMatcher.find()) {
+    var versionedPattern = getVersionedPattern(pattern);
+    if (versionedPattern == VersionedPattern.NONE) {
+      return super.doMatch(pattern, path, fullMatch, uriTemplateVariables);
+    }
+    int pathVersion = getApiVersion(path, 0, false);
+    if (pathVersion == NOT_VERSIONED) {
       return super.doMatch(pattern, path, fullMatch, uriTemplateVariables);
     }
-    return getApiVersion(pathMatcher) >= getApiVersion(patternMatcher)
-      && super.doMatch(wildcardVersionApi(patternMatcher), path, fullMatch, uriTemplateVariables);
+    return pathVersion >= versionedPattern.version
+      && super.doMatch(versionedPattern.wildcardVersionPattern, path, fullMatch, uriTemplateVariables);
   }
 
-  private int getApiVersion(Matcher pathMatcher) {
-    Optional<String> versionStr = Optional.ofNullable(pathMatcher.group("version"));
+  private static String getVersionName(int version) {
+    if (version == NOT_VERSIONED) {
+      return null;
+    }
+    return version == Integer.MAX_VALUE ? LATEST : "v" + version;
+  }
 
-    if (versionStr.isEmpty()) {
-      return Integer.MIN_VALUE;
+  private VersionedPattern getVersionedPattern(String pattern) {
+    var versionedPattern = versionedPatternCache.get(pattern);
+    if (versionedPattern == null) {
+      versionedPattern = VersionedPattern.parse(pattern);
+      if (versionedPatternCache.size() < CACHE_TURNOFF_THRESHOLD) {
+        versionedPatternCache.putIfAbsent(pattern, versionedPattern);
+      }
     }
-    if (versionStr.get().equals("latest")) {
-      return Integer.MAX_VALUE;
+    return versionedPattern;
+  }
+
+  /**
+   * Finds the first {@code /api/{version}/} segment at or after {@code from}.
+   *
+   * @param anchored whether the segment must start at {@code from} and be followed by a single line only
+   * @return parsed version, {@code Integer.MAX_VALUE} for {@code latest} or {@link #NOT_VERSIONED}
+   */
+  private static int getApiVersion(String path, int from, boolean anchored) {
+    int start = findVersionedSegment(path, from);
+    if (start < 0 || anchored && (start != from || lineEnd(path, start) != path.length())) {
+      return NOT_VERSIONED;
     }
-    return Integer.parseInt(versionStr.map(it -> it.substring(1)).get());
+    return parseVersion(path, start + API_PREFIX.length());
   }
 
-  private String wildcardVersionApi(Matcher pattern) {
-    String versionStr = pattern.group("version");
-    return pattern.group().replaceFirst(versionStr, "*");
+  /**
+   * @return index of the first {@code /api/{version}/} occurrence at or after {@code from}, or {@code -1}
+   */
+  private static int findVersionedSegment(String path, int from) {
+    for (int start = path.indexOf(API_PREFIX, from); start >= 0;
+         start = path.indexOf(API_PREFIX, start + 1)) {
+      if (versionEnd(path, start + API_PREFIX.length()) >= 0) {
+        return start;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return index of the {@code /} following a version starting at {@code index}, or {@code -1} if there is none
+   */
+  private static int versionEnd(String path, int index) {
+    if (path.startsWith(LATEST, index)) {
+      int end = index + LATEST.length();
+      return end < path.length() && path.charAt(end) == '/' ? end : -1;
+    }
+    if (index + 2 >= path.length() || path.charAt(index) != 'v' || !isDigit(path.charAt(index + 1))) {
+      return -1;
+    }
+    if (path.charAt(index + 2) == '/') {
+      return index + 2;
+    }
+    if (isDigit(path.charAt(index + 2)) && index + 3 < path.length() && path.charAt(index + 3) == '/') {
+      return index + 3;
+    }
+    return -1;
+  }
+
+  private static int parseVersion(String path, int index) {
+    if (path.charAt(index) != 'v') {
+      return Integer.MAX_VALUE; // latest
+    }
+    int version = 0;
+    for (int i = index + 1; isDigit(path.charAt(i)); i++) {
+      version = version * 10 + (path.charAt(i) - '0');
+    }
+    return version;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * @return index of the first line terminator at or after {@code from}, or the length of the string
+   */
+  private static int lineEnd(String path, int from) {
+    for (int i = from; i < path.length(); i++) {
+      char c = path.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return i;
+      }
+    }
+    return path.length();
   }
 
   /**
@@ -74,32 +188,73 @@ public class VersionedAntPathMatcher extends AntPathMatcher {
    */
   @Override
   public Comparator<String> getPatternComparator(String path) {
+    int pathVersion = getApiVersion(path, 0, true);
     return ((Comparator<String>) (pattern1, pattern2) -> {
-      if (pattern1 == null || pattern2 == null) {
+      if (pattern1 == null || pattern2 == null || pathVersion == NOT_VERSIONED) {
         return 0;
       }
 
-      Matcher pathMatcher = VERSIONED_PATH_REGEX.matcher(path);
-      Matcher pattern1Matcher = VERSIONED_PATH_REGEX.matcher(pattern1);
-      Matcher pattern2Matcher = VERSIONED_PATH_REGEX.matcher(pattern2);
-      if (pathMatcher.matches() && pattern1Matcher.matches() && pattern2Matcher.matches()) {
-        int pathVersion = getApiVersion(pathMatcher);
-        int pattern1Version = getApiVersion(pattern1Matcher);
-        int pattern2Version = getApiVersion(pattern2Matcher);
-
-        boolean pattern1EqualsPath = pattern1Version == pathVersion;
-        boolean pattern2EqualsPath = pattern2Version == pathVersion;
-        if (pattern1EqualsPath && pattern2EqualsPath) {
-          return 0;
-        } else if (pattern1EqualsPath) {
-          return -1;
-        } else if (pattern2EqualsPath) {
-          return 1;
-        }
-        return pattern2Version - pattern1Version;
+      int pattern1Version = getVersionedPattern(pattern1).anchoredVersion;
+      int pattern2Version = getVersionedPattern(pattern2).anchoredVersion;
+      if (pattern1Version == NOT_VERSIONED || pattern2Version == NOT_VERSIONED) {
+        return 0;
       }
-      return 0;
+
+      boolean pattern1EqualsPath = pattern1Version == pathVersion;
+      boolean pattern2EqualsPath = pattern2Version == pathVersion;
+      if (pattern1EqualsPath && pattern2EqualsPath) {
+        return 0;
+      } else if (pattern1EqualsPath) {
+        return -1;
+      } else if (pattern2EqualsPath) {
+        return 1;
+      }
+      return pattern2Version - pattern1Version;
     }).thenComparing(super.getPatternComparator(path));
   }
 
+  /**
+   * Pattern with its {@code /api/{version}/} segment parsed once.
+   */
+  private static final class VersionedPattern {
+
+    static final VersionedPattern NONE = new VersionedPattern(NOT_VERSIONED, NOT_VERSIONED, null);
+
+    /**
+     * Version of the first versioned segment anywhere in the pattern.
+     */
+    final int version;
+    /**
+     * Version if the whole pattern is a versioned path (used for sorting), otherwise {@link #NOT_VERSIONED}.
+     */
+    final int anchoredVersion;
+    /**
+     * Pattern starting at the versioned segment, with the version replaced by {@code *}.
+     */
+    final String wildcardVersionPattern;
+
+    private VersionedPattern(int version, int anchoredVersion, String wildcardVersionPattern) {
+      this.version = version;
+      this.anchoredVersion = anchoredVersion;
+      this.wildcardVersionPattern = wildcardVersionPattern;
+    }
+
+    static VersionedPattern parse(String pattern) {
+      int start = findVersionedSegment(pattern, 0);
+      if (start < 0) {
+        return NONE;
+      }
+      int versionStart = start + API_PREFIX.length();
+      int versionEnd = versionEnd(pattern, versionStart);
+      String wildcardVersionPattern = pattern.substring(start, versionStart) + "*"
+        + pattern.substring(versionEnd, lineEnd(pattern, versionEnd));
+      return new VersionedPattern(
+        parseVersion(pattern, versionStart),
+        getApiVersion(pattern, 0, true),
+        wildcardVersionPattern
+      );
+    }
+
+  }
+
 }
@@ -2,10 +2,13 @@ package eu.maksimov.demo.spring.versioning.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 /**
  * @see <a href="https://docs.spring.io/spring/docs/current/spring-framework-reference/web.html#mvc-config-path-matching">Path Matching</a>
  */
@@ -19,6 +22,12 @@ public class WebConfig implements WebMvcConfigurer {
 //      .addPathPrefix("/api", HandlerTypePredicate.forAnnotation(RestController.class));
   }
 
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // ahead of StringHttpMessageConverter, which would otherwise write String answers for any media type
+    converters.addAll(0, BinaryFormatConverters.create());
+  }
+
   @Bean
   public PathMatcher versionedAntPathMatcher() {
     return new VersionedAntPathMatcher();
@@ -0,0 +1,49 @@
+package eu.maksimov.demo.spring.versioning.controller;
+
+import eu.maksimov.demo.spring.versioning.batch.BatchExecutor;
+import eu.maksimov.demo.spring.versioning.batch.BatchRequest;
+import eu.maksimov.demo.spring.versioning.batch.BatchResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Executes several requests of the same version in one call, e.g. {@code POST /api/v3/batch} with
+ * {@code [{"path": "/person/1"}, {"path": "/session/2"}]} answers {@code /api/v3/person/1} and
+ * {@code /api/v3/session/2}, each resolved by the usual version fall-through rules.
+ */
+@RestController
+@RequestMapping("/api/v1/batch")
+public class BatchV1Controller {
+
+  private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+  private static final String BATCH_SEGMENT = "/batch";
+
+  @Autowired
+  private BatchExecutor batchExecutor;
+
+  @PostMapping
+  public List<BatchResponse> execute(@RequestBody List<BatchRequest> requests,
+                                     HttpServletRequest request, HttpServletResponse response) {
+    return batchExecutor.execute(request, response, getVersionPrefix(request), requests);
+  }
+
+  /**
+   * @return lookup path without the trailing {@code /batch} or {@code /batch/}, e.g. {@code /api/v3}
+   */
+  private static String getVersionPrefix(HttpServletRequest request) {
+    var path = URL_PATH_HELPER.getLookupPathForRequest(request);
+    if (path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    return path.endsWith(BATCH_SEGMENT) ? path.substring(0, path.length() - BATCH_SEGMENT.length()) : path;
+  }
+
+}
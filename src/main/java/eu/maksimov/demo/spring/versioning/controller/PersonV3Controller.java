@@ -1,22 +1,48 @@
 package eu.maksimov.demo.spring.versioning.controller;
 
+import eu.maksimov.demo.spring.versioning.model.Person;
+import eu.maksimov.demo.spring.versioning.repository.BulkLoader;
+import eu.maksimov.demo.spring.versioning.repository.PersonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v3/person")
 public class PersonV3Controller {
 
+  @Autowired
+  private PersonRepository personRepository;
+  @Autowired
+  private BulkLoader bulkLoader;
+
   @GetMapping
-  public String getAll() {
-    return "answer from PersonV3Controller.getAll";
+  public void getAll(HttpServletResponse response) throws IOException {
+    bulkLoader.writeAll(personRepository, person -> String.valueOf(person.getId()), this::answer, response);
   }
 
   @GetMapping("{id}")
   public String getById(@PathVariable String id) {
-    return "answer from PersonV3Controller.getById(" + id + ")";
+    return personRepository.findById(id).map(this::answer)
+      .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person " + id + " not found"));
+  }
+
+  @GetMapping(params = "ids")
+  public void getByIds(@RequestParam List<String> ids, HttpServletResponse response) throws IOException {
+    bulkLoader.write(ids, personRepository, this::answer, response);
+  }
+
+  private String answer(Person person) {
+    return "answer from PersonV3Controller.getById(" + person.getId() + "): " + person.getName();
   }
 
 }
@@ -0,0 +1,156 @@
+package eu.maksimov.demo.spring.versioning.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit of a single handler that adapts to its observed latency.
+ * <p>
+ * Requests are admitted while fewer than {@link #getLimit()} are in flight, the rest are rejected right away instead
+ * of queueing. Latencies are accumulated per window, at the end of each window the limit is recomputed with the
+ * gradient of the long-term average latency against the latency of the window:
+ * <pre>
+ * gradient = clamp(tolerance * longRtt / windowRtt, 0.5, 1)
+ * limit    = limit * gradient + sqrt(limit)
+ * </pre>
+ * so the limit grows by {@code sqrt(limit)} while the latency is stable and shrinks as soon as requests start to queue
+ * up inside the application. A window with failed requests backs off multiplicatively, and a window in which the
+ * limit was not even half used leaves it as it is, such latencies say nothing about the capacity.
+ * <p>
+ * Admission and completion only touch atomics, the limit is recomputed by the single thread that closes a window.
+ */
+public final class AdaptiveLimit {
+
+  private static final double MIN_GRADIENT = 0.5;
+  /**
+   * Weight of a window in the long-term average, about the last 20 windows.
+   */
+  private static final double LONG_RTT_WEIGHT = 0.05;
+
+  private final LimiterProperties properties;
+  private final long windowNanos;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicLong windowStart;
+  private final LongAdder rttSum = new LongAdder();
+  private final LongAdder samples = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  private volatile int limit;
+  // written by the thread closing a window only
+  private double estimatedLimit;
+  private double longRtt;
+
+  public AdaptiveLimit(LimiterProperties properties, long nanoTime) {
+    this.properties = properties;
+    this.windowNanos = properties.getWindow().toNanos();
+    this.windowStart = new AtomicLong(nanoTime);
+    this.estimatedLimit = clamp(properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit());
+    this.limit = (int) estimatedLimit;
+  }
+
+  /**
+   * @return {@code true} if the request is admitted and must be {@linkplain #release(long, long, boolean) released}
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      var current = inFlight.get();
+      if (current >= limit) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        updateMaxInFlight(current + 1);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @param startNanos {@link System#nanoTime()} when the request was admitted
+   * @param nanoTime   {@link System#nanoTime()} now
+   * @param failed     whether the request failed, which backs off the limit regardless of its latency
+   */
+  public void release(long startNanos, long nanoTime, boolean failed) {
+    inFlight.decrementAndGet();
+    rttSum.add(nanoTime - startNanos);
+    samples.increment();
+    if (failed) {
+      failures.increment();
+    }
+    var start = windowStart.get();
+    if (nanoTime - start >= windowNanos && samples.sum() >= properties.getMinWindowSamples()
+      && windowStart.compareAndSet(start, nanoTime)) {
+      update();
+    }
+  }
+
+  /**
+   * Releases an admitted request without taking its latency or outcome into account, e.g. when something other than
+   * the handler answered it.
+   */
+  public void cancel() {
+    inFlight.decrementAndGet();
+  }
+
+  private void updateMaxInFlight(int current) {
+    var max = maxInFlight.get();
+    while (current > max && !maxInFlight.compareAndSet(max, current)) {
+      max = maxInFlight.get();
+    }
+  }
+
+  private synchronized void update() {
+    var count = samples.sumThenReset();
+    var sum = rttSum.sumThenReset();
+    var failed = failures.sumThenReset();
+    var used = maxInFlight.getAndSet(inFlight.get());
+    if (count == 0) {
+      return;
+    }
+    var windowRtt = (double) sum / count;
+    longRtt = longRtt == 0 ? windowRtt : longRtt + (windowRtt - longRtt) * LONG_RTT_WEIGHT;
+    if (longRtt > 2 * windowRtt) {
+      // the handler got faster for good, e.g. after warm-up, do not wait for the average to catch up
+      longRtt = 2 * windowRtt;
+    }
+
+    double newLimit;
+    if (failed > 0) {
+      newLimit = estimatedLimit * properties.getBackoffRatio();
+    } else if (used < estimatedLimit / 2) {
+      return;
+    } else {
+      var gradient = clamp(properties.getTolerance() * longRtt / windowRtt, MIN_GRADIENT, 1.0);
+      newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+    }
+    var smoothing = properties.getSmoothing();
+    estimatedLimit = clamp(
+      estimatedLimit * (1 - smoothing) + newLimit * smoothing, properties.getMinLimit(), properties.getMaxLimit()
+    );
+    limit = (int) estimatedLimit;
+  }
+
+  private static double clamp(double value, double min, double max) {
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * @return number of requests admitted concurrently
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+}
@@ -0,0 +1,107 @@
+package eu.maksimov.demo.spring.versioning.limiter;
+
+import eu.maksimov.demo.spring.versioning.bulkhead.Bulkheads;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.warmup.WarmUpFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Admits the requests of every versioned handler method within its {@link AdaptiveLimit} and answers {@code 503} with
+ * {@code Retry-After} otherwise, rather than queueing them.
+ * <p>
+ * The permit is held until the request completes, across the dispatches of asynchronous requests. Requests answered
+ * by a bulkhead, see {@link Bulkheads#REJECTED_ATTRIBUTE}, do not adapt the limit, warm-up requests are not limited.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+  private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+  private final ObjectProvider<RouteRegistry> routeRegistryProvider;
+  private final ConcurrencyLimiter limiter;
+  private final String retryAfter;
+  private volatile RouteRegistry routeRegistry;
+
+  /**
+   * @param routeRegistryProvider resolved lazily, the registry depends on the handler mapping this interceptor is
+   *                              registered with
+   */
+  public ConcurrencyLimitInterceptor(ObjectProvider<RouteRegistry> routeRegistryProvider, ConcurrencyLimiter limiter,
+                                     LimiterProperties properties) {
+    this.routeRegistryProvider = routeRegistryProvider;
+    this.limiter = limiter;
+    this.retryAfter = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    throws IOException {
+    if (!(handler instanceof HandlerMethod) || request.getAttribute(PERMIT_ATTRIBUTE) != null
+      || WarmUpFilter.isWarmUp(request)) {
+      return true;
+    }
+    var pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern == null) {
+      return true;
+    }
+    var handlerMethod = (HandlerMethod) handler;
+    if (getRouteRegistry().getSnapshot().getRoute(handlerMethod, pattern).isEmpty()) {
+      return true;
+    }
+
+    var limit = limiter.getLimit(handlerMethod);
+    if (!limit.tryAcquire()) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Concurrency limit of the handler reached");
+      return false;
+    }
+    request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limit, System.nanoTime()));
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                              Exception ex) {
+    var permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+    if (permit != null) {
+      request.removeAttribute(PERMIT_ATTRIBUTE);
+      if (request.getAttribute(Bulkheads.REJECTED_ATTRIBUTE) != null) {
+        // rejected or timed out by the bulkhead, neither latency nor status is the handler's
+        permit.limit.cancel();
+        return;
+      }
+      var failed = ex != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+      permit.limit.release(permit.startNanos, System.nanoTime(), failed);
+    }
+  }
+
+  private RouteRegistry getRouteRegistry() {
+    var registry = routeRegistry;
+    if (registry == null) {
+      registry = routeRegistryProvider.getObject();
+      routeRegistry = registry;
+    }
+    return registry;
+  }
+
+  private static final class Permit {
+
+    private final AdaptiveLimit limit;
+    private final long startNanos;
+
+    private Permit(AdaptiveLimit limit, long startNanos) {
+      this.limit = limit;
+      this.startNanos = startNanos;
+    }
+
+  }
+
+}
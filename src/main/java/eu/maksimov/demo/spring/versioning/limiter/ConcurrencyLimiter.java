@@ -0,0 +1,49 @@
+package eu.maksimov.demo.spring.versioning.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link AdaptiveLimit}s by handler method, created on first use and exposed as {@code versioning.limiter.*} meters
+ * tagged with the {@code handler}, e.g. {@code PersonV2Controller#getById}.
+ */
+public class ConcurrencyLimiter {
+
+  private final LimiterProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<Method, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+  public ConcurrencyLimiter(LimiterProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public AdaptiveLimit getLimit(HandlerMethod handlerMethod) {
+    var limit = limits.get(handlerMethod.getMethod());
+    return limit != null ? limit : limits.computeIfAbsent(handlerMethod.getMethod(), method -> create(handlerMethod));
+  }
+
+  private AdaptiveLimit create(HandlerMethod handlerMethod) {
+    var limit = new AdaptiveLimit(properties, System.nanoTime());
+    var handler = handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+    Gauge.builder("versioning.limiter.limit", limit, AdaptiveLimit::getLimit)
+      .description("Concurrent requests currently admitted to the handler")
+      .tag("handler", handler)
+      .register(meterRegistry);
+    Gauge.builder("versioning.limiter.in-flight", limit, AdaptiveLimit::getInFlight)
+      .tag("handler", handler)
+      .register(meterRegistry);
+    FunctionCounter.builder("versioning.limiter.rejected", limit, AdaptiveLimit::getRejected)
+      .description("Requests rejected with 503 because the handler was at its limit")
+      .tag("handler", handler)
+      .register(meterRegistry);
+    return limit;
+  }
+
+}
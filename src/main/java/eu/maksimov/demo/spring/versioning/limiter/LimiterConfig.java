@@ -0,0 +1,41 @@
+package eu.maksimov.demo.spring.versioning.limiter;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Adaptive concurrency limits per versioned handler method, enabled by {@code versioning.limiter.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "versioning.limiter.enabled", havingValue = "true")
+@EnableConfigurationProperties(LimiterProperties.class)
+public class LimiterConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private ObjectProvider<RouteRegistry> routeRegistry;
+
+  @Autowired
+  private LimiterProperties limiterProperties;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Bean
+  public ConcurrencyLimiter concurrencyLimiter() {
+    return new ConcurrencyLimiter(limiterProperties, meterRegistry);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new ConcurrencyLimitInterceptor(routeRegistry, concurrencyLimiter(), limiterProperties));
+  }
+
+}
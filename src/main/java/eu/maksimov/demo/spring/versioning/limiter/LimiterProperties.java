@@ -0,0 +1,122 @@
+package eu.maksimov.demo.spring.versioning.limiter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.limiter")
+public class LimiterProperties {
+
+  /**
+   * Limit the concurrent requests of every versioned handler method adaptively.
+   */
+  private boolean enabled;
+  private int initialLimit = 20;
+  private int minLimit = 4;
+  private int maxLimit = 500;
+  /**
+   * Latencies are averaged per window, the limit is recomputed at the end of each window.
+   */
+  private Duration window = Duration.ofMillis(100);
+  /**
+   * Windows with fewer completed requests are extended.
+   */
+  private int minWindowSamples = 10;
+  /**
+   * Latency increase over the long-term average tolerated before the limit shrinks.
+   */
+  private double tolerance = 1.5;
+  /**
+   * Weight of a recomputed limit against the current one.
+   */
+  private double smoothing = 0.2;
+  /**
+   * Factor applied to the limit after a window with failed requests.
+   */
+  private double backoffRatio = 0.9;
+  /**
+   * {@code Retry-After} of rejected requests.
+   */
+  private Duration retryAfter = Duration.ofSeconds(1);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public Duration getWindow() {
+    return window;
+  }
+
+  public void setWindow(Duration window) {
+    this.window = window;
+  }
+
+  public int getMinWindowSamples() {
+    return minWindowSamples;
+  }
+
+  public void setMinWindowSamples(int minWindowSamples) {
+    this.minWindowSamples = minWindowSamples;
+  }
+
+  public double getTolerance() {
+    return tolerance;
+  }
+
+  public void setTolerance(double tolerance) {
+    this.tolerance = tolerance;
+  }
+
+  public double getSmoothing() {
+    return smoothing;
+  }
+
+  public void setSmoothing(double smoothing) {
+    this.smoothing = smoothing;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter(Duration retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+}
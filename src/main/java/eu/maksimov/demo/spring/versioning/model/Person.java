@@ -0,0 +1,45 @@
+package eu.maksimov.demo.spring.versioning.model;
+
+import java.util.Objects;
+
+public class Person {
+
+  private final long id;
+  private final String name;
+
+  public Person(long id, String name) {
+    this.id = id;
+    this.name = name;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Person)) {
+      return false;
+    }
+    var person = (Person) o;
+    return id == person.id && Objects.equals(name, person.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, name);
+  }
+
+  @Override
+  public String toString() {
+    return "Person{id=" + id + ", name='" + name + "'}";
+  }
+
+}
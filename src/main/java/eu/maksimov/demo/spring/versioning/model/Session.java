@@ -0,0 +1,45 @@
+package eu.maksimov.demo.spring.versioning.model;
+
+import java.util.Objects;
+
+public class Session {
+
+  private final String id;
+  private final String userId;
+
+  public Session(String id, String userId) {
+    this.id = id;
+    this.userId = userId;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Session)) {
+      return false;
+    }
+    var session = (Session) o;
+    return id.equals(session.id) && Objects.equals(userId, session.userId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, userId);
+  }
+
+  @Override
+  public String toString() {
+    return "Session{id='" + id + "', userId='" + userId + "'}";
+  }
+
+}
@@ -0,0 +1,20 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Data access fetching many records in one call to the backing store.
+ *
+ * @param <T> record type
+ */
+@FunctionalInterface
+public interface BatchLookup<T> {
+
+  /**
+   * @param ids distinct ids, as given in the request
+   * @return found records by id, unknown ids are absent
+   */
+  Map<String, T> findAllById(Collection<String> ids);
+
+}
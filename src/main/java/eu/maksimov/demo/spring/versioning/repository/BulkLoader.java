@@ -0,0 +1,166 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Loads records for a list of ids through a {@link BatchLookup}: ids are deduplicated, split into batches that are
+ * fetched in parallel (one downstream call per batch), and the results are handed out in the order of the ids as
+ * soon as all preceding batches are available.
+ */
+public class BulkLoader implements DisposableBean {
+
+  private final BulkProperties properties;
+  private final ObjectMapper objectMapper;
+  private final ThreadPoolExecutor executor;
+
+  public BulkLoader(BulkProperties properties, ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.executor = new ThreadPoolExecutor(
+      properties.getThreads(), properties.getThreads(), 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("bulk-"),
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  @FunctionalInterface
+  public interface BatchConsumer<T> {
+
+    /**
+     * @param ids   ids of the batch in request order
+     * @param found records of the batch by id, unknown ids are absent
+     */
+    void accept(List<String> ids, Map<String, T> found) throws IOException;
+
+  }
+
+  /**
+   * @param ids requested ids, blank ones are ignored, duplicates are loaded and handed out once
+   */
+  public <T> void load(List<String> ids, BatchLookup<T> lookup, BatchConsumer<T> consumer) throws IOException {
+    loadDistinct(getDistinctIds(ids), lookup, consumer);
+  }
+
+  private List<String> getDistinctIds(List<String> ids) {
+    var distinctIds = new ArrayList<String>(new LinkedHashSet<>(ids));
+    distinctIds.removeIf(String::isBlank);
+    if (distinctIds.size() > properties.getMaxIds()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+        distinctIds.size() + " ids requested, at most " + properties.getMaxIds() + " are allowed");
+    }
+    return distinctIds;
+  }
+
+  private <T> void loadDistinct(List<String> distinctIds, BatchLookup<T> lookup, BatchConsumer<T> consumer)
+    throws IOException {
+    List<List<String>> batches = new ArrayList<>();
+    List<CompletableFuture<Map<String, T>>> results = new ArrayList<>();
+    for (int from = 0; from < distinctIds.size(); from += properties.getBatchSize()) {
+      var to = Math.min(from + properties.getBatchSize(), distinctIds.size());
+      var batch = List.copyOf(distinctIds.subList(from, to));
+      batches.add(batch);
+      results.add(CompletableFuture.supplyAsync(() -> lookup.findAllById(batch), executor));
+    }
+
+    for (int i = 0; i < batches.size(); i++) {
+      consumer.accept(batches.get(i), join(results.get(i)));
+    }
+  }
+
+  /**
+   * Streams a JSON array of {@code {"id": ..., "answer": ...}} objects, one per distinct id in request order, with
+   * {@code null} answers for unknown ids. The response is flushed after every batch.
+   * <p>
+   * The ids are validated before the response is touched, so a rejected request still gets its error status. If a
+   * lookup fails mid-stream, the array is left unterminated and the client sees a truncated document.
+   */
+  public <T> void write(List<String> ids, BatchLookup<T> lookup, Function<T, ?> answer, HttpServletResponse response)
+    throws IOException {
+    var distinctIds = getDistinctIds(ids);
+    var generator = createGenerator(response);
+    try (generator) {
+      generator.writeStartArray();
+      loadDistinct(distinctIds, lookup, (batchIds, found) -> {
+        for (var id : batchIds) {
+          var record = found.get(id);
+          writeAnswer(generator, id, record != null ? answer.apply(record) : null);
+        }
+        generator.flush();
+      });
+      generator.writeEndArray();
+    }
+  }
+
+  /**
+   * Streams a JSON array of {@code {"id": ..., "answer": ...}} objects for all records in scan order.
+   */
+  public <T> void writeAll(Scannable<T> scannable, Function<T, String> id, Function<T, ?> answer,
+                           HttpServletResponse response) throws IOException {
+    var generator = createGenerator(response);
+    try (generator) {
+      generator.writeStartArray();
+      scannable.forEach(record -> {
+        try {
+          writeAnswer(generator, id.apply(record), answer.apply(record));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      generator.writeEndArray();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private JsonGenerator createGenerator(HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    // closing the generator after a failure must not complete the array
+    return objectMapper.getFactory().createGenerator(response.getOutputStream())
+      .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+  }
+
+  private static void writeAnswer(JsonGenerator generator, String id, Object answer) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", id);
+    generator.writeObjectField("answer", answer);
+    generator.writeEndObject();
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+}
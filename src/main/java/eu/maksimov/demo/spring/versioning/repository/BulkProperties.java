@@ -0,0 +1,54 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("versioning.bulk")
+public class BulkProperties {
+
+  /**
+   * Ids per call of the backing {@link BatchLookup}.
+   */
+  private int batchSize = 100;
+  /**
+   * Maximum number of ids in one request.
+   */
+  private int maxIds = 1000;
+  /**
+   * Threads fetching batches in parallel, shared by all requests. When all are busy, the request thread fetches.
+   */
+  private int threads = 8;
+  private int queueCapacity = 64;
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getMaxIds() {
+    return maxIds;
+  }
+
+  public void setMaxIds(int maxIds) {
+    this.maxIds = maxIds;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+}
@@ -0,0 +1,432 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Session store persisting to memory-mapped, append-only segment files in a local directory.
+ * <p>
+ * Every save and delete appends a record
+ * {@code int length, int crc32, byte type, long expiresAt, short idLength, id, short userIdLength, userId} to the
+ * active segment; a full segment is sealed and a new one started. An in-memory index maps session ids to record
+ * locations, so lookups read straight from the mapped pages without system calls.
+ * <p>
+ * On startup the segments are replayed in order. Replay of a segment stops at the first record with an invalid length
+ * or checksum, i.e. a record torn by a crash, and the active segment is cleared from there on. Records survive a crash
+ * of the process as soon as they are written, a crash of the machine once the segment was flushed by
+ * {@link #maintain()} or {@link #destroy()}.
+ * <p>
+ * {@link #maintain()} drops expired sessions from the index and, when less than half of the sealed segments is live,
+ * copies their live records to the active segment and deletes them. Sealed segments are always compacted together,
+ * so a delete record never outlives the records it deletes. Mapped segments stay readable until garbage collected,
+ * even after their file was deleted (not on Windows, which refuses to delete mapped files).
+ * <p>
+ * The directory is locked while the store is open, so a second instance using the same directory fails on startup
+ * instead of corrupting the segments.
+ */
+public class MappedSessionRepository implements SessionRepository, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MappedSessionRepository.class);
+
+  private static final String SEGMENT_PREFIX = "sessions-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String LOCK_FILE = "sessions.lock";
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  /**
+   * {@code length, crc32}
+   */
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+  private static final int TYPE_OFFSET = HEADER_SIZE;
+  private static final int EXPIRES_AT_OFFSET = TYPE_OFFSET + 1;
+  private static final int ID_OFFSET = EXPIRES_AT_OFFSET + Long.BYTES;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final Duration ttl;
+  private final Clock clock;
+  private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+  private final FileChannel lockChannel;
+  private Segment active;
+  private ScheduledExecutorService maintenanceExecutor;
+
+  /**
+   * Opens the store, replaying existing segments.
+   *
+   * @throws IllegalStateException if the directory is used by another store
+   */
+  public MappedSessionRepository(Path directory, int segmentSize, Duration ttl, Clock clock) throws IOException {
+    Assert.isTrue(segmentSize > HEADER_SIZE, "Segment size must be larger than " + HEADER_SIZE + " bytes");
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.ttl = ttl;
+    this.clock = clock;
+    Files.createDirectories(directory);
+    this.lockChannel = lock(directory);
+    try {
+      recover();
+    } catch (IOException | RuntimeException e) {
+      lockChannel.close();
+      throw e;
+    }
+  }
+
+  private static FileChannel lock(Path directory) throws IOException {
+    var channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    try {
+      // released when the channel is closed
+      if (channel.tryLock() != null) {
+        return channel;
+      }
+    } catch (OverlappingFileLockException e) {
+      // locked by a store of this process
+    }
+    channel.close();
+    throw new IllegalStateException("Session store directory " + directory + " is used by another store");
+  }
+
+  /**
+   * Runs {@link #maintain()} periodically until {@link #destroy() destroyed}.
+   */
+  public synchronized void startMaintenance(Duration interval) {
+    Assert.state(maintenanceExecutor == null, "Maintenance already started");
+    maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("session-store-"));
+    maintenanceExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        maintain();
+      } catch (RuntimeException e) {
+        LOG.warn("Session store maintenance failed", e);
+      }
+    }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Listener is called with the id of every session saved, deleted or dropped by expiry from now on. Compaction does
+   * not change sessions and is not reported. An expired session is reported by the next {@link #maintain()}, although
+   * it is not found from the moment it expired.
+   */
+  public void addListener(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public Optional<Session> findById(String id) {
+    var location = index.get(id);
+    if (location == null || location.isExpired(clock.millis())) {
+      return Optional.empty();
+    }
+    return Optional.of(location.read(id));
+  }
+
+  @Override
+  public void forEach(Consumer<? super Session> action) {
+    var now = clock.millis();
+    index.forEach((id, location) -> {
+      if (!location.isExpired(now)) {
+        action.accept(location.read(id));
+      }
+    });
+  }
+
+  @Override
+  public synchronized void save(Session session) {
+    append(PUT, session.getId(), session.getUserId(), clock.millis() + ttl.toMillis());
+  }
+
+  @Override
+  public synchronized void delete(String id) {
+    if (index.containsKey(id)) {
+      append(DELETE, id, "", 0);
+    }
+  }
+
+  @Override
+  public int count() {
+    return index.size();
+  }
+
+  /**
+   * Expires sessions, compacts sealed segments and flushes the active one to disk.
+   */
+  public synchronized void maintain() {
+    var now = clock.millis();
+    index.forEach((id, location) -> {
+      if (location.isExpired(now) && index.remove(id, location)) {
+        location.segment.liveBytes -= location.length;
+        listeners.forEach(it -> it.accept(id));
+      }
+    });
+
+    var sealed = new ArrayList<>(segments.headMap(active.sequence, false).values());
+    long sealedUsed = sealed.stream().mapToLong(it -> it.writePosition).sum();
+    long sealedLive = sealed.stream().mapToLong(it -> it.liveBytes).sum();
+    if (!sealed.isEmpty() && sealedLive * 2 < sealedUsed) {
+      compact(sealed);
+    }
+    active.buffer.force();
+  }
+
+  private void compact(List<Segment> sealed) {
+    LOG.info("Compacting {} session segments", sealed.size());
+    Set<Segment> sealedSet = new HashSet<>(sealed);
+    var record = new byte[0];
+    for (var entry : index.entrySet()) {
+      var location = entry.getValue();
+      if (!sealedSet.contains(location.segment)) {
+        continue;
+      }
+      if (record.length < location.length) {
+        record = new byte[location.length];
+      }
+      location.segment.read(location.offset, record, location.length);
+      var copy = write(record, location.length, location.expiresAt);
+      index.replace(entry.getKey(), location, copy);
+      location.segment.liveBytes -= location.length;
+    }
+    // copies must be durable before the originals are gone; older segments first, see class comment
+    active.buffer.force();
+    for (var segment : sealed) {
+      segments.remove(segment.sequence);
+      try {
+        Files.delete(segment.path);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void append(byte type, String id, String userId, long expiresAt) {
+    var idBytes = id.getBytes(StandardCharsets.UTF_8);
+    var userIdBytes = userId.getBytes(StandardCharsets.UTF_8);
+    Assert.isTrue(idBytes.length <= Short.MAX_VALUE && userIdBytes.length <= Short.MAX_VALUE, "Session too large");
+    var length = ID_OFFSET + Short.BYTES + idBytes.length + Short.BYTES + userIdBytes.length;
+    Assert.isTrue(length <= segmentSize, "Session " + id + " does not fit into a segment");
+
+    var record = ByteBuffer.allocate(length)
+      .putInt(length).putInt(0).put(type).putLong(expiresAt)
+      .putShort((short) idBytes.length).put(idBytes)
+      .putShort((short) userIdBytes.length).put(userIdBytes);
+    record.putInt(Integer.BYTES, checksum(record.array(), length));
+
+    var location = write(record.array(), length, expiresAt);
+    var replaced = type == PUT ? index.put(id, location) : index.remove(id);
+    if (replaced != null) {
+      replaced.segment.liveBytes -= replaced.length;
+    }
+    if (type == DELETE) {
+      location.segment.liveBytes -= length;
+    }
+    listeners.forEach(it -> it.accept(id));
+  }
+
+  private Location write(byte[] record, int length, long expiresAt) {
+    if (active.writePosition + length > active.size) {
+      active.buffer.force();
+      active = createSegment(active.sequence + 1);
+    }
+    var location = new Location(active, active.writePosition, length, expiresAt);
+    active.buffer.position(active.writePosition);
+    active.buffer.put(record, 0, length);
+    active.writePosition += length;
+    active.liveBytes += length;
+    return location;
+  }
+
+  private void recover() throws IOException {
+    try (var files = Files.list(directory)) {
+      files.map(path -> path.getFileName().toString())
+        .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+        .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+        .sorted()
+        .forEach(sequence -> segments.put(sequence, openSegment(sequence)));
+    }
+    if (segments.isEmpty()) {
+      active = createSegment(1);
+      return;
+    }
+
+    var now = clock.millis();
+    var record = new byte[0];
+    for (var segment : segments.values()) {
+      var offset = 0;
+      while (offset + HEADER_SIZE <= segment.size) {
+        var length = segment.buffer.getInt(offset);
+        if (length < ID_OFFSET || offset + length > segment.size) {
+          break;
+        }
+        if (record.length < length) {
+          record = new byte[length];
+        }
+        segment.read(offset, record, length);
+        if (checksum(record, length) != ByteBuffer.wrap(record).getInt(Integer.BYTES)) {
+          LOG.warn("Ignoring torn session record at {}:{}", segment.path, offset);
+          break;
+        }
+        replay(segment, offset, ByteBuffer.wrap(record, 0, length), now);
+        offset += length;
+      }
+      segment.writePosition = offset;
+    }
+
+    active = segments.lastEntry().getValue();
+    if (active.writePosition + Integer.BYTES <= active.size && active.buffer.getInt(active.writePosition) != 0) {
+      // left-overs of torn writes must not be mistaken for records appended later
+      var zeros = new byte[Math.min(64 * 1024, active.size - active.writePosition)];
+      active.buffer.position(active.writePosition);
+      while (active.buffer.hasRemaining()) {
+        active.buffer.put(zeros, 0, Math.min(zeros.length, active.buffer.remaining()));
+      }
+      active.buffer.force();
+    }
+    LOG.info("Recovered {} sessions from {} segments in {}", index.size(), segments.size(), directory);
+  }
+
+  private void replay(Segment segment, int offset, ByteBuffer record, long now) {
+    var length = record.remaining();
+    var type = record.get(TYPE_OFFSET);
+    var expiresAt = record.getLong(EXPIRES_AT_OFFSET);
+    var idLength = record.getShort(ID_OFFSET);
+    var id = new String(record.array(), ID_OFFSET + Short.BYTES, idLength, StandardCharsets.UTF_8);
+
+    segment.liveBytes += length;
+    var replaced = type == PUT && expiresAt > now
+      ? index.put(id, new Location(segment, offset, length, expiresAt))
+      : index.remove(id);
+    if (replaced != null) {
+      replaced.segment.liveBytes -= replaced.length;
+    }
+    if (type != PUT || expiresAt <= now) {
+      segment.liveBytes -= length;
+    }
+  }
+
+  private Segment createSegment(long sequence) {
+    var segment = openSegment(sequence);
+    segments.put(sequence, segment);
+    return segment;
+  }
+
+  private Segment openSegment(long sequence) {
+    var path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+      StandardOpenOption.WRITE)) {
+      var size = channel.size() > 0 ? (int) Math.min(channel.size(), Integer.MAX_VALUE) : segmentSize;
+      // the mapping stays valid after the channel is closed
+      return new Segment(sequence, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static int checksum(byte[] record, int length) {
+    var crc = new CRC32();
+    crc.update(record, TYPE_OFFSET, length - TYPE_OFFSET);
+    return (int) crc.getValue();
+  }
+
+  @Override
+  public synchronized void destroy() {
+    if (maintenanceExecutor != null) {
+      maintenanceExecutor.shutdownNow();
+    }
+    active.buffer.force();
+    try {
+      lockChannel.close();
+    } catch (IOException e) {
+      LOG.warn("Could not release the lock of {}", directory, e);
+    }
+  }
+
+  private static final class Segment {
+
+    private final long sequence;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    // guarded by the repository
+    private int writePosition;
+    private long liveBytes;
+
+    Segment(long sequence, Path path, MappedByteBuffer buffer, int size) {
+      this.sequence = sequence;
+      this.path = path;
+      this.buffer = buffer;
+      this.size = size;
+    }
+
+    /**
+     * Absolute reads only, the position belongs to the writer.
+     */
+    void read(int offset, byte[] destination, int length) {
+      for (int i = 0; i < length; i++) {
+        destination[i] = buffer.get(offset + i);
+      }
+    }
+
+  }
+
+  private static final class Location {
+
+    private final Segment segment;
+    private final int offset;
+    private final int length;
+    private final long expiresAt;
+
+    Location(Segment segment, int offset, int length, long expiresAt) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+      return expiresAt <= now;
+    }
+
+    Session read(String id) {
+      var buffer = segment.buffer;
+      var userIdOffset = offset + ID_OFFSET + Short.BYTES + buffer.getShort(offset + ID_OFFSET);
+      var userId = new byte[buffer.getShort(userIdOffset)];
+      for (int i = 0; i < userId.length; i++) {
+        userId[i] = buffer.get(userIdOffset + Short.BYTES + i);
+      }
+      return new Session(id, new String(userId, StandardCharsets.UTF_8));
+    }
+
+  }
+
+}
@@ -0,0 +1,212 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Person;
+import org.springframework.util.Assert;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Person store keeping records off-heap, so millions of persons add neither objects for the GC to trace nor to copy.
+ * <p>
+ * Records ({@code int nameLength, long id, byte[] utf8Name}) are appended to direct buffers ("chunks") and located
+ * through an open-addressing hash of primitive {@code long} ids to record addresses. {@link #findById(long)} is a
+ * single probe sequence, {@link #forEach(Consumer)} scans the chunks sequentially. Replacing a person appends a new
+ * record, the old one stays behind as garbage; there is no compaction.
+ * <p>
+ * Writes are serialized. Reads never lock: an address is published with release semantics after its record is
+ * written, and read with acquire semantics, so a reader that finds an address sees the complete record.
+ * <p>
+ * Direct memory is limited by {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size.
+ */
+public class OffHeapPersonRepository implements PersonRepository {
+
+  private static final VarHandle ADDRESSES = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+  private static final int END_OF_CHUNK = -1;
+  private static final int MAX_CHUNKS = 4096;
+  private static final int MAX_INDEX_CAPACITY = 1 << 30;
+
+  private final int chunkSize;
+  private final int chunkShift;
+  private final ByteBuffer[] chunks = new ByteBuffer[MAX_CHUNKS];
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+  private volatile Index index;
+  /**
+   * Address right after the last published record.
+   */
+  private volatile long end;
+  private volatile int size;
+  private int chunkCount;
+
+  /**
+   * @param chunkSize       bytes per direct buffer, a power of two
+   * @param initialCapacity expected number of persons
+   */
+  public OffHeapPersonRepository(int chunkSize, int initialCapacity) {
+    Assert.isTrue(Integer.bitCount(chunkSize) == 1 && chunkSize >= HEADER_SIZE,
+      "Chunk size must be a power of two of at least " + HEADER_SIZE + " bytes");
+    this.chunkSize = chunkSize;
+    this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+    this.index = new Index(indexCapacityFor(initialCapacity));
+  }
+
+  /**
+   * Listener is called with the id of every person saved from now on, after the change is visible to readers.
+   */
+  public void addListener(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public Optional<Person> findById(long id) {
+    var address = index.find(id);
+    return address == 0 ? Optional.empty() : Optional.of(read(address - 1));
+  }
+
+  @Override
+  public void forEach(Consumer<? super Person> action) {
+    var scanEnd = end;
+    if (scanEnd == 0) {
+      return;
+    }
+    var lastChunk = (int) ((scanEnd - 1) >>> chunkShift);
+    for (int chunkIndex = 0; chunkIndex <= lastChunk; chunkIndex++) {
+      var chunk = chunks[chunkIndex];
+      var limit = chunkIndex < lastChunk ? chunkSize : (int) (scanEnd - ((long) lastChunk << chunkShift));
+      var offset = 0;
+      while (limit - offset >= Integer.BYTES) {
+        var nameLength = chunk.getInt(offset);
+        if (nameLength == END_OF_CHUNK) {
+          break;
+        }
+        var address = ((long) chunkIndex << chunkShift) | offset;
+        // skip records replaced by a later save
+        if (index.find(chunk.getLong(offset + Integer.BYTES)) == address + 1) {
+          action.accept(read(address));
+        }
+        offset += HEADER_SIZE + nameLength;
+      }
+    }
+  }
+
+  @Override
+  public synchronized void save(Person person) {
+    var name = person.getName().getBytes(StandardCharsets.UTF_8);
+    var recordSize = HEADER_SIZE + name.length;
+    Assert.isTrue(recordSize <= chunkSize, "Person " + person.getId() + " does not fit into a chunk");
+
+    var chunk = chunkCount == 0 ? null : chunks[chunkCount - 1];
+    if (chunk == null || chunk.remaining() < recordSize) {
+      if (chunk != null && chunk.remaining() >= Integer.BYTES) {
+        chunk.putInt(END_OF_CHUNK);
+      }
+      Assert.state(chunkCount < MAX_CHUNKS, "Person store is full");
+      chunk = ByteBuffer.allocateDirect(chunkSize);
+      chunks[chunkCount++] = chunk;
+    }
+    var address = ((long) (chunkCount - 1) << chunkShift) | chunk.position();
+    chunk.putInt(name.length).putLong(person.getId()).put(name);
+
+    var currentIndex = index;
+    if (size + 1 > currentIndex.threshold) {
+      currentIndex = currentIndex.resize();
+      index = currentIndex;
+    }
+    if (currentIndex.put(person.getId(), address + 1)) {
+      size++;
+    }
+    end = address + recordSize;
+    listeners.forEach(it -> it.accept(String.valueOf(person.getId())));
+  }
+
+  @Override
+  public int count() {
+    return size;
+  }
+
+  private Person read(long address) {
+    var chunk = chunks[(int) (address >>> chunkShift)];
+    var offset = (int) (address & (chunkSize - 1));
+    var name = new byte[chunk.getInt(offset)];
+    var id = chunk.getLong(offset + Integer.BYTES);
+    for (int i = 0; i < name.length; i++) {
+      name[i] = chunk.get(offset + HEADER_SIZE + i);
+    }
+    return new Person(id, new String(name, StandardCharsets.UTF_8));
+  }
+
+  private static int indexCapacityFor(int expectedSize) {
+    var capacity = Integer.highestOneBit(Math.max(2 * expectedSize - 1, 1)) << 1;
+    return Math.min(capacity, MAX_INDEX_CAPACITY);
+  }
+
+  /**
+   * Linear probing table of ids and record addresses + 1, where 0 marks a free slot. Filled to at most half, so a
+   * probe sequence always ends at a free slot.
+   */
+  private static final class Index {
+
+    private final long[] keys;
+    private final long[] addresses;
+    private final int mask;
+    private final int threshold;
+
+    Index(int capacity) {
+      keys = new long[capacity];
+      addresses = new long[capacity];
+      mask = capacity - 1;
+      threshold = capacity / 2;
+    }
+
+    long find(long id) {
+      for (int slot = slot(id); ; slot = (slot + 1) & mask) {
+        var address = (long) ADDRESSES.getAcquire(addresses, slot);
+        if (address == 0 || keys[slot] == id) {
+          return address;
+        }
+      }
+    }
+
+    /**
+     * @return whether the id is new
+     */
+    boolean put(long id, long address) {
+      for (int slot = slot(id); ; slot = (slot + 1) & mask) {
+        if (addresses[slot] == 0) {
+          keys[slot] = id;
+          ADDRESSES.setRelease(addresses, slot, address);
+          return true;
+        }
+        if (keys[slot] == id) {
+          ADDRESSES.setRelease(addresses, slot, address);
+          return false;
+        }
+      }
+    }
+
+    Index resize() {
+      Assert.state(keys.length < MAX_INDEX_CAPACITY, "Person store index is full");
+      var resized = new Index(keys.length * 2);
+      for (int slot = 0; slot < keys.length; slot++) {
+        if (addresses[slot] != 0) {
+          resized.put(keys[slot], addresses[slot]);
+        }
+      }
+      return resized;
+    }
+
+    private int slot(long id) {
+      var hash = id * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+  }
+
+}
@@ -0,0 +1,39 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Person;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public interface PersonRepository extends BatchLookup<Person>, Scannable<Person> {
+
+  Optional<Person> findById(long id);
+
+  /**
+   * @return empty for unknown and non-numeric ids
+   */
+  default Optional<Person> findById(String id) {
+    try {
+      return findById(Long.parseLong(id));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  default Map<String, Person> findAllById(Collection<String> ids) {
+    Map<String, Person> result = new LinkedHashMap<>();
+    ids.forEach(id -> findById(id).ifPresent(person -> result.put(id, person)));
+    return result;
+  }
+
+  /**
+   * Inserts the person or replaces the one with the same id.
+   */
+  void save(Person person);
+
+  int count();
+
+}
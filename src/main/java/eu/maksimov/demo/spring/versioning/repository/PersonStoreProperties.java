@@ -0,0 +1,46 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties("versioning.person-store")
+public class PersonStoreProperties {
+
+  /**
+   * Size of each off-heap buffer records are appended to.
+   */
+  private DataSize chunkSize = DataSize.ofMegabytes(16);
+  /**
+   * Expected number of persons, the index grows beyond it.
+   */
+  private int initialCapacity = 16 * 1024;
+  /**
+   * Number of demo persons with ids {@code 1..seedCount} stored on startup.
+   */
+  private int seedCount = 10_000;
+
+  public DataSize getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(DataSize chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public int getInitialCapacity() {
+    return initialCapacity;
+  }
+
+  public void setInitialCapacity(int initialCapacity) {
+    this.initialCapacity = initialCapacity;
+  }
+
+  public int getSeedCount() {
+    return seedCount;
+  }
+
+  public void setSeedCount(int seedCount) {
+    this.seedCount = seedCount;
+  }
+
+}
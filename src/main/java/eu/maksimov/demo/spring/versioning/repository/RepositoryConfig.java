@@ -0,0 +1,58 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.maksimov.demo.spring.versioning.caching.ResourceVersions;
+import eu.maksimov.demo.spring.versioning.model.Person;
+import eu.maksimov.demo.spring.versioning.model.Session;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties({BulkProperties.class, PersonStoreProperties.class, SessionStoreProperties.class})
+public class RepositoryConfig {
+
+  @Bean
+  public PersonRepository personRepository(PersonStoreProperties properties, ResourceVersions resourceVersions) {
+    var repository = new OffHeapPersonRepository(
+      Math.toIntExact(properties.getChunkSize().toBytes()), properties.getInitialCapacity()
+    );
+    for (long id = 1; id <= properties.getSeedCount(); id++) {
+      repository.save(new Person(id, "Person " + id));
+    }
+    // seeds need no stamps, resources that were never touched share the initial one
+    repository.addListener(id -> {
+      resourceVersions.touch("/person/" + id);
+      resourceVersions.touch("/person");
+    });
+    resourceVersions.addLookup("/person", id -> repository.findById(id).isPresent());
+    return repository;
+  }
+
+  @Bean
+  public SessionRepository sessionRepository(SessionStoreProperties properties, ResourceVersions resourceVersions)
+    throws IOException {
+    var repository = new MappedSessionRepository(
+      properties.getDirectory(), Math.toIntExact(properties.getSegmentSize().toBytes()), properties.getTtl(),
+      Clock.systemUTC()
+    );
+    if (repository.count() == 0) {
+      for (int id = 1; id <= properties.getSeedCount(); id++) {
+        repository.save(new Session(String.valueOf(id), "user-" + id));
+      }
+    }
+    repository.addListener(id -> resourceVersions.touch("/session/" + id));
+    resourceVersions.addLookup("/session", id -> repository.findById(id).isPresent());
+    repository.startMaintenance(properties.getMaintenanceInterval());
+    return repository;
+  }
+
+  @Bean
+  public BulkLoader bulkLoader(BulkProperties properties, ObjectMapper objectMapper) {
+    return new BulkLoader(properties, objectMapper);
+  }
+
+}
@@ -0,0 +1,15 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Data access streaming over all records without materializing them as a collection.
+ *
+ * @param <T> record type
+ */
+@FunctionalInterface
+public interface Scannable<T> {
+
+  void forEach(Consumer<? super T> action);
+
+}
@@ -0,0 +1,33 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Session;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public interface SessionRepository extends BatchLookup<Session>, Scannable<Session> {
+
+  /**
+   * @return empty for unknown and expired sessions
+   */
+  Optional<Session> findById(String id);
+
+  @Override
+  default Map<String, Session> findAllById(Collection<String> ids) {
+    Map<String, Session> result = new LinkedHashMap<>();
+    ids.forEach(id -> findById(id).ifPresent(session -> result.put(id, session)));
+    return result;
+  }
+
+  /**
+   * Inserts the session or replaces the one with the same id, in both cases starting a new time to live.
+   */
+  void save(Session session);
+
+  void delete(String id);
+
+  int count();
+
+}
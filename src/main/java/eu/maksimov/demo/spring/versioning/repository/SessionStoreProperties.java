@@ -0,0 +1,74 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.session-store")
+public class SessionStoreProperties {
+
+  /**
+   * Directory of the segment files, created if missing. Only one instance can use a directory at a time, the others
+   * fail on startup.
+   */
+  private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "versioning-sessions");
+  /**
+   * Size of each memory-mapped segment file.
+   */
+  private DataSize segmentSize = DataSize.ofMegabytes(16);
+  /**
+   * Time to live of a session after it was saved.
+   */
+  private Duration ttl = Duration.ofHours(24);
+  /**
+   * Interval of expiry, compaction and flushing of the segments to disk.
+   */
+  private Duration maintenanceInterval = Duration.ofSeconds(10);
+  /**
+   * Number of demo sessions with ids {@code 1..seedCount} stored when the store is empty on startup.
+   */
+  private int seedCount = 10_000;
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  public DataSize getSegmentSize() {
+    return segmentSize;
+  }
+
+  public void setSegmentSize(DataSize segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public Duration getMaintenanceInterval() {
+    return maintenanceInterval;
+  }
+
+  public void setMaintenanceInterval(Duration maintenanceInterval) {
+    this.maintenanceInterval = maintenanceInterval;
+  }
+
+  public int getSeedCount() {
+    return seedCount;
+  }
+
+  public void setSeedCount(int seedCount) {
+    this.seedCount = seedCount;
+  }
+
+}
@@ -0,0 +1,174 @@
+package eu.maksimov.demo.spring.versioning.routing;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A versioned endpoint, e.g. pattern {@code /api/v2/person/{id}} is scope {@code api}, version {@code 2} and endpoint
+ * {@code /person/{id}}, served by a handler method.
+ */
+public final class Route {
+
+  /**
+   * Requested version of {@code /{scope}/latest/...} paths, see {@link #getRequestedVersion(String)}.
+   */
+  public static final int LATEST_VERSION = 0;
+  public static final int MAX_VERSION = 99;
+  private static final String LATEST = "latest";
+
+  private final String scope;
+  private final int version;
+  private final String endpoint;
+  private final String resource;
+  private final String pattern;
+  private final Set<RequestMethod> requestMethods;
+  private final HandlerMethod handlerMethod;
+
+  private Route(String scope, int version, String endpoint, String pattern, Set<RequestMethod> requestMethods,
+                HandlerMethod handlerMethod) {
+    this.scope = scope;
+    this.version = version;
+    this.endpoint = endpoint;
+    this.resource = getResource(scope, endpoint);
+    this.pattern = pattern;
+    this.requestMethods = requestMethods;
+    this.handlerMethod = handlerMethod;
+  }
+
+  /**
+   * @return route mapped for any request method, see {@link #of(String, Set, HandlerMethod)}
+   */
+  public static Optional<Route> of(String pattern, HandlerMethod handlerMethod) {
+    return of(pattern, Set.of(), handlerMethod);
+  }
+
+  /**
+   * @param requestMethods mapped request methods, empty for any
+   * @return route for a pattern of form {@code /{scope}/v{version}/{endpoint}}, empty if the pattern is not versioned
+   */
+  public static Optional<Route> of(String pattern, Set<RequestMethod> requestMethods, HandlerMethod handlerMethod) {
+    var segments = Arrays.stream(pattern.split("/")).filter(it -> !it.isBlank()).limit(2).toArray(String[]::new);
+    if (segments.length < 2 || !segments[1].matches("v\\d{1,2}")) {
+      return Optional.empty();
+    }
+    var versionSegment = "/" + segments[0] + "/" + segments[1];
+    var endpoint = pattern.substring(pattern.indexOf(versionSegment) + versionSegment.length());
+    return Optional.of(new Route(
+      segments[0], Integer.parseInt(segments[1].substring(1)), endpoint, pattern, Set.copyOf(requestMethods),
+      handlerMethod
+    ));
+  }
+
+  /**
+   * Parses the version without allocating, as it is done for every request.
+   *
+   * @param path request path within the servlet, e.g. {@code /api/latest/session/1}
+   * @return {@link #LATEST_VERSION} or {@code N} for {@code /{scope}/vN/...}, {@code -1} if the path is not versioned
+   */
+  public static int getRequestedVersion(String path) {
+    var versionStart = path.indexOf('/', 1) + 1;
+    if (versionStart == 0 || versionStart >= path.length()) {
+      return -1;
+    }
+    if (path.startsWith(LATEST, versionStart)) {
+      return isSegmentEnd(path, versionStart + LATEST.length()) ? LATEST_VERSION : -1;
+    }
+    if (path.charAt(versionStart) != 'v') {
+      return -1;
+    }
+    var version = 0;
+    var i = versionStart + 1;
+    while (i < path.length() && Character.isDigit(path.charAt(i)) && version <= MAX_VERSION) {
+      version = version * 10 + (path.charAt(i++) - '0');
+    }
+    return version > 0 && version <= MAX_VERSION && isSegmentEnd(path, i) ? version : -1;
+  }
+
+  private static boolean isSegmentEnd(String path, int index) {
+    return index == path.length() || path.charAt(index) == '/';
+  }
+
+  private static String getResource(String scope, String endpoint) {
+    var start = endpoint.startsWith("/") ? 1 : 0;
+    var end = endpoint.indexOf('/', start);
+    var resource = endpoint.substring(start, end < 0 ? endpoint.length() : end);
+    return resource.isEmpty() ? scope : resource;
+  }
+
+  public String getScope() {
+    return scope;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return version as used in paths and OpenAPI group names, e.g. {@code v2}
+   */
+  public String getVersionName() {
+    return "v" + version;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * @return first segment of the endpoint, e.g. {@code session} for {@code /session/{id}}, the scope if the endpoint
+   * is empty
+   */
+  public String getResource() {
+    return resource;
+  }
+
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+   * @return mapped request methods, empty for any
+   */
+  public Set<RequestMethod> getRequestMethods() {
+    return requestMethods;
+  }
+
+  /**
+   * @return whether the route serves {@code GET} requests
+   */
+  public boolean isGet() {
+    return requestMethods.isEmpty() || requestMethods.contains(RequestMethod.GET);
+  }
+
+  public HandlerMethod getHandlerMethod() {
+    return handlerMethod;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Route)) {
+      return false;
+    }
+    var route = (Route) o;
+    return pattern.equals(route.pattern) && handlerMethod.equals(route.handlerMethod);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pattern, handlerMethod);
+  }
+
+  @Override
+  public String toString() {
+    return pattern + " -> " + handlerMethod.getShortLogMessage();
+  }
+
+}
@@ -0,0 +1,100 @@
+package eu.maksimov.demo.spring.versioning.routing;
+
+import eu.maksimov.demo.spring.versioning.web.VersionedRequestMappingHandlerMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current {@link RouteTable} of all {@code (scope, version, endpoint) -> handler} entries.
+ * <p>
+ * Handlers can be registered and unregistered at runtime (plugin jars, feature-flagged versions). Every change
+ * builds a new snapshot and swaps it atomically, so readers of the snapshot never lock and a request that obtained a
+ * snapshot keeps a consistent view of it. Writers are serialized; listeners are notified with each new snapshot.
+ * <p>
+ * The handler mapping dispatches through the snapshot as well, see
+ * {@link VersionedRequestMappingHandlerMapping#setRouteTable(RouteTable)}, so lookups do not wait while a handler is
+ * being registered or unregistered.
+ */
+public class RouteRegistry implements ApplicationListener<ContextRefreshedEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RouteRegistry.class);
+
+  private final VersionedRequestMappingHandlerMapping handlerMapping;
+  private final List<Consumer<RouteTable>> listeners = new CopyOnWriteArrayList<>();
+  private volatile RouteTable snapshot = RouteTable.EMPTY;
+
+  public RouteRegistry(VersionedRequestMappingHandlerMapping handlerMapping) {
+    this.handlerMapping = handlerMapping;
+  }
+
+  public RouteTable getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Listener is called with the current snapshot right away and with every new one.
+   */
+  public synchronized void addListener(Consumer<RouteTable> listener) {
+    listeners.add(listener);
+    listener.accept(snapshot);
+  }
+
+  /**
+   * Registers the request mappings of a controller instance and publishes them in a new snapshot.
+   */
+  public synchronized void register(Object handler) {
+    LOG.info("Registering handler {}", handler.getClass().getName());
+    handlerMapping.registerHandler(handler);
+    refresh();
+  }
+
+  /**
+   * Unregisters the request mappings of a controller instance and publishes a snapshot without them.
+   */
+  public synchronized void unregister(Object handler) {
+    LOG.info("Unregistering handler {}", handler.getClass().getName());
+    handlerMapping.unregisterHandler(handler);
+    refresh();
+  }
+
+  @Override
+  public void onApplicationEvent(ContextRefreshedEvent event) {
+    refresh();
+  }
+
+  /**
+   * Rebuilds the snapshot from the handler mapping and dispatches through it.
+   */
+  public synchronized void refresh() {
+    List<Route> routes = new ArrayList<>();
+    Map<String, List<RequestMappingInfo>> mappingsByPath = new LinkedHashMap<>();
+    var handlerMethods = handlerMapping.getHandlerMethods();
+    handlerMethods.forEach((mapping, handlerMethod) -> {
+      var requestMethods = mapping.getMethodsCondition().getMethods();
+      mapping.getPatternsCondition().getPatterns().forEach(
+        pattern -> Route.of(pattern, requestMethods, handlerMethod).ifPresent(routes::add)
+      );
+      handlerMapping.getDirectPaths(mapping).forEach(
+        path -> mappingsByPath.computeIfAbsent(path, it -> new ArrayList<>()).add(mapping)
+      );
+    });
+    var newSnapshot = new RouteTable(routes, handlerMethods, mappingsByPath);
+    snapshot = newSnapshot;
+    handlerMapping.setRouteTable(newSnapshot);
+    LOG.debug("Published route table with {} routes, versions per scope: {}",
+      routes.size(), newSnapshot.getVersionsPerScope());
+
+    listeners.forEach(it -> it.accept(newSnapshot));
+  }
+
+}
@@ -0,0 +1,99 @@
+package eu.maksimov.demo.spring.versioning.routing;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * Immutable snapshot of all versioned routes and of the request mappings they were derived from, which the handler
+ * mapping dispatches through. Never modified once created, so it can be read without locking.
+ */
+public final class RouteTable {
+
+  public static final RouteTable EMPTY = new RouteTable(List.of());
+
+  private final List<Route> routes;
+  private final Map<Method, List<Route>> routesByMethod;
+  private final Map<String, SortedSet<Integer>> versionsPerScope;
+  private final Map<RequestMappingInfo, HandlerMethod> handlerMethods;
+  private final Map<String, List<RequestMappingInfo>> mappingsByPath;
+
+  RouteTable(Collection<Route> routes) {
+    this(routes, Map.of(), Map.of());
+  }
+
+  /**
+   * @param handlerMethods all request mappings, versioned or not, in registration order
+   * @param mappingsByPath request mappings by their paths without patterns
+   */
+  RouteTable(Collection<Route> routes, Map<RequestMappingInfo, HandlerMethod> handlerMethods,
+             Map<String, List<RequestMappingInfo>> mappingsByPath) {
+    this.routes = List.copyOf(routes);
+    this.handlerMethods = Collections.unmodifiableMap(new LinkedHashMap<>(handlerMethods));
+    Map<String, List<RequestMappingInfo>> mappings = new LinkedHashMap<>();
+    mappingsByPath.forEach((path, pathMappings) -> mappings.put(path, List.copyOf(pathMappings)));
+    this.mappingsByPath = Collections.unmodifiableMap(mappings);
+    this.routesByMethod = Map.copyOf(this.routes.stream()
+      .collect(groupingBy(it -> it.getHandlerMethod().getMethod(), toUnmodifiableList())));
+
+    Map<String, SortedSet<Integer>> versions = new TreeMap<>();
+    this.routes.forEach(it -> versions.computeIfAbsent(it.getScope(), scope -> new TreeSet<>()).add(it.getVersion()));
+    versions.replaceAll((scope, scopeVersions) -> Collections.unmodifiableSortedSet(scopeVersions));
+    this.versionsPerScope = Collections.unmodifiableMap(versions);
+  }
+
+  public List<Route> getRoutes() {
+    return routes;
+  }
+
+  /**
+   * @return routes served by the handler method, empty if it does not serve a versioned endpoint
+   */
+  public List<Route> getRoutes(HandlerMethod handlerMethod) {
+    // by method, the handler method of a request has its bean resolved and is not equal to the registered one
+    return routesByMethod.getOrDefault(handlerMethod.getMethod(), List.of());
+  }
+
+  /**
+   * @return the route of the handler method for the given pattern (as resolved by the handler mapping)
+   */
+  public Optional<Route> getRoute(HandlerMethod handlerMethod, String pattern) {
+    return getRoutes(handlerMethod).stream().filter(it -> it.getPattern().equals(pattern)).findFirst();
+  }
+
+  /**
+   * @return declared versions per scope, in ascending order
+   */
+  public Map<String, SortedSet<Integer>> getVersionsPerScope() {
+    return versionsPerScope;
+  }
+
+  /**
+   * @return all request mappings of the handler mapping, versioned or not
+   */
+  public Map<RequestMappingInfo, HandlerMethod> getHandlerMethods() {
+    return handlerMethods;
+  }
+
+  /**
+   * @param lookupPath path within the servlet, see {@code UrlPathHelper#getLookupPathForRequest}
+   * @return request mappings with exactly this path, empty if the path is only matched by patterns
+   */
+  public List<RequestMappingInfo> getMappings(String lookupPath) {
+    return mappingsByPath.getOrDefault(lookupPath, List.of());
+  }
+
+}
@@ -0,0 +1,23 @@
+package eu.maksimov.demo.spring.versioning.routing;
+
+import eu.maksimov.demo.spring.versioning.web.VersionedRequestMappingHandlerMapping;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+@Configuration
+public class RoutingConfig {
+
+  /**
+   * @param requestMappingHandlerMapping declared as {@link RequestMappingHandlerMapping} by Spring MVC, created as
+   *                                     {@link VersionedRequestMappingHandlerMapping} by our {@code WebMvcRegistrations}
+   */
+  @Bean
+  public RouteRegistry routeRegistry(
+    @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping requestMappingHandlerMapping
+  ) {
+    return new RouteRegistry((VersionedRequestMappingHandlerMapping) requestMappingHandlerMapping);
+  }
+
+}
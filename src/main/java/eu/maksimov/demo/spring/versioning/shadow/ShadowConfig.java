@@ -0,0 +1,46 @@
+package eu.maksimov.demo.spring.versioning.shadow;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Latency comparison of consecutive handler versions on sampled requests, enabled by
+ * {@code versioning.shadow.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "versioning.shadow.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShadowProperties.class)
+public class ShadowConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private ObjectProvider<RouteRegistry> routeRegistry;
+
+  @Autowired
+  private ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter;
+
+  @Autowired
+  private ShadowProperties shadowProperties;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Bean
+  public ShadowExecutor shadowExecutor() {
+    return new ShadowExecutor(shadowProperties, handlerAdapter, meterRegistry);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new ShadowInterceptor(routeRegistry, shadowExecutor(), shadowProperties));
+  }
+
+}
@@ -0,0 +1,228 @@
+package eu.maksimov.demo.spring.versioning.shadow;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import eu.maksimov.demo.spring.versioning.routing.RouteTable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Compares the latency of the handlers of version N and N+1 of an endpoint on the arguments of real requests.
+ * <p>
+ * For a sampled request to version N, both handlers are invoked with the arguments of the request on a separate
+ * pool, in random order, and their return values are discarded. Timing both handlers the same way, rather than timing
+ * the request itself, keeps serialization and the network out of the comparison. The response of the request is not
+ * affected, it is produced by the request thread as usual.
+ * <p>
+ * Only {@code GET} endpoints whose handler parameters are all simple values (path variables, request parameters) are
+ * compared, as such handlers can neither write the response nor read the body, and they must be free of side effects.
+ * Version N+1 must declare the same endpoint with the same parameters.
+ * <p>
+ * Meters: {@code versioning.shadow.latency} tagged with {@code endpoint}, {@code version}, {@code handler},
+ * {@code role} ({@code primary} for version N, {@code shadow} for N+1) and {@code exception}, as a percentile
+ * histogram; {@code versioning.shadow.comparisons} and {@code versioning.shadow.dropped}.
+ */
+public class ShadowExecutor implements DisposableBean {
+
+  private static final String LATENCY = "versioning.shadow.latency";
+
+  private final ObjectProvider<RequestMappingHandlerAdapter> handlerAdapterProvider;
+  private final MeterRegistry meterRegistry;
+  private final ThreadPoolExecutor executor;
+  private final LongAdder comparisons = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private volatile Comparisons current = new Comparisons(RouteTable.EMPTY);
+
+  /**
+   * @param handlerAdapterProvider resolved lazily, its argument resolvers are used for the compared handlers
+   */
+  public ShadowExecutor(ShadowProperties properties,
+                        ObjectProvider<RequestMappingHandlerAdapter> handlerAdapterProvider,
+                        MeterRegistry meterRegistry) {
+    this.handlerAdapterProvider = handlerAdapterProvider;
+    this.meterRegistry = meterRegistry;
+    this.executor = new ThreadPoolExecutor(
+      properties.getThreads(), properties.getThreads(), 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("shadow-"),
+      (task, pool) -> dropped.increment()
+    );
+    this.executor.allowCoreThreadTimeOut(true);
+    FunctionCounter.builder("versioning.shadow.comparisons", comparisons, LongAdder::sum)
+      .description("Sampled requests whose handlers were compared")
+      .register(meterRegistry);
+    FunctionCounter.builder("versioning.shadow.dropped", dropped, LongAdder::sum)
+      .description("Sampled requests not compared because the shadow pool was busy")
+      .register(meterRegistry);
+  }
+
+  /**
+   * @param routeTable table the route was resolved from, comparisons are cached per table
+   * @return {@code null} if the route has no version N+1 to compare with
+   */
+  @Nullable
+  public Comparison getComparison(RouteTable routeTable, Route route) {
+    var comparisons = current;
+    if (comparisons.routeTable != routeTable) {
+      comparisons = new Comparisons(routeTable);
+      current = comparisons;
+    }
+    var comparison = comparisons.byRoute.get(route);
+    if (comparison == null) {
+      comparison = comparisons.byRoute.computeIfAbsent(
+        route, it -> findShadowRoute(it, routeTable.getRoutes()).map(shadow -> createComparison(it, shadow))
+      );
+    }
+    return comparison.orElse(null);
+  }
+
+  /**
+   * @return the route of version N+1 with the same endpoint and parameters, empty if there is none or the route is
+   * not eligible for comparison
+   */
+  static Optional<Route> findShadowRoute(Route route, Collection<Route> routes) {
+    var method = route.getHandlerMethod().getMethod();
+    if (!route.isGet() || !Arrays.stream(method.getParameterTypes()).allMatch(ShadowExecutor::isValueType)) {
+      return Optional.empty();
+    }
+    List<Route> candidates = routes.stream()
+      .filter(it -> it.getScope().equals(route.getScope()) && it.getVersion() == route.getVersion() + 1
+        && it.getEndpoint().equals(route.getEndpoint()) && it.getRequestMethods().equals(route.getRequestMethods())
+        && hasSameParameters(it.getHandlerMethod().getMethod(), method))
+      .collect(toList());
+    if (candidates.size() > 1) {
+      // e.g. two mappings of the endpoint that differ in their params condition
+      candidates.removeIf(it -> !it.getHandlerMethod().getMethod().getName().equals(method.getName()));
+    }
+    return candidates.size() == 1 ? Optional.of(candidates.get(0)) : Optional.empty();
+  }
+
+  private static boolean isValueType(Class<?> type) {
+    return BeanUtils.isSimpleValueType(type) || Collection.class.isAssignableFrom(type);
+  }
+
+  private static boolean hasSameParameters(Method method, Method other) {
+    return Arrays.equals(method.getParameterTypes(), other.getParameterTypes())
+      && Arrays.deepEquals(method.getParameterAnnotations(), other.getParameterAnnotations());
+  }
+
+  private Comparison createComparison(Route primary, Route shadow) {
+    var handlerAdapter = handlerAdapterProvider.getObject();
+    return new Comparison(
+      new ShadowHandlerMethod(primary.getHandlerMethod(), handlerAdapter), getTags(primary, "primary"),
+      new ShadowHandlerMethod(shadow.getHandlerMethod(), handlerAdapter), getTags(shadow, "shadow")
+    );
+  }
+
+  private static Tags getTags(Route route, String role) {
+    var handlerMethod = route.getHandlerMethod();
+    return Tags.of(
+      "endpoint", route.getEndpoint(),
+      "version", route.getVersionName(),
+      "handler", handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName(),
+      "role", role
+    );
+  }
+
+  /**
+   * Resolves the arguments from the request on the calling thread and compares the handlers asynchronously.
+   * Requests whose arguments cannot be resolved are not compared, the regular handling answers them.
+   */
+  public void submit(Comparison comparison, NativeWebRequest request) {
+    Object[] args;
+    try {
+      args = comparison.primary.resolveArguments(request);
+    } catch (Exception e) {
+      return;
+    }
+    executor.execute(() -> compare(comparison, args));
+  }
+
+  private void compare(Comparison comparison, Object[] args) {
+    if (ThreadLocalRandom.current().nextBoolean()) {
+      invoke(comparison.primary, args, comparison.primaryTags);
+      invoke(comparison.shadow, args, comparison.shadowTags);
+    } else {
+      invoke(comparison.shadow, args, comparison.shadowTags);
+      invoke(comparison.primary, args, comparison.primaryTags);
+    }
+    comparisons.increment();
+  }
+
+  private void invoke(ShadowHandlerMethod handlerMethod, Object[] args, Tags tags) {
+    var exception = "None";
+    var startedNanos = System.nanoTime();
+    try {
+      handlerMethod.invoke(args);
+    } catch (Exception e) {
+      // e.g. 404 for an unknown id, timed like a regular result
+      exception = e.getClass().getSimpleName();
+    }
+    var elapsedNanos = System.nanoTime() - startedNanos;
+    Timer.builder(LATENCY)
+      .description("Handler invocations of compared versions on sampled requests")
+      .tags(tags)
+      .tag("exception", exception)
+      .publishPercentileHistogram()
+      .register(meterRegistry)
+      .record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Handlers of version N and N+1 of a route.
+   */
+  public static final class Comparison {
+
+    private final ShadowHandlerMethod primary;
+    private final Tags primaryTags;
+    private final ShadowHandlerMethod shadow;
+    private final Tags shadowTags;
+
+    private Comparison(ShadowHandlerMethod primary, Tags primaryTags, ShadowHandlerMethod shadow, Tags shadowTags) {
+      this.primary = primary;
+      this.primaryTags = primaryTags;
+      this.shadow = shadow;
+      this.shadowTags = shadowTags;
+    }
+
+  }
+
+  private static final class Comparisons {
+
+    private final RouteTable routeTable;
+    private final ConcurrentMap<Route, Optional<Comparison>> byRoute = new ConcurrentHashMap<>();
+
+    private Comparisons(RouteTable routeTable) {
+      this.routeTable = routeTable;
+    }
+
+  }
+
+}
@@ -0,0 +1,35 @@
+package eu.maksimov.demo.spring.versioning.shadow;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+/**
+ * Handler method whose arguments are resolved on the request thread and which is invoked later on another thread,
+ * after the request may have completed. Only the return value is produced, it is not written anywhere.
+ * <p>
+ * Arguments are resolved with the resolvers of the adapter, {@code @InitBinder} methods are not applied.
+ */
+class ShadowHandlerMethod extends InvocableHandlerMethod {
+
+  ShadowHandlerMethod(HandlerMethod handlerMethod, RequestMappingHandlerAdapter handlerAdapter) {
+    super(handlerMethod.createWithResolvedBean());
+    var argumentResolvers = new HandlerMethodArgumentResolverComposite();
+    argumentResolvers.addResolvers(handlerAdapter.getArgumentResolvers());
+    setHandlerMethodArgumentResolvers(argumentResolvers);
+    setDataBinderFactory(new ServletRequestDataBinderFactory(null, handlerAdapter.getWebBindingInitializer()));
+  }
+
+  Object[] resolveArguments(NativeWebRequest request) throws Exception {
+    return getMethodArgumentValues(request, new ModelAndViewContainer());
+  }
+
+  void invoke(Object[] args) throws Exception {
+    doInvoke(args);
+  }
+
+}
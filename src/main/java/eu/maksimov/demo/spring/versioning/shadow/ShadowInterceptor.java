@@ -0,0 +1,76 @@
+package eu.maksimov.demo.spring.versioning.shadow;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.warmup.WarmUpFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hands a sample of the successful {@code GET} requests to versioned routes to the {@link ShadowExecutor} once they
+ * are completed, so that the comparison neither delays the response nor runs for rejected or failed requests.
+ */
+public class ShadowInterceptor implements HandlerInterceptor {
+
+  private final ObjectProvider<RouteRegistry> routeRegistryProvider;
+  private final ShadowExecutor shadowExecutor;
+  private final double sampleRate;
+  private volatile RouteRegistry routeRegistry;
+
+  /**
+   * @param routeRegistryProvider resolved lazily, the registry depends on the handler mapping this interceptor is
+   *                              registered with
+   */
+  public ShadowInterceptor(ObjectProvider<RouteRegistry> routeRegistryProvider, ShadowExecutor shadowExecutor,
+                           ShadowProperties properties) {
+    this.routeRegistryProvider = routeRegistryProvider;
+    this.shadowExecutor = shadowExecutor;
+    this.sampleRate = Math.max(0, Math.min(1, properties.getSampleRate()));
+  }
+
+  /**
+   * Called once per request: after the request dispatch, or after the async dispatch of requests handed over to a
+   * bulkhead.
+   */
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                              @Nullable Exception ex) {
+    if (ex != null || !(handler instanceof HandlerMethod) || !isSuccessful(response)
+      || (request.getDispatcherType() != DispatcherType.REQUEST && request.getDispatcherType() != DispatcherType.ASYNC)
+      || !HttpMethod.GET.matches(request.getMethod()) || WarmUpFilter.isWarmUp(request)
+      || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    var pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern == null) {
+      return;
+    }
+    var routeTable = getRouteRegistry().getSnapshot();
+    routeTable.getRoute((HandlerMethod) handler, pattern)
+      .map(route -> shadowExecutor.getComparison(routeTable, route))
+      .ifPresent(comparison -> shadowExecutor.submit(comparison, new ServletWebRequest(request, response)));
+  }
+
+  private static boolean isSuccessful(HttpServletResponse response) {
+    return response.getStatus() >= 200 && response.getStatus() < 300;
+  }
+
+  private RouteRegistry getRouteRegistry() {
+    var registry = routeRegistry;
+    if (registry == null) {
+      registry = routeRegistryProvider.getObject();
+      routeRegistry = registry;
+    }
+    return registry;
+  }
+
+}
@@ -0,0 +1,55 @@
+package eu.maksimov.demo.spring.versioning.shadow;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("versioning.shadow")
+public class ShadowProperties {
+
+  /**
+   * Compare the handlers of version N and N+1 on a sample of the requests to version N.
+   */
+  private boolean enabled;
+  /**
+   * Fraction of the eligible requests that are compared, between 0 and 1.
+   */
+  private double sampleRate = 0.01;
+  /**
+   * Threads invoking the compared handlers, shared by all requests. When all are busy and the queue is full, samples
+   * are dropped.
+   */
+  private int threads = 2;
+  private int queueCapacity = 64;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public void setSampleRate(double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+}
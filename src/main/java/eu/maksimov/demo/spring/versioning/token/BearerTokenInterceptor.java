@@ -0,0 +1,89 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Requires a valid {@code Authorization: Bearer} token for the routes of the protected resources, e.g.
+ * {@code /api/v1/session/{id}} and {@code /api/latest/session}, and attaches its {@link VerifiedToken} to the request.
+ * Answers {@code 401} with {@code WWW-Authenticate} otherwise.
+ * <p>
+ * An interceptor rather than a servlet filter, so that the entries of batch requests to protected resources are
+ * verified as well.
+ */
+public class BearerTokenInterceptor implements HandlerInterceptor {
+
+  private static final String BEARER = "Bearer ";
+
+  private final ObjectProvider<RouteRegistry> routeRegistryProvider;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final Set<String> resources;
+  private volatile RouteRegistry routeRegistry;
+
+  /**
+   * @param routeRegistryProvider resolved lazily, the registry depends on the handler mapping this interceptor is
+   *                              registered with
+   * @param resources             first endpoint segments of the protected routes, see
+   *                              {@link eu.maksimov.demo.spring.versioning.routing.Route#getResource()}
+   */
+  public BearerTokenInterceptor(ObjectProvider<RouteRegistry> routeRegistryProvider,
+                                VerifiedTokenCache verifiedTokenCache, Set<String> resources) {
+    this.routeRegistryProvider = routeRegistryProvider;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.resources = resources;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    throws IOException {
+    // verified on the initial dispatch, the token may have expired when the result of an async request is ready
+    if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+    var pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern == null) {
+      return true;
+    }
+    var route = getRouteRegistry().getSnapshot().getRoute((HandlerMethod) handler, pattern).orElse(null);
+    if (route == null || !resources.contains(route.getResource())) {
+      return true;
+    }
+
+    var authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+      response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+      response.sendError(HttpStatus.UNAUTHORIZED.value(), "Bearer token required");
+      return false;
+    }
+    try {
+      var token = verifiedTokenCache.verify(authorization.substring(BEARER.length()).trim());
+      request.setAttribute(VerifiedToken.ATTRIBUTE, token);
+      return true;
+    } catch (InvalidTokenException e) {
+      response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+      response.sendError(HttpStatus.UNAUTHORIZED.value(), e.getMessage());
+      return false;
+    }
+  }
+
+  private RouteRegistry getRouteRegistry() {
+    var registry = routeRegistry;
+    if (registry == null) {
+      registry = routeRegistryProvider.getObject();
+      routeRegistry = registry;
+    }
+    return registry;
+  }
+
+}
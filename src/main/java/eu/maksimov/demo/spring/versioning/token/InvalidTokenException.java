@@ -0,0 +1,16 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+/**
+ * A bearer token that is malformed, not signed by a known key, expired or not meant for this application.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+  public InvalidTokenException(String message) {
+    super(message);
+  }
+
+  public InvalidTokenException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,220 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Public keys of a JSON Web Key Set file by key id ({@code kid}), parsed once, so that verifying a token costs the
+ * signature check only. Supports {@code RSA} keys ({@code RS256}) and {@code EC} keys on {@code P-256}
+ * ({@code ES256}).
+ * <p>
+ * The file is re-read when it was modified since, which picks up rotated and revoked keys without a restart. Its
+ * modification time is checked on lookups at most once per check interval, and right away when a token names an
+ * unknown key id. A file that cannot be read or parsed is ignored until it is modified again, the previous keys stay
+ * in use.
+ */
+public class KeySet {
+
+  private static final Logger LOG = LoggerFactory.getLogger(KeySet.class);
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final Resource resource;
+  private final long checkIntervalNanos;
+  private volatile Keys keys;
+  private volatile long nextCheckNanos;
+
+  /**
+   * @param checkInterval how often the modification time is checked on lookups
+   * @throws UncheckedIOException if the file cannot be read
+   * @throws IllegalStateException if a key is invalid
+   */
+  public KeySet(Resource resource, Duration checkInterval) {
+    this.resource = resource;
+    this.checkIntervalNanos = checkInterval.toNanos();
+    this.keys = read();
+    this.nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+  }
+
+  /**
+   * @return {@code null} if there is no such key
+   */
+  @Nullable
+  public Key get(String keyId) {
+    var now = System.nanoTime();
+    var current = now - nextCheckNanos >= 0 ? check(now) : keys;
+    var key = current.byId.get(keyId);
+    if (key == null && isModified(current)) {
+      key = reload(now).byId.get(keyId);
+    }
+    return key;
+  }
+
+  private synchronized Keys check(long now) {
+    // another thread may have checked meanwhile
+    return now - nextCheckNanos >= 0 ? reload(now) : keys;
+  }
+
+  private boolean isModified(Keys current) {
+    try {
+      return resource.lastModified() != current.lastModified;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private synchronized Keys reload(long now) {
+    nextCheckNanos = now + checkIntervalNanos;
+    var current = keys;
+    if (isModified(current)) {
+      try {
+        keys = read();
+      } catch (UncheckedIOException | IllegalStateException e) {
+        LOG.warn("Keeping the previous keys, cannot reload key set {}", resource, e);
+        keys = new Keys(getLastModified(), current.byId);
+      }
+    }
+    return keys;
+  }
+
+  private long getLastModified() {
+    try {
+      return resource.lastModified();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private Keys read() {
+    try {
+      var lastModified = resource.lastModified();
+      JsonNode keySet;
+      try (var in = resource.getInputStream()) {
+        keySet = OBJECT_MAPPER.readTree(in);
+      }
+      Map<String, Key> byId = new HashMap<>();
+      for (var jwk : keySet.path("keys")) {
+        var keyId = jwk.path("kid").asText(null);
+        if (keyId == null) {
+          throw new IllegalStateException("Key without kid in " + resource);
+        }
+        byId.put(keyId, parse(jwk, keyId));
+      }
+      return new Keys(lastModified, byId);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read key set " + resource, e);
+    }
+  }
+
+  private static Key parse(JsonNode jwk, String keyId) {
+    var keyType = jwk.path("kty").asText();
+    try {
+      if ("RSA".equals(keyType)) {
+        var spec = new RSAPublicKeySpec(decodeUnsigned(jwk, "n", keyId), decodeUnsigned(jwk, "e", keyId));
+        return new Key(keyId, "RS256", "SHA256withRSA", KeyFactory.getInstance("RSA").generatePublic(spec));
+      }
+      if ("EC".equals(keyType) && "P-256".equals(jwk.path("crv").asText())) {
+        var parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        var spec = new ECPublicKeySpec(
+          new ECPoint(decodeUnsigned(jwk, "x", keyId), decodeUnsigned(jwk, "y", keyId)),
+          parameters.getParameterSpec(ECParameterSpec.class)
+        );
+        // JWS carries ECDSA signatures as R || S, not DER
+        return new Key(
+          keyId, "ES256", "SHA256withECDSAinP1363Format", KeyFactory.getInstance("EC").generatePublic(spec)
+        );
+      }
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Invalid key " + keyId, e);
+    }
+    throw new IllegalStateException("Unsupported key " + keyId + ", expected kty RSA or EC with crv P-256");
+  }
+
+  private static BigInteger decodeUnsigned(JsonNode jwk, String member, String keyId) {
+    var value = jwk.path(member).asText(null);
+    if (value == null) {
+      throw new IllegalStateException("Key " + keyId + " has no " + member);
+    }
+    return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+  }
+
+  /**
+   * A parsed public key and the JWS algorithm it is used with.
+   */
+  public static final class Key {
+
+    private final String id;
+    private final String algorithm;
+    private final String signatureAlgorithm;
+    private final PublicKey publicKey;
+
+    private Key(String id, String algorithm, String signatureAlgorithm, PublicKey publicKey) {
+      this.id = id;
+      this.algorithm = algorithm;
+      this.signatureAlgorithm = signatureAlgorithm;
+      this.publicKey = publicKey;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * @return JWS {@code alg}, e.g. {@code RS256}
+     */
+    public String getAlgorithm() {
+      return algorithm;
+    }
+
+    /**
+     * @return {@code true} if the signature of {@code signingInput} is valid
+     */
+    public boolean verify(byte[] signingInput, byte[] signature) {
+      try {
+        // Signature instances are stateful, one per verification
+        var verifier = Signature.getInstance(signatureAlgorithm);
+        verifier.initVerify(publicKey);
+        verifier.update(signingInput);
+        return verifier.verify(signature);
+      } catch (GeneralSecurityException e) {
+        return false;
+      }
+    }
+
+  }
+
+  private static final class Keys {
+
+    private final long lastModified;
+    private final Map<String, Key> byId;
+
+    private Keys(long lastModified, Map<String, Key> byId) {
+      this.lastModified = lastModified;
+      this.byId = byId;
+    }
+
+  }
+
+}
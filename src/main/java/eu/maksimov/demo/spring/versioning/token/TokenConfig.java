@@ -0,0 +1,48 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Clock;
+import java.util.Set;
+
+/**
+ * Bearer token verification of the protected resources, enabled by {@code versioning.token.enabled}. Ordered first, so
+ * that its interceptor runs before the others, e.g. before a conditional {@code GET} answers {@code 304}.
+ */
+@Configuration
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "versioning.token.enabled", havingValue = "true")
+@EnableConfigurationProperties(TokenProperties.class)
+public class TokenConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private ObjectProvider<RouteRegistry> routeRegistry;
+
+  @Autowired
+  private TokenProperties tokenProperties;
+
+  @Bean
+  public VerifiedTokenCache verifiedTokenCache() {
+    var keySet = new KeySet(tokenProperties.getKeySet(), tokenProperties.getKeySetCheckInterval());
+    var verifier = new TokenVerifier(keySet, tokenProperties, Clock.systemUTC());
+    return new VerifiedTokenCache(verifier, tokenProperties.getCacheMaximumSize());
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(
+      new BearerTokenInterceptor(routeRegistry, verifiedTokenCache(), Set.copyOf(tokenProperties.getResources()))
+    );
+  }
+
+}
@@ -0,0 +1,110 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties("versioning.token")
+public class TokenProperties {
+
+  /**
+   * Require a bearer token signed by a key of the key set for the {@link #resources}.
+   */
+  private boolean enabled;
+  /**
+   * JSON Web Key Set file with the public RSA and EC (P-256) keys, re-read when it was modified.
+   */
+  private Resource keySet = new ClassPathResource("token-keys.json");
+  /**
+   * How often the key set file is checked for modifications, which bounds how long a removed key is still accepted.
+   */
+  private Duration keySetCheckInterval = Duration.ofSeconds(10);
+  /**
+   * Resources (first endpoint segment, e.g. {@code session}) served to verified tokens only.
+   */
+  private List<String> resources = List.of("session");
+  /**
+   * Required {@code iss} claim, any if not set.
+   */
+  private String issuer;
+  /**
+   * Required {@code aud} claim, any if not set.
+   */
+  private String audience;
+  /**
+   * Tolerated clock difference when checking {@code exp} and {@code nbf}.
+   */
+  private Duration clockSkew = Duration.ofSeconds(30);
+  /**
+   * Upper bound of cached verified tokens.
+   */
+  private int cacheMaximumSize = 100_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Resource getKeySet() {
+    return keySet;
+  }
+
+  public void setKeySet(Resource keySet) {
+    this.keySet = keySet;
+  }
+
+  public Duration getKeySetCheckInterval() {
+    return keySetCheckInterval;
+  }
+
+  public void setKeySetCheckInterval(Duration keySetCheckInterval) {
+    this.keySetCheckInterval = keySetCheckInterval;
+  }
+
+  public List<String> getResources() {
+    return resources;
+  }
+
+  public void setResources(List<String> resources) {
+    this.resources = resources;
+  }
+
+  public String getIssuer() {
+    return issuer;
+  }
+
+  public void setIssuer(String issuer) {
+    this.issuer = issuer;
+  }
+
+  public String getAudience() {
+    return audience;
+  }
+
+  public void setAudience(String audience) {
+    this.audience = audience;
+  }
+
+  public Duration getClockSkew() {
+    return clockSkew;
+  }
+
+  public void setClockSkew(Duration clockSkew) {
+    this.clockSkew = clockSkew;
+  }
+
+  public int getCacheMaximumSize() {
+    return cacheMaximumSize;
+  }
+
+  public void setCacheMaximumSize(int cacheMaximumSize) {
+    this.cacheMaximumSize = cacheMaximumSize;
+  }
+
+}
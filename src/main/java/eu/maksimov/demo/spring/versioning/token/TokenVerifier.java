@@ -0,0 +1,126 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Base64;
+
+/**
+ * Verifies compact JWS tokens (JWT): signature by a key of the {@link KeySet} with the algorithm of that key, and the
+ * {@code exp} (required), {@code nbf}, {@code iss} and {@code aud} claims. The {@code sub} claim is required.
+ */
+public class TokenVerifier {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final KeySet keySet;
+  private final String issuer;
+  private final String audience;
+  private final long clockSkewSeconds;
+  private final Clock clock;
+
+  public TokenVerifier(KeySet keySet, TokenProperties properties, Clock clock) {
+    this.keySet = keySet;
+    this.issuer = properties.getIssuer();
+    this.audience = properties.getAudience();
+    this.clockSkewSeconds = properties.getClockSkew().toSeconds();
+    this.clock = clock;
+  }
+
+  /**
+   * @throws InvalidTokenException if the token is not valid now
+   */
+  public VerifiedToken verify(String token) {
+    var headerEnd = token.indexOf('.');
+    var claimsEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+    if (claimsEnd < 0 || token.indexOf('.', claimsEnd + 1) >= 0) {
+      throw new InvalidTokenException("Malformed token");
+    }
+
+    var header = readJson(token, 0, headerEnd);
+    var keyId = header.path("kid").asText(null);
+    var key = keyId == null ? null : keySet.get(keyId);
+    if (key == null) {
+      throw new InvalidTokenException("Unknown key " + keyId);
+    }
+    if (!key.getAlgorithm().equals(header.path("alg").asText())) {
+      throw new InvalidTokenException("Algorithm does not match key " + keyId);
+    }
+    var signingInput = token.substring(0, claimsEnd).getBytes(StandardCharsets.US_ASCII);
+    if (!key.verify(signingInput, decode(token, claimsEnd + 1, token.length()))) {
+      throw new InvalidTokenException("Invalid signature");
+    }
+
+    var claims = readJson(token, headerEnd + 1, claimsEnd);
+    var now = clock.instant().getEpochSecond();
+    var expiresAt = claims.path("exp");
+    if (!expiresAt.isIntegralNumber()) {
+      throw new InvalidTokenException("Token has no exp");
+    }
+    var verified = new VerifiedToken(claims.path("sub").asText(null), expiresAt.asLong(), key);
+    if (!isValid(verified, now)) {
+      throw new InvalidTokenException("Token expired");
+    }
+    if (claims.path("nbf").isIntegralNumber() && now + clockSkewSeconds < claims.path("nbf").asLong()) {
+      throw new InvalidTokenException("Token not valid yet");
+    }
+    if (issuer != null && !issuer.equals(claims.path("iss").asText(null))) {
+      throw new InvalidTokenException("Unexpected issuer");
+    }
+    if (audience != null && !hasAudience(claims.path("aud"))) {
+      throw new InvalidTokenException("Unexpected audience");
+    }
+    if (verified.getSubject() == null) {
+      throw new InvalidTokenException("Token has no sub");
+    }
+    return verified;
+  }
+
+  /**
+   * @return {@code false} once the token expired, allowing for the clock skew, or once the key it was verified with
+   * was removed from or replaced in the key set
+   */
+  public boolean isValid(VerifiedToken token) {
+    return isValid(token, clock.instant().getEpochSecond()) && keySet.get(token.getKey().getId()) == token.getKey();
+  }
+
+  private boolean isValid(VerifiedToken token, long now) {
+    return now - clockSkewSeconds < token.getExpiresAt();
+  }
+
+  private boolean hasAudience(JsonNode claim) {
+    if (claim.isArray()) {
+      for (var element : claim) {
+        if (audience.equals(element.asText())) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return audience.equals(claim.asText(null));
+  }
+
+  private static JsonNode readJson(String token, int start, int end) {
+    try {
+      var json = OBJECT_MAPPER.readTree(decode(token, start, end));
+      if (json == null || !json.isObject()) {
+        throw new InvalidTokenException("Malformed token");
+      }
+      return json;
+    } catch (IOException e) {
+      throw new InvalidTokenException("Malformed token", e);
+    }
+  }
+
+  private static byte[] decode(String token, int start, int end) {
+    try {
+      return Base64.getUrlDecoder().decode(token.substring(start, end));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidTokenException("Malformed token", e);
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import org.springframework.lang.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Claims of a bearer token whose signature and validity were checked, attached to the request by the
+ * {@link BearerTokenInterceptor}.
+ */
+public final class VerifiedToken {
+
+  static final String ATTRIBUTE = VerifiedToken.class.getName();
+
+  private final String subject;
+  private final long expiresAt;
+  private final KeySet.Key key;
+
+  /**
+   * @param key key the signature was verified with
+   */
+  VerifiedToken(String subject, long expiresAt, KeySet.Key key) {
+    this.subject = subject;
+    this.expiresAt = expiresAt;
+    this.key = key;
+  }
+
+  /**
+   * @return token of the request, {@code null} if the resource does not require one
+   */
+  @Nullable
+  public static VerifiedToken get(HttpServletRequest request) {
+    return (VerifiedToken) request.getAttribute(ATTRIBUTE);
+  }
+
+  /**
+   * @return {@code sub} claim
+   */
+  public String getSubject() {
+    return subject;
+  }
+
+  /**
+   * @return {@code exp} claim, seconds since the epoch
+   */
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+
+  KeySet.Key getKey() {
+    return key;
+  }
+
+}
@@ -0,0 +1,103 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Results of the {@link TokenVerifier} by SHA-256 of the token until the token expires or its key is removed from
+ * the {@link KeySet}, so that the signature of a token is checked once rather than on every request. A hit costs
+ * hashing the token, far less than an RSA or ECDSA verification (see {@code TokenVerificationBenchmark}); the tokens
+ * themselves are not kept.
+ * <p>
+ * Failed verifications are not cached. When the cache is full, expired tokens are removed, and new tokens are
+ * verified without being cached while it is still full.
+ */
+public class VerifiedTokenCache {
+
+  private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
+  private final TokenVerifier verifier;
+  private final int maximumSize;
+  private final ConcurrentMap<TokenHash, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+  public VerifiedTokenCache(TokenVerifier verifier, int maximumSize) {
+    this.verifier = verifier;
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * @throws InvalidTokenException if the token is not valid now
+   */
+  public VerifiedToken verify(String token) {
+    var hash = TokenHash.of(token);
+    var verified = tokens.get(hash);
+    if (verified != null) {
+      if (verifier.isValid(verified)) {
+        return verified;
+      }
+      tokens.remove(hash, verified);
+    }
+
+    verified = verifier.verify(token);
+    if (tokens.size() >= maximumSize) {
+      tokens.values().removeIf(it -> !verifier.isValid(it));
+    }
+    if (tokens.size() < maximumSize) {
+      tokens.put(hash, verified);
+    }
+    return verified;
+  }
+
+  int size() {
+    return tokens.size();
+  }
+
+  private static final class TokenHash {
+
+    private final long first;
+    private final long second;
+    private final long third;
+    private final long fourth;
+
+    private TokenHash(long first, long second, long third, long fourth) {
+      this.first = first;
+      this.second = second;
+      this.third = third;
+      this.fourth = fourth;
+    }
+
+    static TokenHash of(String token) {
+      var digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+      return new TokenHash(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TokenHash)) {
+        return false;
+      }
+      var other = (TokenHash) o;
+      return first == other.first && second == other.second && third == other.third && fourth == other.fourth;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(first);
+    }
+
+  }
+
+}
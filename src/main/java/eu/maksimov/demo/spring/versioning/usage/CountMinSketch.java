@@ -0,0 +1,84 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.springframework.util.Assert;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estimates how often each value was added in {@code depth * width} counters, never under-estimating. With {@code n}
+ * additions in total, an estimate exceeds the true count by more than {@code e * n / width} with probability
+ * {@code e^-depth} at most.
+ * <p>
+ * Values are added by their 64-bit hash, rows are indexed by double hashing. Counters are atomic, so any number of
+ * threads can add without locking. Sketches of equal dimensions can be merged.
+ */
+public final class CountMinSketch {
+
+  private final int depth;
+  private final int width;
+  private final AtomicLongArray counters;
+
+  /**
+   * @param width counters per row, a power of two
+   */
+  public CountMinSketch(int depth, int width) {
+    Assert.isTrue(depth > 0, "Depth must be positive");
+    Assert.isTrue(width > 0 && Integer.bitCount(width) == 1, "Width must be a power of two");
+    this.depth = depth;
+    this.width = width;
+    this.counters = new AtomicLongArray(depth * width);
+  }
+
+  public void add(long hash) {
+    for (int row = 0; row < depth; row++) {
+      counters.getAndIncrement(index(hash, row));
+    }
+  }
+
+  public long estimate(long hash) {
+    var estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, counters.get(index(hash, row)));
+    }
+    return estimate;
+  }
+
+  /**
+   * @return {@code true} if both sketches have the same dimensions
+   */
+  public boolean isMergeable(CountMinSketch other) {
+    return other.depth == depth && other.width == width;
+  }
+
+  public void merge(CountMinSketch other) {
+    Assert.isTrue(isMergeable(other), "Cannot merge sketches of different dimensions");
+    for (int i = 0; i < counters.length(); i++) {
+      counters.getAndAdd(i, other.counters.get(i));
+    }
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(depth);
+    out.writeInt(width);
+    for (int i = 0; i < counters.length(); i++) {
+      out.writeLong(counters.get(i));
+    }
+  }
+
+  public static CountMinSketch read(DataInput in) throws IOException {
+    var sketch = new CountMinSketch(in.readInt(), in.readInt());
+    for (int i = 0; i < sketch.counters.length(); i++) {
+      sketch.counters.set(i, in.readLong());
+    }
+    return sketch;
+  }
+
+  private int index(long hash, int row) {
+    var combined = (int) hash + row * (int) (hash >>> 32);
+    return row * width + (combined & (width - 1));
+  }
+
+}
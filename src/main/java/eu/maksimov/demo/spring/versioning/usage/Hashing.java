@@ -0,0 +1,25 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+final class Hashing {
+
+  private Hashing() {
+  }
+
+  /**
+   * 64-bit FNV-1a over the chars, finished with the MurmurHash3 mixer so that all bits are usable by the sketches.
+   */
+  static long hash(CharSequence value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
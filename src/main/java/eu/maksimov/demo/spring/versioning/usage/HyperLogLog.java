@@ -0,0 +1,104 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.springframework.util.Assert;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Estimates the number of distinct values in {@code 2^precision} bytes, with a standard error of
+ * {@code 1.04 / sqrt(2^precision)} (1.6% for precision 12).
+ * <p>
+ * Values are added by their 64-bit hash. Registers are updated with compare-and-set, so any number of threads can add
+ * without locking. Sketches of equal precision can be merged, e.g. with a snapshot of a previous run.
+ */
+public final class HyperLogLog {
+
+  private static final VarHandle REGISTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog(int precision) {
+    Assert.isTrue(precision >= 4 && precision <= 18, "Precision must be between 4 and 18");
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public void add(long hash) {
+    var index = (int) (hash >>> (64 - precision));
+    // the guard bit limits the rank to 64 - precision + 1
+    var rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+    update(index, rank);
+  }
+
+  public long estimate() {
+    var registerCount = registers.length;
+    double sum = 0;
+    var zeros = 0;
+    for (int i = 0; i < registerCount; i++) {
+      var register = (byte) REGISTERS.getOpaque(registers, i);
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    var estimate = alpha(registerCount) * registerCount * registerCount / sum;
+    if (estimate <= 2.5 * registerCount && zeros > 0) {
+      // linear counting is more accurate for small cardinalities
+      estimate = registerCount * Math.log((double) registerCount / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public void merge(HyperLogLog other) {
+    Assert.isTrue(other.precision == precision, "Cannot merge sketches of different precision");
+    for (int i = 0; i < registers.length; i++) {
+      update(i, (byte) REGISTERS.getOpaque(other.registers, i));
+    }
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeByte(precision);
+    for (int i = 0; i < registers.length; i++) {
+      out.writeByte((byte) REGISTERS.getOpaque(registers, i));
+    }
+  }
+
+  public static HyperLogLog read(DataInput in) throws IOException {
+    var sketch = new HyperLogLog(in.readByte());
+    in.readFully(sketch.registers);
+    return sketch;
+  }
+
+  private void update(int index, byte rank) {
+    byte current;
+    do {
+      current = (byte) REGISTERS.getOpaque(registers, index);
+      if (current >= rank) {
+        return;
+      }
+    } while (!REGISTERS.compareAndSet(registers, index, current, rank));
+  }
+
+  private static double alpha(int registerCount) {
+    switch (registerCount) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / registerCount);
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Per-version caller analytics, enabled by {@code versioning.usage.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "versioning.usage.enabled", havingValue = "true")
+@EnableConfigurationProperties(UsageProperties.class)
+public class UsageConfig implements WebMvcConfigurer {
+
+  @Autowired
+  private ObjectProvider<RouteRegistry> routeRegistry;
+
+  @Autowired
+  private UsageProperties usageProperties;
+
+  @Bean
+  public UsageTracker usageTracker() {
+    var usageTracker = new UsageTracker(usageProperties);
+    usageTracker.startSnapshots(usageProperties.getSnapshotInterval());
+    return usageTracker;
+  }
+
+  @Bean
+  public UsageEndpoint usageEndpoint() {
+    return new UsageEndpoint(usageTracker());
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new UsageInterceptor(routeRegistry, usageTracker()));
+  }
+
+}
@@ -0,0 +1,45 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimated usage per resource, requested and resolved version at {@code /actuator/usage}, and requests of a single
+ * application at {@code /actuator/usage/{applicationId}}.
+ */
+@Endpoint(id = "usage")
+public class UsageEndpoint {
+
+  private final UsageTracker usageTracker;
+
+  public UsageEndpoint(UsageTracker usageTracker) {
+    this.usageTracker = usageTracker;
+  }
+
+  @ReadOperation
+  public List<VersionUsage> usages() {
+    return usageTracker.getUsages();
+  }
+
+  /**
+   * @return estimated requests keyed by {@code resource requestedVersion resolvedVersion}, combinations without
+   * requests of the application omitted
+   */
+  @ReadOperation
+  public Map<String, Long> applicationUsages(@Selector String applicationId) {
+    var requests = new LinkedHashMap<String, Long>();
+    for (var usage : usageTracker.getUsages()) {
+      var estimate = usage.getRequests(applicationId);
+      if (estimate > 0) {
+        requests.put(usage.getKey(), estimate);
+      }
+    }
+    return requests;
+  }
+
+}
@@ -0,0 +1,74 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import eu.maksimov.demo.spring.versioning.caller.CallerContext;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.warmup.WarmUpFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records every versioned request with its {@code X-Application-Id} and {@code X-User-Id} in the {@link UsageTracker},
+ * taken from the {@link CallerContext} if the request has one. Warm-up requests are not recorded.
+ */
+public class UsageInterceptor implements HandlerInterceptor {
+
+  static final String APPLICATION_ID_HEADER = "X-Application-Id";
+  static final String USER_ID_HEADER = "X-User-Id";
+
+  private final ObjectProvider<RouteRegistry> routeRegistryProvider;
+  private final UsageTracker usageTracker;
+  private volatile RouteRegistry routeRegistry;
+
+  /**
+   * @param routeRegistryProvider resolved lazily, the registry depends on the handler mapping this interceptor is
+   *                              registered with
+   */
+  public UsageInterceptor(ObjectProvider<RouteRegistry> routeRegistryProvider, UsageTracker usageTracker) {
+    this.routeRegistryProvider = routeRegistryProvider;
+    this.usageTracker = usageTracker;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // recorded once, not again when an asynchronous request is dispatched for its result
+    if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC
+      || WarmUpFilter.isWarmUp(request)) {
+      return true;
+    }
+    var pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    var lookupPath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+    if (pattern == null || lookupPath == null) {
+      return true;
+    }
+    var route = getRouteRegistry().getSnapshot().getRoute((HandlerMethod) handler, pattern).orElse(null);
+    if (route == null) {
+      return true;
+    }
+    var callerContext = CallerContext.get(request);
+    if (callerContext != null) {
+      usageTracker.record(route, lookupPath, callerContext.getApplicationId(), CallerContext.getUserId(request));
+    } else {
+      // batch entries and deployments without caller validation
+      usageTracker.record(
+        route, lookupPath, request.getHeader(APPLICATION_ID_HEADER), request.getHeader(USER_ID_HEADER)
+      );
+    }
+    return true;
+  }
+
+  private RouteRegistry getRouteRegistry() {
+    var registry = routeRegistry;
+    if (registry == null) {
+      registry = routeRegistryProvider.getObject();
+      routeRegistry = registry;
+    }
+    return registry;
+  }
+
+}
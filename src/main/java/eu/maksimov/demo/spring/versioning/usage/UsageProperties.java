@@ -0,0 +1,91 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.usage")
+public class UsageProperties {
+
+  /**
+   * Track distinct callers per resource, requested and resolved version.
+   */
+  private boolean enabled;
+  /**
+   * Snapshot merged on startup and rewritten periodically and on shutdown. Only one instance can use a snapshot file
+   * at a time, the others fail on startup.
+   */
+  private Path snapshotFile = Path.of(System.getProperty("java.io.tmpdir"), "versioning-usage.bin");
+  private Duration snapshotInterval = Duration.ofMinutes(1);
+  /**
+   * HyperLogLog registers are {@code 2^precision} bytes per sketch.
+   */
+  private int hllPrecision = 12;
+  private int cmsDepth = 4;
+  /**
+   * Count-min counters per row, a power of two.
+   */
+  private int cmsWidth = 1024;
+  /**
+   * Upper bound of tracked combinations, which bounds the memory.
+   */
+  private int maxCombinations = 1024;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Path getSnapshotFile() {
+    return snapshotFile;
+  }
+
+  public void setSnapshotFile(Path snapshotFile) {
+    this.snapshotFile = snapshotFile;
+  }
+
+  public Duration getSnapshotInterval() {
+    return snapshotInterval;
+  }
+
+  public void setSnapshotInterval(Duration snapshotInterval) {
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  public int getHllPrecision() {
+    return hllPrecision;
+  }
+
+  public void setHllPrecision(int hllPrecision) {
+    this.hllPrecision = hllPrecision;
+  }
+
+  public int getCmsDepth() {
+    return cmsDepth;
+  }
+
+  public void setCmsDepth(int cmsDepth) {
+    this.cmsDepth = cmsDepth;
+  }
+
+  public int getCmsWidth() {
+    return cmsWidth;
+  }
+
+  public void setCmsWidth(int cmsWidth) {
+    this.cmsWidth = cmsWidth;
+  }
+
+  public int getMaxCombinations() {
+    return maxCombinations;
+  }
+
+  public void setMaxCombinations(int maxCombinations) {
+    this.maxCombinations = maxCombinations;
+  }
+
+}
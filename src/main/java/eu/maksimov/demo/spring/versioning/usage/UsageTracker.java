@@ -0,0 +1,229 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks distinct applications and users, and requests per application, for every
+ * {@code (resource, requested version, resolved version)} combination in fixed memory.
+ * <p>
+ * Each combination is a {@link VersionUsage} of two {@link HyperLogLog}s and a {@link CountMinSketch}. Request threads
+ * find it through the resolved {@link Route} and the requested version without allocating, and update it without
+ * locking. The number of combinations is bounded, so is the memory.
+ * <p>
+ * Snapshots are written to a local file periodically and on shutdown, and merged into the sketches on startup, so
+ * counts survive restarts. A snapshot of another instance can be {@link #merge(Path) merged} as well, which must be
+ * done once only as request counts are added up. The snapshot file is locked while the tracker is open, so a second
+ * instance configured with the same file fails on startup instead of overwriting the counts of the first.
+ */
+public class UsageTracker implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UsageTracker.class);
+
+  private static final int SNAPSHOT_MAGIC = 0x56555331;
+  private static final String LATEST = "latest";
+
+  private final UsageProperties properties;
+  private final ConcurrentMap<String, VersionUsage> usages = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Route, AtomicReferenceArray<VersionUsage>> usagesPerRoute = new ConcurrentHashMap<>();
+  private final FileChannel lockChannel;
+  private ScheduledExecutorService snapshotExecutor;
+
+  /**
+   * Merges the snapshot file of a previous run, if any.
+   *
+   * @throws IllegalStateException if the snapshot file is used by another tracker
+   */
+  public UsageTracker(UsageProperties properties) {
+    this.properties = properties;
+    this.lockChannel = lock(properties.getSnapshotFile().toAbsolutePath());
+    if (Files.exists(properties.getSnapshotFile())) {
+      try {
+        merge(properties.getSnapshotFile());
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Ignoring usage snapshot {}", properties.getSnapshotFile(), e);
+      }
+    }
+  }
+
+  private static FileChannel lock(Path snapshotFile) {
+    var lockFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".lock");
+    try {
+      Files.createDirectories(lockFile.getParent());
+      var channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      try {
+        // released when the channel is closed
+        if (channel.tryLock() != null) {
+          return channel;
+        }
+      } catch (OverlappingFileLockException e) {
+        // locked by a tracker of this process
+      }
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    throw new IllegalStateException("Usage snapshot " + snapshotFile + " is used by another tracker");
+  }
+
+  /**
+   * Writes snapshots periodically until {@link #destroy() destroyed}.
+   */
+  public synchronized void startSnapshots(Duration interval) {
+    Assert.state(snapshotExecutor == null, "Snapshots already started");
+    snapshotExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("usage-snapshot-"));
+    snapshotExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        writeSnapshot();
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Writing usage snapshot failed", e);
+      }
+    }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param route         route resolved for the request
+   * @param lookupPath    path of the request, e.g. {@code /api/latest/session/1}
+   * @param applicationId {@code null} if not sent
+   * @param userId        {@code null} if not sent
+   */
+  public void record(Route route, String lookupPath, @Nullable String applicationId, @Nullable String userId) {
+    var requestedVersion = Route.getRequestedVersion(lookupPath);
+    if (requestedVersion < 0) {
+      return;
+    }
+    var usagesPerVersion = usagesPerRoute.get(route);
+    if (usagesPerVersion == null) {
+      usagesPerVersion = usagesPerRoute.computeIfAbsent(route, it -> new AtomicReferenceArray<>(Route.MAX_VERSION + 1));
+    }
+    var usage = usagesPerVersion.get(requestedVersion);
+    if (usage == null) {
+      usage = getUsage(route.getResource(), getVersionName(requestedVersion), route.getVersionName());
+      if (usage == null) {
+        return;
+      }
+      usagesPerVersion.set(requestedVersion, usage);
+    }
+    usage.record(applicationId, userId);
+  }
+
+  /**
+   * @return usages sorted by resource, requested and resolved version
+   */
+  public List<VersionUsage> getUsages() {
+    return usages.values().stream()
+      .sorted(Comparator.comparing(VersionUsage::getResource)
+        .thenComparing(VersionUsage::getRequestedVersion, Comparator.comparingInt(UsageTracker::getVersionOrder))
+        .thenComparing(VersionUsage::getResolvedVersion, Comparator.comparingInt(UsageTracker::getVersionOrder)))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Writes all sketches to the snapshot file, replacing it atomically.
+   */
+  public synchronized void writeSnapshot() throws IOException {
+    var file = properties.getSnapshotFile().toAbsolutePath();
+    Files.createDirectories(file.getParent());
+    var temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    var snapshot = List.copyOf(usages.values());
+    try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(snapshot.size());
+      for (var usage : snapshot) {
+        usage.write(out);
+      }
+    }
+    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Adds the sketches of a snapshot file to the current ones.
+   */
+  public synchronized void merge(Path snapshotFile) throws IOException {
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+      if (in.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException("Not a usage snapshot: " + snapshotFile);
+      }
+      var count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        var snapshot = VersionUsage.read(in);
+        var usage = getUsage(snapshot.getResource(), snapshot.getRequestedVersion(), snapshot.getResolvedVersion());
+        if (usage == null) {
+          continue;
+        }
+        try {
+          usage.merge(snapshot);
+        } catch (IllegalArgumentException e) {
+          // sketch dimensions changed since the snapshot was written
+          LOG.warn("Skipping usage {} of {}: {}", snapshot.getKey(), snapshotFile, e.getMessage());
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private VersionUsage getUsage(String resource, String requestedVersion, String resolvedVersion) {
+    var key = VersionUsage.getKey(resource, requestedVersion, resolvedVersion);
+    var usage = usages.get(key);
+    if (usage == null && usages.size() < properties.getMaxCombinations()) {
+      usage = usages.computeIfAbsent(
+        key, it -> new VersionUsage(resource, requestedVersion, resolvedVersion, properties)
+      );
+    }
+    return usage;
+  }
+
+  private static String getVersionName(int version) {
+    return version == Route.LATEST_VERSION ? LATEST : "v" + version;
+  }
+
+  private static int getVersionOrder(String versionName) {
+    return LATEST.equals(versionName) ? Integer.MAX_VALUE : Integer.parseInt(versionName.substring(1));
+  }
+
+  @Override
+  public synchronized void destroy() {
+    if (snapshotExecutor != null) {
+      snapshotExecutor.shutdownNow();
+    }
+    try {
+      writeSnapshot();
+    } catch (IOException e) {
+      LOG.warn("Writing usage snapshot failed", e);
+    }
+    try {
+      lockChannel.close();
+    } catch (IOException e) {
+      LOG.warn("Could not release the lock of usage snapshot {}", properties.getSnapshotFile(), e);
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.springframework.util.Assert;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage of one {@code (resource, requested version, resolved version)} combination, e.g. {@code /api/latest/session}
+ * served by {@code SessionV1Controller} is {@code (session, latest, v1)}.
+ */
+public final class VersionUsage {
+
+  private final String resource;
+  private final String requestedVersion;
+  private final String resolvedVersion;
+  private final LongAdder requests = new LongAdder();
+  private final HyperLogLog applications;
+  private final HyperLogLog users;
+  private final CountMinSketch requestsPerApplication;
+
+  VersionUsage(String resource, String requestedVersion, String resolvedVersion, UsageProperties properties) {
+    this(resource, requestedVersion, resolvedVersion,
+      new HyperLogLog(properties.getHllPrecision()), new HyperLogLog(properties.getHllPrecision()),
+      new CountMinSketch(properties.getCmsDepth(), properties.getCmsWidth()));
+  }
+
+  private VersionUsage(String resource, String requestedVersion, String resolvedVersion, HyperLogLog applications,
+                       HyperLogLog users, CountMinSketch requestsPerApplication) {
+    this.resource = resource;
+    this.requestedVersion = requestedVersion;
+    this.resolvedVersion = resolvedVersion;
+    this.applications = applications;
+    this.users = users;
+    this.requestsPerApplication = requestsPerApplication;
+  }
+
+  /**
+   * @param applicationId {@code null} if unknown
+   * @param userId        {@code null} if unknown
+   */
+  void record(String applicationId, String userId) {
+    requests.increment();
+    if (applicationId != null) {
+      var hash = Hashing.hash(applicationId);
+      applications.add(hash);
+      requestsPerApplication.add(hash);
+    }
+    if (userId != null) {
+      users.add(Hashing.hash(userId));
+    }
+  }
+
+  static String getKey(String resource, String requestedVersion, String resolvedVersion) {
+    return resource + ' ' + requestedVersion + ' ' + resolvedVersion;
+  }
+
+  String getKey() {
+    return getKey(resource, requestedVersion, resolvedVersion);
+  }
+
+  public String getResource() {
+    return resource;
+  }
+
+  public String getRequestedVersion() {
+    return requestedVersion;
+  }
+
+  public String getResolvedVersion() {
+    return resolvedVersion;
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getDistinctApplications() {
+    return applications.estimate();
+  }
+
+  public long getDistinctUsers() {
+    return users.estimate();
+  }
+
+  /**
+   * @return estimated requests of the application, possibly over-estimated
+   */
+  public long getRequests(String applicationId) {
+    return requestsPerApplication.estimate(Hashing.hash(applicationId));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the sketches differ in dimensions, nothing is merged then
+   */
+  void merge(VersionUsage other) {
+    Assert.isTrue(
+      other.applications.getPrecision() == applications.getPrecision()
+        && other.users.getPrecision() == users.getPrecision()
+        && requestsPerApplication.isMergeable(other.requestsPerApplication),
+      "Cannot merge usages of different sketch dimensions"
+    );
+    requests.add(other.requests.sum());
+    applications.merge(other.applications);
+    users.merge(other.users);
+    requestsPerApplication.merge(other.requestsPerApplication);
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeUTF(resource);
+    out.writeUTF(requestedVersion);
+    out.writeUTF(resolvedVersion);
+    out.writeLong(requests.sum());
+    applications.write(out);
+    users.write(out);
+    requestsPerApplication.write(out);
+  }
+
+  static VersionUsage read(DataInput in) throws IOException {
+    var resource = in.readUTF();
+    var requestedVersion = in.readUTF();
+    var resolvedVersion = in.readUTF();
+    var requests = in.readLong();
+    var usage = new VersionUsage(resource, requestedVersion, resolvedVersion,
+      HyperLogLog.read(in), HyperLogLog.read(in), CountMinSketch.read(in));
+    usage.requests.add(requests);
+    return usage;
+  }
+
+}
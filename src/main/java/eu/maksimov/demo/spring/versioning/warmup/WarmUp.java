@@ -0,0 +1,166 @@
+package eu.maksimov.demo.spring.versioning.warmup;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.routing.RouteTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays synthetic requests for every discovered {@code (scope, version)} path through the embedded server before
+ * the application reports ready, so that routing ({@code VersionedAntPathMatcher}) and message conversion are
+ * JIT-compiled before real traffic arrives.
+ * <p>
+ * Runs as an {@link ApplicationRunner}, which Spring Boot completes before the application is ready: its readiness
+ * state stays {@code REFUSING_TRAFFIC} until the warm-up is finished or timed out. Collection endpoints, which write
+ * the whole store, and token protected resources are not requested. The requests are marked by {@link WarmUpFilter}.
+ */
+public class WarmUp implements ApplicationRunner {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WarmUp.class);
+
+  private final WarmUpProperties properties;
+  private final RouteRegistry routeRegistry;
+  private final ApplicationContext context;
+  private final String secret;
+  private final Set<String> skippedResources;
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private volatile long total = -1;
+
+  /**
+   * @param secret           sent in the {@link WarmUpFilter#HEADER} header
+   * @param skippedResources resources that are not requested, see
+   *                         {@link eu.maksimov.demo.spring.versioning.routing.Route#getResource()}
+   */
+  public WarmUp(WarmUpProperties properties, RouteRegistry routeRegistry, ApplicationContext context, String secret,
+                Set<String> skippedResources) {
+    this.properties = properties;
+    this.routeRegistry = routeRegistry;
+    this.context = context;
+    this.secret = secret;
+    this.skippedResources = skippedResources;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!(context instanceof WebServerApplicationContext)) {
+      return;
+    }
+    var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    run(port, getWarmUpPaths(routeRegistry.getSnapshot(), properties.getUriVariableValue(), skippedResources));
+  }
+
+  /**
+   * @return for every scope and every requestable version (including {@code latest}) the {@code GET} endpoints it
+   * resolves to, with URI variables replaced by the given value, except collection endpoints and skipped resources
+   */
+  static List<String> getWarmUpPaths(RouteTable routeTable, String uriVariableValue, Set<String> skippedResources) {
+    Set<String> paths = new LinkedHashSet<>();
+    routeTable.getVersionsPerScope().forEach((scope, versions) -> {
+      List<String> versionNames = new ArrayList<>();
+      versions.forEach(version -> versionNames.add("v" + version));
+      versionNames.add("latest");
+
+      for (var versionName : versionNames) {
+        int requestedVersion = versionName.equals("latest")
+          ? Integer.MAX_VALUE
+          : Integer.parseInt(versionName.substring(1));
+        routeTable.getRoutes().stream()
+          .filter(it -> it.getScope().equals(scope) && it.getVersion() <= requestedVersion && it.isGet())
+          .filter(it -> !skippedResources.contains(it.getResource()) && !isCollection(it))
+          .map(it -> it.getEndpoint().replaceAll("\\{[^/}]+}", uriVariableValue))
+          .filter(endpoint -> !endpoint.contains("*"))
+          .forEach(endpoint -> paths.add("/" + scope + "/" + versionName + endpoint));
+      }
+    });
+    return List.copyOf(paths);
+  }
+
+  /**
+   * @return {@code true} for the endpoint of the whole resource, e.g. {@code getAll} of {@code /person}
+   */
+  private static boolean isCollection(Route route) {
+    var endpoint = route.getEndpoint();
+    return endpoint.isEmpty() || endpoint.equals("/" + route.getResource()) || endpoint.equals("/");
+  }
+
+  /**
+   * @return sent requests in percent of all, {@code 0} before the warm-up started
+   */
+  public double getProgress() {
+    var all = total;
+    return all < 0 ? 0 : all == 0 ? 100 : sent.get() * 100.0 / all;
+  }
+
+  private void run(int port, List<String> paths) {
+    if (paths.isEmpty()) {
+      total = 0;
+      return;
+    }
+    var startedTime = System.currentTimeMillis();
+    var deadline = startedTime + properties.getTimeout().toMillis();
+    total = (long) paths.size() * properties.getRequestsPerPath();
+    LOG.info("Warming up {} paths with {} requests", paths.size(), total);
+
+    var client = HttpClient.newHttpClient();
+    var next = new AtomicLong();
+    var done = new CountDownLatch(properties.getConcurrency());
+    for (int i = 0; i < properties.getConcurrency(); i++) {
+      var worker = new Thread(() -> {
+        try {
+          for (long index = next.getAndIncrement(); index < total && System.currentTimeMillis() < deadline;
+               index = next.getAndIncrement()) {
+            send(client, port, paths.get((int) (index % paths.size())));
+          }
+        } finally {
+          done.countDown();
+        }
+      }, "warm-up-" + i);
+      worker.setDaemon(true);
+      worker.start();
+    }
+
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    LOG.info("Warm-up finished: {} of {} requests ({} failed) in {} ms",
+      sent.get(), total, failed.get(), System.currentTimeMillis() - startedTime);
+  }
+
+  private void send(HttpClient client, int port, String path) {
+    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+      .header(WarmUpFilter.HEADER, secret)
+      .build();
+    try {
+      if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400) {
+        failed.incrementAndGet();
+      }
+    } catch (IOException e) {
+      failed.incrementAndGet();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failed.incrementAndGet();
+    }
+    sent.incrementAndGet();
+  }
+
+}
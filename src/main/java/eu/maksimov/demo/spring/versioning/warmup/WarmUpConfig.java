@@ -0,0 +1,59 @@
+package eu.maksimov.demo.spring.versioning.warmup;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.token.TokenProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+
+@Configuration
+@ConditionalOnProperty(name = "versioning.warmup.enabled", havingValue = "true")
+@EnableConfigurationProperties(WarmUpProperties.class)
+public class WarmUpConfig {
+
+  private final String secret = createSecret();
+
+  /**
+   * @param tokenProperties present if bearer tokens are enabled, the warm-up has none
+   */
+  @Bean
+  public WarmUp warmUp(WarmUpProperties properties, RouteRegistry routeRegistry, ApplicationContext context,
+                       ObjectProvider<TokenProperties> tokenProperties, MeterRegistry meterRegistry) {
+    var token = tokenProperties.getIfAvailable();
+    var warmUp = new WarmUp(
+      properties, routeRegistry, context, secret, token != null ? Set.copyOf(token.getResources()) : Set.of()
+    );
+    Gauge.builder("versioning.warmup.progress", warmUp, WarmUp::getProgress)
+      .description("Sent warm-up requests in percent")
+      .register(meterRegistry);
+    return warmUp;
+  }
+
+  /**
+   * First, so that the filters of other features see the mark.
+   */
+  @Bean
+  public FilterRegistrationBean<WarmUpFilter> warmUpFilter() {
+    var registration = new FilterRegistrationBean<>(new WarmUpFilter(secret));
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  private static String createSecret() {
+    var bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+}
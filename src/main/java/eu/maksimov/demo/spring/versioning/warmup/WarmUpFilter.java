@@ -0,0 +1,46 @@
+package eu.maksimov.demo.spring.versioning.warmup;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Marks the requests sent by {@link WarmUp}, recognized by a secret generated at startup that never leaves the
+ * process, so that they are not recorded as usage, do not adapt the concurrency limits and do not build prebuilt
+ * bodies. Clients cannot mark their requests, the mark is a request attribute.
+ */
+public class WarmUpFilter extends OncePerRequestFilter {
+
+  static final String HEADER = "X-Warm-Up";
+  private static final String ATTRIBUTE = WarmUpFilter.class.getName() + ".warmUp";
+
+  private final byte[] secret;
+
+  public WarmUpFilter(String secret) {
+    this.secret = secret.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * @return {@code true} if the request was sent by {@link WarmUp}
+   */
+  public static boolean isWarmUp(HttpServletRequest request) {
+    return request.getAttribute(ATTRIBUTE) != null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+    throws ServletException, IOException {
+    var header = request.getHeader(HEADER);
+    if (header != null && MessageDigest.isEqual(secret, header.getBytes(StandardCharsets.US_ASCII))) {
+      request.setAttribute(ATTRIBUTE, Boolean.TRUE);
+    }
+    filterChain.doFilter(request, response);
+  }
+
+}
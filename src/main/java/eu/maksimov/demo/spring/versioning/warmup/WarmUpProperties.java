@@ -0,0 +1,69 @@
+package eu.maksimov.demo.spring.versioning.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("versioning.warmup")
+public class WarmUpProperties {
+
+  /**
+   * Replay synthetic requests before reporting ready.
+   */
+  private boolean enabled;
+  /**
+   * Requests per warmed up path. Routing and message conversion are shared by all paths, so together they cross the
+   * JIT compilation thresholds.
+   */
+  private int requestsPerPath = 100;
+  private int concurrency = 4;
+  /**
+   * Ready after this time even if not all requests were sent.
+   */
+  private Duration timeout = Duration.ofSeconds(60);
+  /**
+   * Value used for every URI variable, e.g. {@code {id}}.
+   */
+  private String uriVariableValue = "1";
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getRequestsPerPath() {
+    return requestsPerPath;
+  }
+
+  public void setRequestsPerPath(int requestsPerPath) {
+    this.requestsPerPath = requestsPerPath;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public void setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  public String getUriVariableValue() {
+    return uriVariableValue;
+  }
+
+  public void setUriVariableValue(String uriVariableValue) {
+    this.uriVariableValue = uriVariableValue;
+  }
+
+}
@@ -0,0 +1,107 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.bulkhead.Bulkheads;
+import eu.maksimov.demo.spring.versioning.web.CoalescingInvocableHandlerMethod.InvocationKey;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands the invocation of requests admitted to a {@link eu.maksimov.demo.spring.versioning.bulkhead.Bulkhead} over
+ * to its threads: the arguments are resolved on the container thread, which is then released through asynchronous
+ * request processing, and the result is handled when the request is dispatched again.
+ * <p>
+ * Requests that cannot be processed asynchronously, e.g. batch entries, and handlers that write the response
+ * themselves are invoked on their own thread and only count against the capacity of the bulkhead. The dispatch that
+ * handles the result of such a handler would not know that the response was written and render a view instead.
+ * Like {@link CoalescingInvocableHandlerMethod}, identical concurrent {@code GET} invocations are coalesced if a
+ * {@link SingleFlight} is given.
+ */
+public class BulkheadInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+
+  /**
+   * Handlers returning these already release the container thread by themselves.
+   */
+  private static final List<Class<?>> ASYNC_RETURN_TYPES = List.of(
+    Callable.class, CompletionStage.class, ListenableFuture.class, DeferredResult.class, WebAsyncTask.class,
+    ResponseBodyEmitter.class, StreamingResponseBody.class
+  );
+  /**
+   * Parameters of handlers writing the response, see {@code ServletResponseMethodArgumentResolver}.
+   */
+  private static final List<Class<?>> RESPONSE_TYPES = List.of(ServletResponse.class, OutputStream.class, Writer.class);
+
+  private final Bulkheads bulkheads;
+  @Nullable
+  private final SingleFlight<InvocationKey> singleFlight;
+  private final boolean writesResponse;
+
+  public BulkheadInvocableHandlerMethod(HandlerMethod handlerMethod, Bulkheads bulkheads,
+                                        @Nullable SingleFlight<InvocationKey> singleFlight) {
+    super(handlerMethod);
+    this.bulkheads = bulkheads;
+    this.singleFlight = singleFlight;
+    this.writesResponse = Arrays.stream(getMethodParameters())
+      .anyMatch(parameter -> RESPONSE_TYPES.stream().anyMatch(it -> it.isAssignableFrom(parameter.getParameterType())));
+  }
+
+  @Override
+  public Object invokeForRequest(NativeWebRequest request, @Nullable ModelAndViewContainer mavContainer,
+                                 Object... providedArgs) throws Exception {
+    var servletRequest = request.getNativeRequest(HttpServletRequest.class);
+    var bulkhead = servletRequest != null ? bulkheads.getBulkhead(servletRequest) : null;
+    var coalesce = singleFlight != null && servletRequest != null && HttpMethod.GET.matches(servletRequest.getMethod());
+    var args = getMethodArgumentValues(request, mavContainer, providedArgs);
+    if (bulkhead == null || !servletRequest.isAsyncSupported() || writesResponse || isAsyncReturnType()) {
+      return invoke(args, coalesce);
+    }
+    var timedOut = new AtomicBoolean();
+    var task = new WebAsyncTask<>(
+      bulkhead.getTimeout().toMillis(), bulkhead.getExecutor(),
+      // the request was already answered if the task is dequeued after the timeout
+      () -> timedOut.get() ? null : invoke(args, coalesce)
+    );
+    task.onTimeout(() -> {
+      timedOut.set(true);
+      // the task is cancelled by the async manager, do not let it take up a queue slot until dequeued
+      bulkhead.purge();
+      // still answered with 503 by the default timeout handling
+      servletRequest.setAttribute(Bulkheads.REJECTED_ATTRIBUTE, bulkhead);
+      return CallableProcessingInterceptor.RESULT_NONE;
+    });
+    return task;
+  }
+
+  @Nullable
+  private Object invoke(Object[] args, boolean coalesce) throws Exception {
+    if (coalesce) {
+      return singleFlight.execute(new InvocationKey(getBean(), getMethod(), args), () -> doInvoke(args));
+    }
+    return doInvoke(args);
+  }
+
+  private boolean isAsyncReturnType() {
+    var returnType = getReturnType().getParameterType();
+    return ASYNC_RETURN_TYPES.stream().anyMatch(it -> it.isAssignableFrom(returnType));
+  }
+
+}
@@ -0,0 +1,76 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Routes {@code GET} handler invocations through a {@link SingleFlight}, so that identical concurrent requests
+ * (same resolved handler method, equal arguments) are executed once, no matter which version alias was requested.
+ * E.g. {@code /api/v2/person/42}, {@code /api/v3/person/42} and {@code /api/latest/person/42} share an execution
+ * as long as they all resolve to {@code PersonV3Controller.getById("42")}.
+ */
+public class CoalescingInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+
+  private final SingleFlight<InvocationKey> singleFlight;
+
+  public CoalescingInvocableHandlerMethod(HandlerMethod handlerMethod, SingleFlight<InvocationKey> singleFlight) {
+    super(handlerMethod);
+    this.singleFlight = singleFlight;
+  }
+
+  @Override
+  public Object invokeForRequest(NativeWebRequest request, @Nullable ModelAndViewContainer mavContainer,
+                                 Object... providedArgs) throws Exception {
+    var servletRequest = request.getNativeRequest(HttpServletRequest.class);
+    if (servletRequest == null || !HttpMethod.GET.matches(servletRequest.getMethod())) {
+      return super.invokeForRequest(request, mavContainer, providedArgs);
+    }
+
+    var args = getMethodArgumentValues(request, mavContainer, providedArgs);
+    return singleFlight.execute(new InvocationKey(getBean(), getMethod(), args), () -> doInvoke(args));
+  }
+
+  public static final class InvocationKey {
+
+    private final Object bean;
+    private final Method method;
+    private final List<Object> args;
+    private final int hashCode;
+
+    InvocationKey(Object bean, Method method, Object[] args) {
+      this.bean = bean;
+      this.method = method;
+      this.args = Arrays.asList(args);
+      this.hashCode = Objects.hash(System.identityHashCode(bean), method, this.args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof InvocationKey)) {
+        return false;
+      }
+      var that = (InvocationKey) o;
+      return bean == that.bean && method.equals(that.method) && args.equals(that.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+}
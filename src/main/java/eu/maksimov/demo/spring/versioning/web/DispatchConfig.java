@@ -0,0 +1,80 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.bulkhead.Bulkheads;
+import eu.maksimov.demo.spring.versioning.caching.PrebuiltResponses;
+import eu.maksimov.demo.spring.versioning.caching.ResourceVersions;
+import eu.maksimov.demo.spring.versioning.web.CoalescingInvocableHandlerMethod.InvocationKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Customizations of the handler invocation path.
+ * <p>
+ * Properties:
+ * <ul>
+ * <li>{@code versioning.coalescing.enabled} - collapse identical concurrent {@code GET} requests into one execution</li>
+ * <li>{@code versioning.prebuilt.enabled} - write the encoded bodies of
+ * {@link eu.maksimov.demo.spring.versioning.caching.PrebuiltResponse} handlers instead of invoking them</li>
+ * <li>{@code versioning.bulkhead.enabled} - invoke handlers on the bounded pool of their scope and version, see
+ * {@link eu.maksimov.demo.spring.versioning.bulkhead.BulkheadConfig}</li>
+ * </ul>
+ */
+@Configuration
+public class DispatchConfig {
+
+  @Bean
+  @ConditionalOnProperty(name = "versioning.coalescing.enabled", havingValue = "true")
+  public SingleFlight<InvocationKey> requestSingleFlight(MeterRegistry meterRegistry) {
+    var singleFlight = new SingleFlight<InvocationKey>();
+    FunctionCounter.builder("versioning.coalescing.executions", singleFlight, SingleFlight::getExecutions)
+      .description("Handler invocations actually executed")
+      .register(meterRegistry);
+    FunctionCounter.builder("versioning.coalescing.coalesced", singleFlight, SingleFlight::getCoalesced)
+      .description("Handler invocations served by an already in-flight identical invocation")
+      .register(meterRegistry);
+    Gauge.builder("versioning.coalescing.in-flight", singleFlight, SingleFlight::getInFlight)
+      .register(meterRegistry);
+    return singleFlight;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "versioning.prebuilt.enabled", havingValue = "true")
+  public PrebuiltResponses prebuiltResponses(ResourceVersions resourceVersions, MeterRegistry meterRegistry) {
+    var prebuiltResponses = new PrebuiltResponses(resourceVersions);
+    FunctionCounter.builder("versioning.prebuilt.hits", prebuiltResponses, PrebuiltResponses::getHits)
+      .description("Requests served with a prebuilt body")
+      .register(meterRegistry);
+    FunctionCounter.builder("versioning.prebuilt.builds", prebuiltResponses, PrebuiltResponses::getBuilds)
+      .description("Prebuilt bodies built by invoking the handler")
+      .register(meterRegistry);
+    return prebuiltResponses;
+  }
+
+  @Bean
+  public WebMvcRegistrations versionedWebMvcRegistrations(ObjectProvider<SingleFlight<InvocationKey>> singleFlight,
+                                                          ObjectProvider<PrebuiltResponses> prebuiltResponses,
+                                                          ObjectProvider<Bulkheads> bulkheads) {
+    return new WebMvcRegistrations() {
+      @Override
+      public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+        return new VersionedRequestMappingHandlerMapping();
+      }
+
+      @Override
+      public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new VersionedRequestMappingHandlerAdapter(
+          singleFlight.getIfAvailable(), prebuiltResponses.getIfAvailable(), bulkheads.getIfAvailable()
+        );
+      }
+    };
+  }
+
+}
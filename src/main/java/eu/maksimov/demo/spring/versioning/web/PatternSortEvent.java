@@ -0,0 +1,51 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of sorting the request mappings matching a request, which orders versioned patterns by their distance to
+ * the requested version. Only emitted when more than one mapping matches.
+ * <p>
+ * Emitted for most requests, hence disabled by default: enable {@code eu.maksimov.versioning.PatternSort} in the
+ * recording settings to record it.
+ */
+@Name("eu.maksimov.versioning.PatternSort")
+@Label("Versioned Pattern Sort")
+@Category({"Versioning", "Routing"})
+@Description("Sort of the request mappings matching a request path")
+@StackTrace(false)
+@Enabled(false)
+class PatternSortEvent extends Event {
+
+  @Label("Lookup Path")
+  String lookupPath;
+
+  @Label("Best Pattern")
+  String bestPattern;
+
+  @Label("Comparisons")
+  int comparisons;
+
+  /**
+   * Cheaper than {@link #isEnabled()} of a new instance, whose allocation is not reliably optimized away, and does
+   * not initialize Flight Recorder (hundreds of milliseconds) unless it already runs.
+   */
+  static boolean isRecorded() {
+    return FlightRecorder.isInitialized() && Type.INSTANCE.isEnabled();
+  }
+
+  private static final class Type {
+
+    static final EventType INSTANCE = EventType.getEventType(PatternSortEvent.class);
+
+  }
+
+}
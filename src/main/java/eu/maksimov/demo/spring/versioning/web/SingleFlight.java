@@ -0,0 +1,83 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses concurrent calls with equal keys into a single execution.
+ * <p>
+ * The first caller for a key (the leader) executes the call, every caller arriving while it is still in flight
+ * waits for and receives the very same result (or exception). The key is forgotten as soon as the call completes,
+ * so nothing is cached beyond the lifetime of a single execution.
+ *
+ * @param <K> key type, must implement {@code equals} and {@code hashCode}
+ */
+public class SingleFlight<K> {
+
+  private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  public Object execute(K key, Callable<?> call) throws Exception {
+    var future = new CompletableFuture<Object>();
+    var existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      coalesced.increment();
+      return await(existing);
+    }
+
+    executions.increment();
+    try {
+      var result = call.call();
+      future.complete(result);
+      return result;
+    } catch (Throwable e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private Object await(CompletableFuture<Object> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException | CompletionException e) {
+      var cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @return number of calls that were actually executed
+   */
+  public long getExecutions() {
+    return executions.sum();
+  }
+
+  /**
+   * @return number of calls that were served by an execution started by another caller
+   */
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * @return number of keys currently being executed
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+}
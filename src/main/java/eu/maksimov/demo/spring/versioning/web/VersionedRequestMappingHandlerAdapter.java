@@ -0,0 +1,86 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.bulkhead.Bulkheads;
+import eu.maksimov.demo.spring.versioning.caching.PrebuiltResponses;
+import eu.maksimov.demo.spring.versioning.warmup.WarmUpFilter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * {@link RequestMappingHandlerAdapter} that wraps handler invocation with the enabled dispatch features.
+ */
+public class VersionedRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+  @Nullable
+  private final SingleFlight<CoalescingInvocableHandlerMethod.InvocationKey> singleFlight;
+  @Nullable
+  private final PrebuiltResponses prebuiltResponses;
+  @Nullable
+  private final Bulkheads bulkheads;
+
+  public VersionedRequestMappingHandlerAdapter(
+    @Nullable SingleFlight<CoalescingInvocableHandlerMethod.InvocationKey> singleFlight,
+    @Nullable PrebuiltResponses prebuiltResponses,
+    @Nullable Bulkheads bulkheads
+  ) {
+    this.singleFlight = singleFlight;
+    this.prebuiltResponses = prebuiltResponses;
+    this.bulkheads = bulkheads;
+  }
+
+  /**
+   * Writes the prebuilt body of {@link eu.maksimov.demo.spring.versioning.caching.PrebuiltResponse} handlers if it is
+   * current, otherwise invokes the handler and keeps a copy of the body it produced, unless it is a warm-up request.
+   */
+  @Override
+  protected ModelAndView handleInternal(HttpServletRequest request, HttpServletResponse response,
+                                        HandlerMethod handlerMethod) throws Exception {
+    var handler = prebuiltResponses != null && HttpMethod.GET.matches(request.getMethod())
+      ? prebuiltResponses.getHandler(handlerMethod) : null;
+    if (handler == null) {
+      return super.handleInternal(request, response, handlerMethod);
+    }
+    if (prebuiltResponses.write(handler, request, response)) {
+      return null;
+    }
+    if (WarmUpFilter.isWarmUp(request)) {
+      return super.handleInternal(request, response, handlerMethod);
+    }
+
+    var generation = prebuiltResponses.getGeneration(handler);
+    var recorder = new ContentCachingResponseWrapper(response);
+    var modelAndView = super.handleInternal(request, recorder, handlerMethod);
+    if (modelAndView == null && recorder.getStatus() == HttpStatus.OK.value()) {
+      prebuiltResponses.put(
+        handler, request, generation, recorder.getContentType(), recorder.getContentAsByteArray()
+      );
+    }
+    recorder.copyBodyToResponse();
+    return modelAndView;
+  }
+
+  /**
+   * {@link eu.maksimov.demo.spring.versioning.caching.PrebuiltResponse} handlers are not handed over to bulkheads,
+   * their body is recorded from the response of the current dispatch.
+   */
+  @Override
+  protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+    if (bulkheads != null && (prebuiltResponses == null || prebuiltResponses.getHandler(handlerMethod) == null)) {
+      return new BulkheadInvocableHandlerMethod(handlerMethod, bulkheads, singleFlight);
+    }
+    if (singleFlight != null) {
+      return new CoalescingInvocableHandlerMethod(handlerMethod, singleFlight);
+    }
+    return super.createInvocableHandlerMethod(handlerMethod);
+  }
+
+}
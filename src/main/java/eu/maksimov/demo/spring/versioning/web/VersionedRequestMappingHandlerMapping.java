@@ -0,0 +1,178 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.routing.RouteTable;
+import org.springframework.lang.Nullable;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.condition.ProducesRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * {@link RequestMappingHandlerMapping} that can register and unregister whole controllers at runtime and records
+ * {@link PatternSortEvent}s.
+ * <p>
+ * Requests are dispatched through the {@link RouteTable} published by
+ * {@link eu.maksimov.demo.spring.versioning.routing.RouteRegistry} rather than through the registry of the
+ * superclass, which takes a read lock for every lookup and makes lookups wait while mappings change.
+ */
+public class VersionedRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
+
+  private static final String PATTERN_SORT_EVENT_ATTRIBUTE = PatternSortEvent.class.getName();
+
+  private volatile RouteTable routeTable = RouteTable.EMPTY;
+
+  /**
+   * Registers all request mappings declared by the given controller instance.
+   */
+  public void registerHandler(Object handler) {
+    detectHandlerMethods(handler);
+  }
+
+  /**
+   * Unregisters all request mappings served by the given controller instance.
+   */
+  public void unregisterHandler(Object handler) {
+    var mappings = getHandlerMethods().entrySet().stream()
+      .filter(it -> it.getValue().getBean() == handler)
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toList());
+    mappings.forEach(this::unregisterMapping);
+  }
+
+  /**
+   * Dispatches through the given table from now on.
+   */
+  public void setRouteTable(RouteTable routeTable) {
+    this.routeTable = routeTable;
+  }
+
+  /**
+   * @return paths of the mapping that are not patterns, looked up as they are
+   */
+  public List<String> getDirectPaths(RequestMappingInfo mapping) {
+    return getMappingPathPatterns(mapping).stream()
+      .filter(it -> !getPathMatcher().isPattern(it))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Until the first table is published, e.g. while the application starts, and for CORS pre-flight requests, whose
+   * ambiguous matches the superclass answers itself, the handler is looked up by the superclass.
+   */
+  @Override
+  protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
+    var table = routeTable;
+    if (table == RouteTable.EMPTY || CorsUtils.isPreFlightRequest(request)) {
+      return super.getHandlerInternal(request);
+    }
+    request.removeAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+    try {
+      var lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+      request.setAttribute(LOOKUP_PATH, lookupPath);
+      var handlerMethod = lookupHandlerMethod(table, lookupPath, request);
+      return handlerMethod != null ? handlerMethod.createWithResolvedBean() : null;
+    } finally {
+      ProducesRequestCondition.clearMediaTypesAttribute(request);
+    }
+  }
+
+  /**
+   * Same as {@code AbstractHandlerMethodMapping#lookupHandlerMethod}, on the mappings of the table.
+   */
+  @Nullable
+  private HandlerMethod lookupHandlerMethod(RouteTable table, String lookupPath, HttpServletRequest request)
+    throws Exception {
+    List<Match> matches = new ArrayList<>();
+    addMatches(table, table.getMappings(lookupPath), request, matches);
+    if (matches.isEmpty()) {
+      addMatches(table, table.getHandlerMethods().keySet(), request, matches);
+    }
+    if (matches.isEmpty()) {
+      return handleNoMatch(table.getHandlerMethods().keySet(), lookupPath, request);
+    }
+
+    var bestMatch = matches.get(0);
+    if (matches.size() > 1) {
+      var mappingComparator = getMappingComparator(request);
+      Comparator<Match> comparator = (match1, match2) -> mappingComparator.compare(match1.mapping, match2.mapping);
+      matches.sort(comparator);
+      bestMatch = matches.get(0);
+      var secondBestMatch = matches.get(1);
+      if (comparator.compare(bestMatch, secondBestMatch) == 0) {
+        throw new IllegalStateException("Ambiguous handler methods mapped for '" + request.getRequestURI() + "': {"
+          + bestMatch.handlerMethod.getMethod() + ", " + secondBestMatch.handlerMethod.getMethod() + "}");
+      }
+    }
+    request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, bestMatch.handlerMethod);
+    handleMatch(bestMatch.mapping, lookupPath, request);
+    return bestMatch.handlerMethod;
+  }
+
+  private void addMatches(RouteTable table, Collection<RequestMappingInfo> mappings, HttpServletRequest request,
+                          List<Match> matches) {
+    for (var mapping : mappings) {
+      var match = getMatchingMapping(mapping, request);
+      if (match != null) {
+        matches.add(new Match(match, table.getHandlerMethods().get(mapping)));
+      }
+    }
+  }
+
+  /**
+   * Called once per lookup with several matching mappings, right before they are sorted.
+   */
+  @Override
+  protected Comparator<RequestMappingInfo> getMappingComparator(HttpServletRequest request) {
+    var comparator = super.getMappingComparator(request);
+    if (!PatternSortEvent.isRecorded()) {
+      return comparator;
+    }
+    var event = new PatternSortEvent();
+    event.begin();
+    request.setAttribute(PATTERN_SORT_EVENT_ATTRIBUTE, event);
+    return (info1, info2) -> {
+      event.comparisons++;
+      return comparator.compare(info1, info2);
+    };
+  }
+
+  /**
+   * Called with the best mapping after the sort.
+   */
+  @Override
+  protected void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
+    var event = (PatternSortEvent) request.getAttribute(PATTERN_SORT_EVENT_ATTRIBUTE);
+    if (event != null) {
+      request.removeAttribute(PATTERN_SORT_EVENT_ATTRIBUTE);
+      event.end();
+      if (event.shouldCommit()) {
+        event.lookupPath = lookupPath;
+        event.bestPattern = info.getPatternsCondition().getPatterns().stream().findFirst().orElse(null);
+        event.commit();
+      }
+    }
+    super.handleMatch(info, lookupPath, request);
+  }
+
+  private static final class Match {
+
+    private final RequestMappingInfo mapping;
+    private final HandlerMethod handlerMethod;
+
+    private Match(RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+      this.mapping = mapping;
+      this.handlerMethod = handlerMethod;
+    }
+
+  }
+
+}
@@ -0,0 +1,275 @@
+package eu.maksimov.demo.spring.versioning.batch;
+
+import eu.maksimov.demo.spring.versioning.caller.CallerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.annotation.ResponseStatusExceptionResolver;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchExecutorTest {
+
+  private static final byte[] CBOR = {(byte) 0xA1, 0x61, 0x61, 0x01};
+
+  private final BatchProperties properties = new BatchProperties();
+  private final CountDownLatch slow = new CountDownLatch(1);
+  private BatchExecutor batchExecutor;
+
+  @AfterEach
+  void destroy() {
+    slow.countDown();
+    if (batchExecutor != null) {
+      batchExecutor.destroy();
+    }
+  }
+
+  @Test
+  void execute_entriesOfTheBatchVersion() {
+    var requests = List.of(new BatchRequest("get", "/person/1"), new BatchRequest("GET", "/session/2?x=a%20b"));
+
+    var v1 = batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v1", requests);
+    var v3 = batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v3", requests);
+
+    assertThat(v1).extracting(BatchResponse::getPath).containsExactly("/person/1", "/session/2?x=a%20b");
+    assertThat(v1).extracting(BatchResponse::getBody)
+      .containsExactly("GET /api/v1/person/1", "GET /api/v1/session/2 x=a b");
+    assertThat(v3).extracting(BatchResponse::getBody)
+      .containsExactly("GET /api/v3/person/1", "GET /api/v3/session/2 x=a b");
+    assertThat(v3).allSatisfy(it -> {
+      assertThat(it.getStatus()).isEqualTo(200);
+      assertThat(it.getContentType()).isEqualTo("text/plain;charset=UTF-8");
+      assertThat(it.isBase64()).isFalse();
+    });
+  }
+
+  @Test
+  void execute_failingEntries() {
+    var responses = batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v2", List.of(
+      new BatchRequest("GET", "/fail"), new BatchRequest("GET", "/missing"), new BatchRequest("GET", "/person/1"),
+      new BatchRequest("GET", "person/1"), new BatchRequest(null, "/person/1")
+    ));
+
+    assertThat(responses).extracting(BatchResponse::getStatus).containsExactly(500, 404, 200, 400, 400);
+    assertThat(responses.get(1).getBody()).isEqualTo("No such person");
+  }
+
+  @Test
+  void execute_entryBodiesAreRejected() {
+    var request = new BatchRequest("POST", "/echo");
+    request.setBody(Map.of("name", "x"));
+
+    var responses = batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v2", List.of(
+      request, new BatchRequest("POST", "/echo")
+    ));
+
+    assertThat(responses).extracting(BatchResponse::getStatus).containsExactly(400, 200);
+    // the sub-request body is empty, not the consumed batch request body
+    assertThat(responses.get(1).getBody()).isEqualTo("POST /api/v2/echo 0 bytes");
+  }
+
+  @Test
+  void execute_binaryBodiesAreBase64Encoded() {
+    var responses = batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v2", List.of(
+      new BatchRequest("GET", "/binary")
+    ));
+
+    assertThat(responses.get(0).getContentType()).isEqualTo("application/cbor");
+    assertThat(responses.get(0).isBase64()).isTrue();
+    assertThat(Base64.getDecoder().decode(responses.get(0).getBody())).isEqualTo(CBOR);
+  }
+
+  @Test
+  void execute_timeout() {
+    properties.setTimeout(Duration.ofMillis(100));
+
+    var responses = batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v2", List.of(
+      new BatchRequest("GET", "/slow"), new BatchRequest("GET", "/person/1")
+    ));
+
+    assertThat(responses).extracting(BatchResponse::getStatus).containsExactly(504, 200);
+  }
+
+  @Test
+  void execute_maxRequests() {
+    properties.setMaxRequests(2);
+    var requests = List.of(
+      new BatchRequest("GET", "/person/1"), new BatchRequest("GET", "/person/2"), new BatchRequest("GET", "/person/3")
+    );
+
+    assertThatThrownBy(() -> batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v2", requests))
+      .isInstanceOfSatisfying(ResponseStatusException.class,
+        it -> assertThat(it.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    assertThat(batchExecutor().execute(batchRequest(null), batchResponse(), "/api/v2", requests.subList(0, 2)))
+      .hasSize(2);
+  }
+
+  @Test
+  void execute_furtherEntriesCountAgainstTheCallerLimit() throws Exception {
+    var callerContext = callerContext(1);
+
+    var responses = batchExecutor().execute(batchRequest(callerContext), batchResponse(), "/api/v2", List.of(
+      new BatchRequest("GET", "/person/1"), new BatchRequest("GET", "/person/2"), new BatchRequest("GET", "/person/3")
+    ));
+
+    // the first entry is covered by the batch request, the second one takes the only request of the second
+    assertThat(responses).extracting(BatchResponse::getStatus).containsExactly(200, 200, 429);
+    assertThat(responses.get(2).getBody()).isEqualTo("Application app exceeded 1 requests per second");
+  }
+
+  @Test
+  void isTextual() {
+    assertThat(BatchExecutor.isTextual("text/plain")).isTrue();
+    assertThat(BatchExecutor.isTextual("application/json")).isTrue();
+    assertThat(BatchExecutor.isTextual("application/problem+json")).isTrue();
+    assertThat(BatchExecutor.isTextual("application/xml")).isTrue();
+    assertThat(BatchExecutor.isTextual("application/x-www-form-urlencoded;charset=UTF-8")).isTrue();
+    assertThat(BatchExecutor.isTextual("application/cbor")).isFalse();
+    assertThat(BatchExecutor.isTextual("application/x-jackson-smile")).isFalse();
+    assertThat(BatchExecutor.isTextual("not a media type")).isFalse();
+    assertThat(BatchExecutor.isTextual(null)).isFalse();
+  }
+
+  @Test
+  void bufferedResponse_sendErrorReplacesTheBody() throws Exception {
+    var response = new BufferedResponse(batchResponse());
+    response.setContentType("text/plain;charset=UTF-16");
+    response.getWriter().write("partial");
+
+    assertThat(new String(response.getBody(), response.getCharset())).isEqualTo("partial");
+    response.sendError(409, "Conflict");
+    assertThat(response.getStatus()).isEqualTo(409);
+    assertThat(response.isCommitted()).isTrue();
+    assertThat(new String(response.getBody(), StandardCharsets.UTF_16)).isEqualTo("Conflict");
+  }
+
+  private BatchExecutor batchExecutor() {
+    if (batchExecutor == null) {
+      var handlerAdapter = new TestHandlerAdapter();
+      batchExecutor = new BatchExecutor(
+        request -> new HandlerExecutionChain(handlerAdapter), handlerAdapter, new ResponseStatusExceptionResolver(),
+        properties
+      );
+    }
+    return batchExecutor;
+  }
+
+  /**
+   * @return context of the application {@code app}, the constructor is internal to the filter that creates it
+   */
+  private static CallerContext callerContext(int requestsPerSecond) throws Exception {
+    var constructor = CallerContext.class.getDeclaredConstructor(String.class, long.class, int.class);
+    constructor.setAccessible(true);
+    return constructor.newInstance("app", -1L, requestsPerSecond);
+  }
+
+  /**
+   * @return batch request without headers, other methods answer {@code null}, {@code false}, {@code 0} or nothing
+   */
+  private static HttpServletRequest batchRequest(CallerContext callerContext) {
+    Map<String, Object> attributes = new HashMap<>();
+    if (callerContext != null) {
+      attributes.put(CallerContext.class.getName(), callerContext);
+    }
+    return (HttpServletRequest) Proxy.newProxyInstance(
+      BatchExecutorTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getMethod":
+            return "POST";
+          case "getContextPath":
+            return "";
+          case "getLocale":
+            return Locale.ROOT;
+          case "getAttribute":
+            return attributes.get(args[0]);
+          default:
+            return defaultValue(method.getReturnType());
+        }
+      }
+    );
+  }
+
+  private static HttpServletResponse batchResponse() {
+    return (HttpServletResponse) Proxy.newProxyInstance(
+      BatchExecutorTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+      (proxy, method, args) -> defaultValue(method.getReturnType())
+    );
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == Enumeration.class) {
+      return Collections.emptyEnumeration();
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    return type == int.class ? 0 : null;
+  }
+
+  /**
+   * Answers {@code <method> <path> [<parameters>]} as text, except for the paths that fail, time out or are binary.
+   */
+  private class TestHandlerAdapter implements HandlerAdapter {
+
+    @Override
+    public boolean supports(Object handler) {
+      return true;
+    }
+
+    @Override
+    public ModelAndView handle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+      var path = request.getRequestURI();
+      if (path.endsWith("/fail")) {
+        throw new IllegalStateException("Failed");
+      }
+      if (path.endsWith("/missing")) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such person");
+      }
+      if (path.endsWith("/slow")) {
+        slow.await();
+      }
+      if (path.endsWith("/binary")) {
+        response.setContentType("application/cbor");
+        response.getOutputStream().write(CBOR);
+        return null;
+      }
+
+      var body = new StringBuilder(request.getMethod()).append(' ').append(path);
+      request.getParameterMap().forEach((name, values) -> body.append(' ').append(name).append('=').append(values[0]));
+      if (path.endsWith("/echo")) {
+        body.append(' ').append(request.getInputStream().readAllBytes().length).append(" bytes");
+      }
+      response.setContentType("text/plain;charset=UTF-8");
+      response.getWriter().write(body.toString());
+      return null;
+    }
+
+    @Override
+    public long getLastModified(HttpServletRequest request, Object handler) {
+      return -1;
+    }
+
+  }
+
+}
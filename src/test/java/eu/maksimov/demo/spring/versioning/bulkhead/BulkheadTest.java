@@ -0,0 +1,100 @@
+package eu.maksimov.demo.spring.versioning.bulkhead;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTest {
+
+  private final Bulkhead bulkhead = new Bulkhead("api-v1", 1, 2, Duration.ofSeconds(1));
+
+  @AfterEach
+  void shutdown() {
+    bulkhead.shutdown();
+  }
+
+  @Test
+  void tryAcquire_admitsThreadsPlusQueueCapacity() {
+    assertThat(bulkhead.tryAcquire()).isTrue();
+    assertThat(bulkhead.tryAcquire()).isTrue();
+    assertThat(bulkhead.tryAcquire()).isTrue();
+
+    assertThat(bulkhead.tryAcquire()).isFalse();
+    assertThat(bulkhead.getRejected()).isEqualTo(1);
+
+    bulkhead.release();
+    assertThat(bulkhead.tryAcquire()).isTrue();
+    assertThat(bulkhead.getAdmitted()).isEqualTo(3);
+  }
+
+  @Test
+  void getExecutor_queuesBeyondItsThreads() throws Exception {
+    var blocked = new CountDownLatch(1);
+    var started = new CountDownLatch(1);
+    bulkhead.getExecutor().execute(() -> {
+      started.countDown();
+      await(blocked);
+    });
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+    var queued = bulkhead.getExecutor().submit(() -> "done");
+
+    assertThat(bulkhead.getActiveThreads()).isEqualTo(1);
+    assertThat(bulkhead.getQueueDepth()).isEqualTo(1);
+    blocked.countDown();
+    assertThat(queued.get(1, TimeUnit.SECONDS)).isEqualTo("done");
+    assertThat(bulkhead.getQueueDepth()).isZero();
+  }
+
+  @Test
+  void getExecutor_queueIsBoundedByTheCapacity() throws Exception {
+    var blocked = new CountDownLatch(1);
+    var started = new CountDownLatch(1);
+    bulkhead.getExecutor().execute(() -> {
+      started.countDown();
+      await(blocked);
+    });
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+    List<Future<?>> queued = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      queued.add(bulkhead.getExecutor().submit(() -> "done"));
+    }
+
+    assertThatThrownBy(() -> bulkhead.getExecutor().submit(() -> "done"))
+      .isInstanceOf(RejectedExecutionException.class);
+    queued.forEach(it -> it.cancel(true));
+    bulkhead.purge();
+    assertThat(bulkhead.getQueueDepth()).isZero();
+    blocked.countDown();
+  }
+
+  @Test
+  void properties_perVersionOverrideDefaults() {
+    var properties = new BulkheadProperties();
+    var pool = new BulkheadProperties.Pool();
+    pool.setThreads(2);
+    properties.getVersions().put("api-v1", pool);
+
+    assertThat(properties.getThreads("api-v1")).isEqualTo(2);
+    assertThat(properties.getQueueCapacity("api-v1")).isEqualTo(properties.getQueueCapacity());
+    assertThat(properties.getThreads("api-v3")).isEqualTo(properties.getThreads());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,174 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import eu.maksimov.demo.spring.versioning.controller.PersonV1Controller;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.web.VersionedRequestMappingHandlerMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalGetInterceptorTest {
+
+  private final ResourceVersions resourceVersions = new ResourceVersions(0x1000);
+
+  @Test
+  void getResource_stripsScopeAndVersion() {
+    assertThat(ConditionalGetInterceptor.getResource("/api/v2/session/1")).isEqualTo("/session/1");
+    assertThat(ConditionalGetInterceptor.getResource("/api/latest/session/1")).isEqualTo("/session/1");
+    assertThat(ConditionalGetInterceptor.getResource("/api/v2/")).isNull();
+    assertThat(ConditionalGetInterceptor.getResource("/api")).isNull();
+  }
+
+  @Test
+  void getETag_isSharedByRequestsServedByTheSameHandlerVersion() {
+    var v1 = ConditionalGetInterceptor.getETag(1, resourceVersions.getEpoch(), resourceVersions.get("/session/1"));
+    var v2 = ConditionalGetInterceptor.getETag(2, resourceVersions.getEpoch(), resourceVersions.get("/session/1"));
+
+    assertThat(v1).isEqualTo("W/\"v1-1000-0\"");
+    assertThat(v2).isNotEqualTo(v1);
+  }
+
+  @Test
+  void touch_changesTheStampOfOneResourceOnly() {
+    var before = resourceVersions.get("/session/1");
+
+    resourceVersions.touch("/session/1");
+
+    assertThat(resourceVersions.get("/session/1").getGeneration()).isEqualTo(before.getGeneration() + 1);
+    assertThat(resourceVersions.get("/session/1").getLastModified()).isGreaterThanOrEqualTo(before.getLastModified());
+    assertThat(resourceVersions.get("/session/2")).isSameAs(before);
+  }
+
+  @Test
+  void preHandle_answersNotModifiedForCurrentValidatorsOfExistingResources() throws Exception {
+    var handlerMapping = new VersionedRequestMappingHandlerMapping();
+    var context = new StaticApplicationContext();
+    context.refresh();
+    handlerMapping.setApplicationContext(context);
+    handlerMapping.afterPropertiesSet();
+    var routeRegistry = new RouteRegistry(handlerMapping);
+    routeRegistry.register(new PersonV1Controller());
+    var interceptor = new ConditionalGetInterceptor(
+      new StaticListableBeanFactory(Map.of("routeRegistry", routeRegistry)).getBeanProvider(RouteRegistry.class),
+      resourceVersions
+    );
+    resourceVersions.addLookup("/person", Set.of("1")::contains);
+
+    var first = new Exchange("/api/v1/person/1", null);
+    assertThat(first.preHandle(handlerMapping, interceptor)).isTrue();
+    assertThat(first.responseHeaders).containsEntry(HttpHeaders.ETAG, "W/\"v1-1000-0\"");
+
+    var second = new Exchange("/api/v1/person/1", "W/\"v1-1000-0\"");
+    assertThat(second.preHandle(handlerMapping, interceptor)).isFalse();
+    assertThat(second.status).isEqualTo(304);
+
+    resourceVersions.touch("/person/1");
+    var afterTouch = new Exchange("/api/v1/person/1", "W/\"v1-1000-0\"");
+    assertThat(afterTouch.preHandle(handlerMapping, interceptor)).isTrue();
+    assertThat(afterTouch.status).isEqualTo(200);
+    assertThat(afterTouch.responseHeaders).containsEntry(HttpHeaders.ETAG, "W/\"v1-1000-1\"");
+
+    // the handler answers 404, the validators of the initial stamp must not apply
+    var unknown = new Exchange("/api/v1/person/2", "W/\"v1-1000-0\"");
+    assertThat(unknown.preHandle(handlerMapping, interceptor)).isTrue();
+    assertThat(unknown.status).isEqualTo(200);
+    assertThat(unknown.responseHeaders).doesNotContainKeys(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED);
+  }
+
+  /**
+   * {@code GET} request with an optional {@code If-None-Match} header and its response, other methods answer
+   * {@code null}, {@code false}, {@code 0}, {@code -1} or nothing.
+   */
+  private static class Exchange {
+
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final Map<String, String> responseHeaders = new HashMap<>();
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private int status = 200;
+
+    Exchange(String path, String ifNoneMatch) {
+      request = (HttpServletRequest) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getMethod":
+              return "GET";
+            case "getRequestURI":
+            case "getServletPath":
+              return path;
+            case "getContextPath":
+              return "";
+            case "getDispatcherType":
+              return DispatcherType.REQUEST;
+            case "getHeaders":
+              return HttpHeaders.IF_NONE_MATCH.equals(args[0]) && ifNoneMatch != null
+                ? Collections.enumeration(List.of(ifNoneMatch)) : Collections.emptyEnumeration();
+            case "getAttribute":
+              return attributes.get(args[0]);
+            case "setAttribute":
+              attributes.put((String) args[0], args[1]);
+              return null;
+            case "removeAttribute":
+              attributes.remove(args[0]);
+              return null;
+            default:
+              return defaultValue(method.getReturnType());
+          }
+        }
+      );
+      response = (HttpServletResponse) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getStatus":
+              return status;
+            case "setStatus":
+              status = (int) args[0];
+              return null;
+            case "getHeader":
+              return responseHeaders.get(args[0]);
+            case "setHeader":
+            case "setDateHeader":
+              responseHeaders.put((String) args[0], String.valueOf(args[1]));
+              return null;
+            default:
+              return defaultValue(method.getReturnType());
+          }
+        }
+      );
+    }
+
+    boolean preHandle(VersionedRequestMappingHandlerMapping handlerMapping, ConditionalGetInterceptor interceptor)
+      throws Exception {
+      return interceptor.preHandle(request, response, handlerMapping.getHandler(request).getHandler());
+    }
+
+    private static Object defaultValue(Class<?> type) {
+      if (type == Enumeration.class) {
+        return Collections.emptyEnumeration();
+      }
+      if (type == boolean.class) {
+        return false;
+      }
+      if (type == long.class) {
+        return -1L;
+      }
+      return type == int.class ? 0 : null;
+    }
+
+  }
+
+}
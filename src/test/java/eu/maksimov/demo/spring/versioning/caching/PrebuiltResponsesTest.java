@@ -0,0 +1,176 @@
+package eu.maksimov.demo.spring.versioning.caching;
+
+import eu.maksimov.demo.spring.versioning.controller.PersonV2Controller;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class PrebuiltResponsesTest {
+
+  private static final String TEXT = "text/plain;charset=UTF-8";
+
+  private final ResourceVersions resourceVersions = new ResourceVersions(0x1000);
+  private final PrebuiltResponses prebuiltResponses = new PrebuiltResponses(resourceVersions);
+
+  @Test
+  void getHandler_onlyForAnnotatedHandlerMethods() throws Exception {
+    var controller = new PersonV2Controller();
+
+    assertThat(prebuiltResponses.getHandler(new HandlerMethod(controller, "getById"))).isNotNull();
+    assertThat(prebuiltResponses.getHandler(new HandlerMethod(controller, "getById", String.class))).isNull();
+    assertThatIllegalStateException()
+      .isThrownBy(() -> prebuiltResponses.getHandler(new HandlerMethod(new AsyncController(), "get")));
+  }
+
+  @Test
+  void write_prebuiltBodyPerAcceptHeader() throws Exception {
+    var handler = prebuiltResponses.getHandler(new HandlerMethod(new PersonV2Controller(), "getById"));
+    var response = new RecordingResponse();
+
+    assertThat(prebuiltResponses.write(handler, request("text/plain"), response.proxy())).isFalse();
+    prebuiltResponses.put(handler, request("text/plain"), prebuiltResponses.getGeneration(handler), TEXT, bytes("1"));
+
+    assertThat(prebuiltResponses.write(handler, request("text/plain"), response.proxy())).isTrue();
+    assertThat(response.headers).containsEntry("Content-Type", TEXT).containsEntry("Content-Length", "1");
+    assertThat(response.body.toString(StandardCharsets.UTF_8)).isEqualTo("1");
+    assertThat(prebuiltResponses.write(handler, request("application/json"), response.proxy())).isFalse();
+    assertThat(prebuiltResponses.getHits()).isEqualTo(1);
+    assertThat(prebuiltResponses.getBuilds()).isEqualTo(1);
+  }
+
+  @Test
+  void write_notAfterResourceChanged() throws Exception {
+    var handler = prebuiltResponses.getHandler(
+      new HandlerMethod(new PersonV2Controller(), "getAll", HttpServletResponse.class)
+    );
+    var generation = prebuiltResponses.getGeneration(handler);
+    prebuiltResponses.put(handler, request(null), generation, TEXT, bytes("[]"));
+
+    resourceVersions.touch("/person");
+
+    assertThat(prebuiltResponses.write(handler, request(null), new RecordingResponse().proxy())).isFalse();
+    // a build that started before the change does not replace the newer body
+    var current = prebuiltResponses.getGeneration(handler);
+    prebuiltResponses.put(handler, request(null), current, TEXT, bytes("[1]"));
+    prebuiltResponses.put(handler, request(null), generation, TEXT, bytes("[]"));
+    var response = new RecordingResponse();
+    assertThat(prebuiltResponses.write(handler, request(null), response.proxy())).isTrue();
+    assertThat(response.body.toString(StandardCharsets.UTF_8)).isEqualTo("[1]");
+  }
+
+  @Test
+  void put_sharesBodyOfAcceptValuesWithTheSameContentType() throws Exception {
+    var handler = prebuiltResponses.getHandler(
+      new HandlerMethod(new PersonV2Controller(), "getAll", HttpServletResponse.class)
+    );
+    prebuiltResponses.put(handler, request("text/plain"), prebuiltResponses.getGeneration(handler), TEXT, bytes("[]"));
+    resourceVersions.touch("/person");
+
+    prebuiltResponses.put(handler, request("text/*"), prebuiltResponses.getGeneration(handler), TEXT, bytes("[1]"));
+
+    var response = new RecordingResponse();
+    assertThat(prebuiltResponses.write(handler, request("text/plain"), response.proxy())).isTrue();
+    assertThat(response.body.toString(StandardCharsets.UTF_8)).isEqualTo("[1]");
+  }
+
+  @Test
+  void put_boundsTheVariantsPerHandler() throws Exception {
+    var handler = prebuiltResponses.getHandler(new HandlerMethod(new PersonV2Controller(), "getById"));
+    for (int i = 0; i <= PrebuiltResponses.MAX_VARIANTS; i++) {
+      prebuiltResponses.put(handler, request("type/" + i), 0, "type/" + i, bytes(String.valueOf(i)));
+    }
+
+    var response = new RecordingResponse().proxy();
+    assertThat(prebuiltResponses.write(handler, request("type/0"), response)).isTrue();
+    assertThat(prebuiltResponses.write(handler, request("type/" + PrebuiltResponses.MAX_VARIANTS), response)).isFalse();
+  }
+
+  @Test
+  void put_forgetsAcceptValuesWhenThereAreTooMany() throws Exception {
+    var handler = prebuiltResponses.getHandler(new HandlerMethod(new PersonV2Controller(), "getById"));
+    for (int i = 0; i <= PrebuiltResponses.MAX_ACCEPT_VALUES; i++) {
+      prebuiltResponses.put(handler, request("text/plain;q=0." + i), 0, TEXT, bytes("1"));
+    }
+
+    var response = new RecordingResponse().proxy();
+    assertThat(prebuiltResponses.write(handler, request("text/plain;q=0.0"), response)).isFalse();
+    assertThat(prebuiltResponses.write(handler, request("text/plain;q=0." + PrebuiltResponses.MAX_ACCEPT_VALUES),
+      response)).isTrue();
+  }
+
+  private static byte[] bytes(String body) {
+    return body.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static HttpServletRequest request(String accept) {
+    return (HttpServletRequest) Proxy.newProxyInstance(
+      PrebuiltResponsesTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+      (proxy, method, args) -> method.getName().equals("getHeader") && "Accept".equals(args[0]) ? accept : null
+    );
+  }
+
+  private static class RecordingResponse {
+
+    private final Map<String, String> headers = new HashMap<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    HttpServletResponse proxy() {
+      var outputStream = new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+      };
+      return (HttpServletResponse) Proxy.newProxyInstance(
+        PrebuiltResponsesTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "setContentType":
+              headers.put("Content-Type", (String) args[0]);
+              return null;
+            case "setContentLength":
+              headers.put("Content-Length", String.valueOf(args[0]));
+              return null;
+            case "getOutputStream":
+              return outputStream;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        }
+      );
+    }
+
+  }
+
+  static class AsyncController {
+
+    @PrebuiltResponse
+    public Callable<String> get() {
+      return () -> "async";
+    }
+
+  }
+
+}
@@ -0,0 +1,128 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CallerContextCacheTest {
+
+  private final CountingSource source = new CountingSource();
+  private final List<CallerContextCache> caches = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    caches.forEach(CallerContextCache::destroy);
+  }
+
+  @Test
+  void get_loadsOnce() {
+    var cache = cache(Duration.ofMinutes(1), 100);
+
+    var context = cache.get("app-1");
+
+    assertThat(context.getApplicationId()).isEqualTo("app-1");
+    assertThat(cache.get("app-1")).isSameAs(context);
+    assertThat(source.loads).hasValue(1);
+  }
+
+  @Test
+  void get_unknownApplicationIsCachedToo() {
+    var cache = cache(Duration.ofMinutes(1), 100);
+
+    assertThat(cache.get("unknown")).isNull();
+    assertThat(cache.get("unknown")).isNull();
+    assertThat(source.loads).hasValue(1);
+  }
+
+  @Test
+  void get_refreshesAheadWithoutWaiting() throws Exception {
+    var cache = cache(Duration.ofMillis(1), 100);
+    var first = cache.get("app-1");
+    Thread.sleep(5);
+
+    assertThat(cache.get("app-1")).as("answered before the refresh completes").isSameAs(first);
+    var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (cache.get("app-1") == first && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(cache.get("app-1")).isNotSameAs(first);
+  }
+
+  @Test
+  void get_boundedSize() {
+    var cache = cache(Duration.ofMinutes(1), 10);
+
+    for (int i = 0; i < 100; i++) {
+      cache.get("app-" + i);
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(10);
+    assertThat(cache.get("app-99").getApplicationId()).isEqualTo("app-99");
+  }
+
+  @Test
+  void get_hitAllocatesNothing() {
+    var bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "HotSpot ThreadMXBean is required");
+    var threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "thread allocated memory is not supported");
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    var cache = cache(Duration.ofMinutes(1), 100);
+    // a fresh String per request, as a header value is
+    var applicationIds = new String[16];
+    for (int i = 0; i < applicationIds.length; i++) {
+      applicationIds[i] = new String("app-" + (i % 4));
+    }
+    Runnable request = () -> {
+      for (var applicationId : applicationIds) {
+        if (!CallerContextFilter.isValidId(applicationId, CallerContextFilter.MAX_APPLICATION_ID_LENGTH)
+          || !cache.get(applicationId).isVersionAllowed(2)) {
+          throw new AssertionError(applicationId);
+        }
+      }
+    };
+    for (int i = 0; i < 50_000; i++) {
+      request.run();
+    }
+
+    var threadId = Thread.currentThread().getId();
+    var before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 20_000; i++) {
+      request.run();
+    }
+    var allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(allocated / 20_000).isZero();
+  }
+
+  private CallerContextCache cache(Duration refreshAfter, int maximumSize) {
+    var properties = new CallerProperties();
+    properties.setRefreshAfter(refreshAfter);
+    properties.setMaximumSize(maximumSize);
+    var cache = new CallerContextCache(source, properties);
+    caches.add(cache);
+    return cache;
+  }
+
+  private static class CountingSource implements CallerContextSource {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Override
+    public CallerContext load(String applicationId) {
+      loads.incrementAndGet();
+      return applicationId.startsWith("app-") ? new CallerContext(applicationId, CallerContext.ALL_VERSIONS, 0) : null;
+    }
+
+  }
+
+}
@@ -0,0 +1,43 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallerContextTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void isVersionAllowed() {
+    var context = new CallerContext("app", PropertiesCallerContextSource.parseVersions("v1,latest", "app"), 0);
+
+    assertThat(context.isVersionAllowed(Route.LATEST_VERSION)).isTrue();
+    assertThat(context.isVersionAllowed(1)).isTrue();
+    assertThat(context.isVersionAllowed(2)).isFalse();
+    assertThat(context.isVersionAllowed(70)).isFalse();
+    assertThat(new CallerContext("app", CallerContext.ALL_VERSIONS, 0).isVersionAllowed(70)).isTrue();
+  }
+
+  @Test
+  void tryAcquire_requestsPerSecond() {
+    var context = new CallerContext("app", CallerContext.ALL_VERSIONS, 2);
+
+    assertThat(context.tryAcquire(5 * SECOND)).isTrue();
+    assertThat(context.tryAcquire(5 * SECOND + 1)).isTrue();
+    assertThat(context.tryAcquire(5 * SECOND + 2)).isFalse();
+    assertThat(context.tryAcquire(6 * SECOND)).isTrue();
+    assertThat(context.tryAcquire(-3 * SECOND)).isTrue();
+  }
+
+  @Test
+  void tryAcquire_unlimited() {
+    var context = new CallerContext("app", CallerContext.ALL_VERSIONS, 0);
+
+    for (int i = 0; i < 1000; i++) {
+      assertThat(context.tryAcquire(SECOND)).isTrue();
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+package eu.maksimov.demo.spring.versioning.caller;
+
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.PathResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PropertiesCallerContextSourceTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void load_versionsAndLimits() throws Exception {
+    var file = write("partner.app.versions=v2, latest\npartner.app.requests-per-second=2\nswagger-ui.versions=*\n");
+    var source = new PropertiesCallerContextSource(new PathResource(file));
+
+    var partner = source.load("partner.app");
+    assertThat(partner.getApplicationId()).isEqualTo("partner.app");
+    assertThat(partner.isVersionAllowed(Route.LATEST_VERSION)).isTrue();
+    assertThat(partner.isVersionAllowed(2)).isTrue();
+    assertThat(partner.isVersionAllowed(1)).isFalse();
+    assertThat(partner.isVersionAllowed(-1)).isFalse();
+    assertThat(partner.getRequestsPerSecond()).isEqualTo(2);
+
+    var swaggerUi = source.load("swagger-ui");
+    assertThat(swaggerUi.isVersionAllowed(99)).isTrue();
+    assertThat(swaggerUi.getRequestsPerSecond()).isZero();
+
+    assertThat(source.load("unknown")).isNull();
+  }
+
+  @Test
+  void load_rereadsModifiedFile() throws Exception {
+    var file = write("app.versions=v1\n");
+    var source = new PropertiesCallerContextSource(new PathResource(file));
+    var before = source.load("app");
+    assertThat(source.load("app")).isSameAs(before);
+
+    Files.writeString(file, "app.versions=v1,v2\n");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+
+    assertThat(source.load("app").isVersionAllowed(2)).isTrue();
+  }
+
+  @Test
+  void load_invalidVersion() throws Exception {
+    var file = write("app.versions=v1,2\n");
+    var source = new PropertiesCallerContextSource(new PathResource(file));
+
+    assertThatThrownBy(() -> source.load("app"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("'2' of app.versions");
+  }
+
+  private Path write(String contents) throws Exception {
+    return Files.writeString(directory.resolve("callers.properties"), contents);
+  }
+
+}
@@ -0,0 +1,108 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEventsTest {
+
+  private static final String PATH_MATCH = "eu.maksimov.versioning.PathMatch";
+  private static final String OPEN_API_GROUP = "eu.maksimov.versioning.OpenApiGroup";
+
+  private final VersionedAntPathMatcher pathMatcher = new VersionedAntPathMatcher();
+
+  @Test
+  void pathMatch_recordedWhenEnabled() throws IOException {
+    var events = record(PATH_MATCH, true, () -> {
+      assertThat(PathMatchEvent.isRecorded()).isTrue();
+      assertThat(pathMatcher.match("/api/v1/person/{id}", "/api/v2/person/42")).isTrue();
+      assertThat(pathMatcher.match("/api/v3/person/{id}", "/api/v2/person/42")).isFalse();
+    });
+
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).getString("pattern")).isEqualTo("/api/v1/person/{id}");
+    assertThat(events.get(0).getString("path")).isEqualTo("/api/v2/person/42");
+    assertThat(events.get(0).getString("requestedVersion")).isEqualTo("v2");
+    assertThat(events.get(0).getString("resolvedVersion")).isEqualTo("v1");
+    assertThat(events.get(0).getBoolean("matched")).isTrue();
+    assertThat(events.get(1).getString("resolvedVersion")).isNull();
+    assertThat(events.get(1).getBoolean("matched")).isFalse();
+  }
+
+  @Test
+  void pathMatch_notRecordedWhenDisabled() throws IOException {
+    var events = record(PATH_MATCH, false, () -> {
+      assertThat(PathMatchEvent.isRecorded()).isFalse();
+      assertThat(pathMatcher.match("/api/v1/person/{id}", "/api/v2/person/42")).isTrue();
+    });
+
+    assertThat(events).isEmpty();
+  }
+
+  @Test
+  void openApiGroup_recordedWhenEnabled() throws IOException {
+    var events = record(OPEN_API_GROUP, true, () -> {
+      new OpenApiGroupProcessor().postProcessBeanDefinitionRegistry(new DefaultListableBeanFactory());
+      customizePaths("v1");
+    });
+
+    assertThat(events).filteredOn(it -> OpenApiGroupEvent.REGISTRATION.equals(it.getString("operation")))
+      .extracting(it -> it.getString("group"))
+      .containsExactlyInAnyOrder("api-v1", "api-v2", "api-v3", "api-latest");
+    var customization = events.get(events.size() - 1);
+    assertThat(customization.getString("operation")).isEqualTo(OpenApiGroupEvent.PATHS_CUSTOMIZATION);
+    assertThat(customization.getString("group")).isEqualTo("api-v1");
+    assertThat(customization.getInt("pathCount")).isEqualTo(1);
+  }
+
+  @Test
+  void openApiGroup_notRecordedWhenDisabled() throws IOException {
+    var events = record(OPEN_API_GROUP, false, () -> customizePaths("latest"));
+
+    assertThat(events).isEmpty();
+  }
+
+  private static void customizePaths(String version) {
+    var api = new OpenAPI().paths(new Paths()
+      .addPathItem("/api/v1/person/{id}", new PathItem())
+      .addPathItem("/api/v2/person/{id}", new PathItem()));
+    // the first customizer rewrites the paths
+    OpenApiGroupProcessor.createGroupedOpenApi("api", version).getOpenApiCustomisers().get(0).customise(api);
+  }
+
+  /**
+   * @return events of the given type committed by the action, in commit order
+   */
+  private static List<RecordedEvent> record(String eventName, boolean enabled, Runnable action) throws IOException {
+    var file = Files.createTempFile("events", ".jfr");
+    try (var recording = new Recording()) {
+      if (enabled) {
+        recording.enable(eventName);
+      } else {
+        recording.disable(eventName);
+      }
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+        .filter(it -> it.getEventType().getName().equals(eventName))
+        .collect(toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
@@ -0,0 +1,61 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenApiInternerTest {
+
+  private final OpenApiInterner interner = new OpenApiInterner();
+
+  @Test
+  void intern_sharesEqualParts() {
+    var v1 = document("getById", "Person");
+    var v2 = document("getById", "Person");
+
+    interner.intern(v1);
+    interner.intern(v2);
+
+    assertThat(v2.getPaths().get("/person/{id}")).isSameAs(v1.getPaths().get("/person/{id}"));
+    assertThat(v2.getComponents()).isSameAs(v1.getComponents());
+  }
+
+  @Test
+  void intern_keepsUnequalPartsApart() {
+    var v1 = document("getById", "Person");
+    var v2 = document("getPerson", "PersonV2");
+
+    interner.intern(v1);
+    interner.intern(v2);
+
+    var v1PathItem = v1.getPaths().get("/person/{id}");
+    var v2PathItem = v2.getPaths().get("/person/{id}");
+    assertThat(v2PathItem).isNotSameAs(v1PathItem);
+    assertThat(v2PathItem.getGet().getOperationId()).isEqualTo("getPerson");
+    // the operations differ in their id only, their parameters and responses are still shared
+    assertThat(v2PathItem.getGet().getParameters().get(0)).isSameAs(v1PathItem.getGet().getParameters().get(0));
+    assertThat(v2PathItem.getGet().getResponses().get("200")).isSameAs(v1PathItem.getGet().getResponses().get("200"));
+    assertThat(v2.getComponents()).isNotSameAs(v1.getComponents());
+    assertThat(v2.getComponents().getSchemas()).containsOnlyKeys("PersonV2");
+  }
+
+  private static OpenAPI document(String operationId, String schemaName) {
+    var operation = new Operation()
+      .operationId(operationId)
+      .addParametersItem(new Parameter().in("path").name("id").required(true).schema(new StringSchema()))
+      .responses(new ApiResponses().addApiResponse("200", new ApiResponse().description("OK")));
+    return new OpenAPI()
+      .paths(new Paths().addPathItem("/person/{id}", new PathItem().get(operation)))
+      .components(new Components().addSchemas(schemaName, new StringSchema()));
+  }
+
+}
@@ -0,0 +1,119 @@
+package eu.maksimov.demo.spring.versioning.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the steady-state allocation of request routing through {@link VersionedAntPathMatcher}.
+ * <p>
+ * Each "request" does what {@code RequestMappingHandlerMapping} does with the path matcher: match the path against
+ * every registered pattern, sort the matches with the pattern comparator and extract URI variables of the best one.
+ * The same work is done by a plain {@link AntPathMatcher} on patterns with the version already replaced by {@code *},
+ * so the difference is the overhead of versioning alone.
+ */
+class VersionedAntPathMatcherAllocationTest {
+
+  /**
+   * Allowed versioning overhead per request: the comparator created by {@code getPatternComparator} and nothing else.
+   */
+  private static final long VERSIONING_OVERHEAD_BUDGET_BYTES = 256;
+  /**
+   * Coarse guard for the whole routing, dominated by allocations inside {@link AntPathMatcher}.
+   */
+  private static final long ROUTING_BUDGET_BYTES = 16 * 1024;
+
+  private static final int WARMUP_ITERATIONS = 50_000;
+  private static final int MEASURED_ITERATIONS = 20_000;
+
+  private static final List<String> PATTERNS = List.of(
+    "/api/v1/person", "/api/v1/person/{id}",
+    "/api/v2/person", "/api/v2/person/{id}", "/api/v2/person/1",
+    "/api/v3/person", "/api/v3/person/{id}",
+    "/api/v1/session", "/api/v1/session/{id}"
+  );
+  private static final List<String> WILDCARD_PATTERNS = List.of(
+    "/api/*/person", "/api/*/person/{id}",
+    "/api/*/person", "/api/*/person/{id}", "/api/*/person/1",
+    "/api/*/person", "/api/*/person/{id}",
+    "/api/*/session", "/api/*/session/{id}"
+  );
+  private static final String PATH = "/api/latest/person/42";
+
+  private static com.sun.management.ThreadMXBean threadBean;
+
+  private final List<String> matches = new ArrayList<>();
+  private Object sink;
+
+  @BeforeAll
+  static void enableAllocationMeasurement() {
+    var bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "HotSpot ThreadMXBean is required");
+    threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "thread allocated memory is not supported");
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @Test
+  void routing_versioningAddsNoGarbageOnTopOfAntPathMatcher() {
+    long versioned = allocatedBytesPerRequest(new VersionedAntPathMatcher(), PATTERNS);
+    long plain = allocatedBytesPerRequest(new AntPathMatcher(), WILDCARD_PATTERNS);
+
+    assertThat(versioned - plain)
+      .as("versioning overhead per request (versioned %d B, plain %d B)", versioned, plain)
+      .isLessThanOrEqualTo(VERSIONING_OVERHEAD_BUDGET_BYTES);
+    assertThat(versioned).isLessThanOrEqualTo(ROUTING_BUDGET_BYTES);
+  }
+
+  @Test
+  void match_nonMatchingVersionAddsNoGarbage() {
+    var pathMatcher = new VersionedAntPathMatcher();
+    Runnable request = () -> sink = pathMatcher.match("/api/v3/person/{id}", "/api/v2/person/42");
+
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      request.run();
+    }
+    long allocated = measure(request);
+
+    assertThat(allocated / MEASURED_ITERATIONS).isZero();
+  }
+
+  private long allocatedBytesPerRequest(AntPathMatcher pathMatcher, List<String> patterns) {
+    Runnable request = () -> route(pathMatcher, patterns);
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      request.run();
+    }
+    return measure(request) / MEASURED_ITERATIONS;
+  }
+
+  private void route(AntPathMatcher pathMatcher, List<String> patterns) {
+    matches.clear();
+    for (int i = 0; i < patterns.size(); i++) {
+      var pattern = patterns.get(i);
+      if (pathMatcher.match(pattern, PATH)) {
+        matches.add(pattern);
+      }
+    }
+    matches.sort(pathMatcher.getPatternComparator(PATH));
+    Map<String, String> uriVariables = pathMatcher.extractUriTemplateVariables(matches.get(0), PATH);
+    sink = uriVariables;
+  }
+
+  private long measure(Runnable request) {
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      request.run();
+    }
+    return threadBean.getThreadAllocatedBytes(threadId) - before;
+  }
+
+}
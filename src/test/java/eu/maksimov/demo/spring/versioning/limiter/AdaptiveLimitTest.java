@@ -0,0 +1,120 @@
+package eu.maksimov.demo.spring.versioning.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimitTest {
+
+  private static final long WINDOW = Duration.ofMillis(100).toNanos();
+
+  private final LimiterProperties properties = new LimiterProperties();
+  private long now;
+
+  @Test
+  void tryAcquire_rejectsBeyondLimit() {
+    var limit = new AdaptiveLimit(properties, now);
+
+    for (int i = 0; i < properties.getInitialLimit(); i++) {
+      assertThat(limit.tryAcquire()).isTrue();
+    }
+    assertThat(limit.tryAcquire()).isFalse();
+    assertThat(limit.getInFlight()).isEqualTo(properties.getInitialLimit());
+    assertThat(limit.getRejected()).isEqualTo(1);
+
+    limit.release(now, now + 1_000_000, false);
+    assertThat(limit.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void cancel_keepsLimitOfRequestsTheHandlerDidNotAnswer() {
+    var limit = new AdaptiveLimit(properties, now);
+
+    for (int window = 0; window < 10; window++) {
+      for (int i = 0; i < properties.getInitialLimit(); i++) {
+        assertThat(limit.tryAcquire()).isTrue();
+      }
+      now += WINDOW;
+      for (int i = 0; i < properties.getInitialLimit(); i++) {
+        limit.cancel();
+      }
+    }
+    // the first completed request closes the window, which holds no failures
+    run(limit, 1, Integer.MAX_VALUE, 1_000_000, false);
+
+    assertThat(limit.getInFlight()).isZero();
+    assertThat(limit.getLimit()).isGreaterThanOrEqualTo(properties.getInitialLimit());
+  }
+
+  @Test
+  void limit_growsWhileLatencyIsStable() {
+    var limit = new AdaptiveLimit(properties, now);
+
+    run(limit, 20, Integer.MAX_VALUE, 1_000_000, false);
+
+    assertThat(limit.getLimit()).isGreaterThan(properties.getInitialLimit());
+    assertThat(limit.getInFlight()).isZero();
+  }
+
+  @Test
+  void limit_shrinksWhenLatencyGrows() {
+    var limit = new AdaptiveLimit(properties, now);
+    run(limit, 20, Integer.MAX_VALUE, 1_000_000, false);
+    var grown = limit.getLimit();
+
+    run(limit, 10, Integer.MAX_VALUE, 5_000_000, false);
+
+    assertThat(limit.getLimit()).isLessThan(grown);
+  }
+
+  @Test
+  void limit_backsOffOnFailures() {
+    var limit = new AdaptiveLimit(properties, now);
+
+    run(limit, 1, Integer.MAX_VALUE, 1_000_000, true);
+
+    assertThat(limit.getLimit()).isLessThan(properties.getInitialLimit());
+  }
+
+  @Test
+  void limit_isKeptWhenMostlyUnused() {
+    var limit = new AdaptiveLimit(properties, now);
+
+    run(limit, 20, 2, 1_000_000, false);
+
+    assertThat(limit.getLimit()).isEqualTo(properties.getInitialLimit());
+  }
+
+  @Test
+  void limit_staysWithinBounds() {
+    properties.setMaxLimit(30);
+    var limit = new AdaptiveLimit(properties, now);
+
+    run(limit, 100, Integer.MAX_VALUE, 1_000_000, false);
+    assertThat(limit.getLimit()).isEqualTo(30);
+
+    run(limit, 300, Integer.MAX_VALUE, 1_000_000, true);
+    assertThat(limit.getLimit()).isEqualTo(properties.getMinLimit());
+  }
+
+  /**
+   * Admits {@code concurrency} requests at once and completes them after {@code rtt}, for {@code windows} windows.
+   */
+  private void run(AdaptiveLimit limit, int windows, int concurrency, long rtt, boolean failed) {
+    var end = now + windows * WINDOW;
+    while (now < end) {
+      var start = now;
+      var admitted = Math.min(concurrency, limit.getLimit());
+      for (int i = 0; i < admitted; i++) {
+        assertThat(limit.tryAcquire()).isTrue();
+      }
+      now += rtt;
+      for (int i = 0; i < admitted; i++) {
+        limit.release(start, now, failed);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkLoaderTest {
+
+  private final BulkProperties properties = new BulkProperties();
+  private BulkLoader bulkLoader;
+
+  @AfterEach
+  void tearDown() {
+    bulkLoader.destroy();
+  }
+
+  @Test
+  void load_deduplicatesAndBatchesIdsKeepingTheirOrder() throws Exception {
+    properties.setBatchSize(2);
+    bulkLoader = new BulkLoader(properties, new ObjectMapper());
+    List<List<String>> lookups = Collections.synchronizedList(new ArrayList<>());
+    List<String> handedOut = new ArrayList<>();
+
+    bulkLoader.load(List.of("3", "1", "3", "", "x", "2", "1"), ids -> {
+      lookups.add(List.copyOf(ids));
+      return ids.stream().filter(id -> !id.equals("x")).collect(Collectors.toMap(id -> id, id -> id));
+    }, (ids, found) -> ids.forEach(id -> handedOut.add(id + "=" + found.get(id))));
+
+    assertThat(lookups).containsExactlyInAnyOrder(List.of("3", "1"), List.of("x", "2"));
+    assertThat(handedOut).containsExactly("3=3", "1=1", "x=null", "2=2");
+  }
+
+  @Test
+  void load_rejectsTooManyIds() {
+    properties.setMaxIds(10);
+    bulkLoader = new BulkLoader(properties, new ObjectMapper());
+    var ids = IntStream.range(0, 11).mapToObj(String::valueOf).collect(Collectors.toList());
+
+    assertThatThrownBy(() -> bulkLoader.load(ids, found -> Map.of(), (batch, found) -> {
+    })).isInstanceOf(ResponseStatusException.class);
+  }
+
+  @Test
+  void write_rejectsTooManyIdsBeforeTouchingTheResponse() {
+    properties.setMaxIds(10);
+    bulkLoader = new BulkLoader(properties, new ObjectMapper());
+    var ids = IntStream.range(0, 11).mapToObj(String::valueOf).collect(Collectors.toList());
+    List<String> responseCalls = new ArrayList<>();
+    var response = (HttpServletResponse) Proxy.newProxyInstance(
+      BulkLoaderTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+      (proxy, method, args) -> {
+        responseCalls.add(method.getName());
+        throw new UnsupportedOperationException(method.getName());
+      }
+    );
+
+    assertThatThrownBy(() -> bulkLoader.write(ids, found -> Map.of(), Function.identity(), response))
+      .isInstanceOf(ResponseStatusException.class);
+    assertThat(responseCalls).isEmpty();
+  }
+
+}
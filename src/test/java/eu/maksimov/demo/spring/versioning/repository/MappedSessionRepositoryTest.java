@@ -0,0 +1,192 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedSessionRepositoryTest {
+
+  private static final Duration TTL = Duration.ofMinutes(30);
+
+  @TempDir
+  Path directory;
+
+  private final MutableClock clock = new MutableClock();
+  private final List<MappedSessionRepository> opened = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    opened.forEach(MappedSessionRepository::destroy);
+  }
+
+  @Test
+  void findById_findsSavedSessions() throws Exception {
+    var repository = open(4096);
+
+    repository.save(new Session("1", "user-1"));
+    repository.save(new Session("2", "user-2"));
+    repository.save(new Session("1", "user-one"));
+    repository.delete("2");
+
+    assertThat(repository.findById("1")).contains(new Session("1", "user-one"));
+    assertThat(repository.findById("2")).isEmpty();
+    assertThat(repository.count()).isEqualTo(1);
+  }
+
+  @Test
+  void open_recoversSessionsOfPreviousRun() throws Exception {
+    var repository = open(256);
+    for (int id = 0; id < 100; id++) {
+      repository.save(new Session(String.valueOf(id), "user-" + id));
+    }
+    repository.delete("42");
+    repository.destroy();
+
+    var recovered = open(256);
+
+    assertThat(recovered.count()).isEqualTo(99);
+    assertThat(recovered.findById("7")).contains(new Session("7", "user-7"));
+    assertThat(recovered.findById("42")).isEmpty();
+  }
+
+  @Test
+  void open_ignoresTornRecordAndAppendsAfterLastValidOne() throws Exception {
+    var repository = open(4096);
+    repository.save(new Session("1", "user-1"));
+    repository.save(new Session("2", "user-2"));
+    repository.destroy();
+    var segment = segmentFiles().get(0);
+    try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+      // flip a byte in the user id of the second record
+      var lastByteOfSecondRecord = 2L * file.readInt() - 1;
+      file.seek(lastByteOfSecondRecord);
+      var value = file.read();
+      file.seek(lastByteOfSecondRecord);
+      file.write(value ^ 0xFF);
+    }
+
+    var recovered = open(4096);
+    recovered.save(new Session("3", "user-3"));
+    recovered.destroy();
+    var reopened = open(4096);
+
+    assertThat(reopened.findById("1")).isPresent();
+    assertThat(reopened.findById("2")).isEmpty();
+    assertThat(reopened.findById("3")).contains(new Session("3", "user-3"));
+  }
+
+  @Test
+  void open_failsWhileDirectoryIsInUse() throws Exception {
+    var repository = open(4096);
+
+    assertThatThrownBy(() -> open(4096)).isInstanceOf(IllegalStateException.class);
+    repository.destroy();
+    assertThat(open(4096).count()).isZero();
+  }
+
+  @Test
+  void maintain_expiresSessions() throws Exception {
+    var repository = open(4096);
+    repository.save(new Session("1", "user-1"));
+    clock.advance(TTL.minusMinutes(1));
+    repository.save(new Session("2", "user-2"));
+    clock.advance(Duration.ofMinutes(1));
+
+    assertThat(repository.findById("1")).isEmpty();
+    repository.maintain();
+
+    assertThat(repository.count()).isEqualTo(1);
+    repository.destroy();
+    assertThat(open(4096).findById("2")).isPresent();
+  }
+
+  @Test
+  void addListener_reportsSavedDeletedAndExpiredSessions() throws Exception {
+    var repository = open(4096);
+    List<String> changed = new ArrayList<>();
+    repository.addListener(changed::add);
+
+    repository.save(new Session("1", "user-1"));
+    repository.save(new Session("2", "user-2"));
+    repository.delete("2");
+    repository.delete("3");
+    clock.advance(TTL);
+    repository.maintain();
+
+    assertThat(changed).containsExactly("1", "2", "2", "1");
+  }
+
+  @Test
+  void maintain_compactsSealedSegments() throws Exception {
+    var repository = open(256);
+    for (int round = 0; round < 10; round++) {
+      for (int id = 0; id < 10; id++) {
+        repository.save(new Session(String.valueOf(id), "user-" + id + "-" + round));
+      }
+    }
+    var segmentsBefore = segmentFiles().size();
+
+    repository.maintain();
+
+    assertThat(segmentFiles().size()).isLessThan(segmentsBefore);
+    repository.destroy();
+    var recovered = open(256);
+    assertThat(recovered.count()).isEqualTo(10);
+    assertThat(recovered.findById("3")).contains(new Session("3", "user-3-9"));
+  }
+
+  private MappedSessionRepository open(int segmentSize) throws IOException {
+    var repository = new MappedSessionRepository(directory, segmentSize, TTL, clock);
+    opened.add(repository);
+    return repository;
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(it -> it.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2020-03-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+  }
+
+}
@@ -0,0 +1,96 @@
+package eu.maksimov.demo.spring.versioning.repository;
+
+import eu.maksimov.demo.spring.versioning.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class OffHeapPersonRepositoryTest {
+
+  // small chunks and index to cover chunk switches and index growth
+  private final OffHeapPersonRepository repository = new OffHeapPersonRepository(64, 2);
+
+  @Test
+  void findById_findsSavedPersons() {
+    LongStream.rangeClosed(-50, 50).forEach(id -> repository.save(new Person(id, "Person " + id)));
+
+    assertThat(repository.count()).isEqualTo(101);
+    assertThat(repository.findById(0)).contains(new Person(0, "Person 0"));
+    assertThat(repository.findById(-50)).contains(new Person(-50, "Person -50"));
+    assertThat(repository.findById("50")).contains(new Person(50, "Person 50"));
+    assertThat(repository.findById(51)).isEmpty();
+    assertThat(repository.findById("x")).isEmpty();
+  }
+
+  @Test
+  void save_replacesPersonWithTheSameId() {
+    repository.save(new Person(1, "Ada"));
+    repository.save(new Person(2, "Grace"));
+    repository.save(new Person(1, "Ada Lovelace"));
+
+    assertThat(repository.count()).isEqualTo(2);
+    assertThat(repository.findById(1)).contains(new Person(1, "Ada Lovelace"));
+  }
+
+  @Test
+  void save_rejectsPersonLargerThanAChunk() {
+    assertThatIllegalArgumentException().isThrownBy(() -> repository.save(new Person(1, "x".repeat(64))));
+  }
+
+  @Test
+  void forEach_scansCurrentPersonsInInsertionOrder() {
+    repository.save(new Person(1, "Ada"));
+    repository.save(new Person(2, "Grace"));
+    repository.save(new Person(3, "Barbara"));
+    repository.save(new Person(2, "Grace Hopper"));
+    List<Person> persons = new ArrayList<>();
+
+    repository.forEach(persons::add);
+
+    assertThat(persons).containsExactly(
+      new Person(1, "Ada"), new Person(3, "Barbara"), new Person(2, "Grace Hopper")
+    );
+  }
+
+  @Test
+  void findAllById_omitsUnknownIds() {
+    repository.save(new Person(1, "Ada"));
+
+    assertThat(repository.findAllById(Set.of("1", "2", "x"))).isEqualTo(Map.of("1", new Person(1, "Ada")));
+  }
+
+  @Test
+  void findById_readersNeverSeeIncompleteRecords() throws Exception {
+    var repository = new OffHeapPersonRepository(1024, 2);
+    var done = new AtomicBoolean();
+    var reader = CompletableFuture.supplyAsync(() -> {
+      var inconsistent = 0;
+      while (!done.get()) {
+        for (long id = 0; id < 1000; id++) {
+          var expectedName = "Person " + id;
+          inconsistent += repository.findById(id).filter(it -> !it.getName().equals(expectedName)).isPresent() ? 1 : 0;
+        }
+      }
+      return inconsistent;
+    });
+
+    LongStream.range(0, 20_000).forEach(i -> repository.save(new Person(i % 1000, "Person " + i % 1000)));
+    done.set(true);
+
+    assertThat(reader.get()).isZero();
+    assertThat(repository.count()).isEqualTo(1000);
+    List<Long> ids = new ArrayList<>();
+    repository.forEach(person -> ids.add(person.getId()));
+    assertThat(ids).hasSize(1000).doesNotHaveDuplicates();
+  }
+
+}
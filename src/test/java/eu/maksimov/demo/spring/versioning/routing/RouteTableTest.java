@@ -0,0 +1,87 @@
+package eu.maksimov.demo.spring.versioning.routing;
+
+import eu.maksimov.demo.spring.versioning.controller.PersonV1Controller;
+import eu.maksimov.demo.spring.versioning.controller.PersonV2Controller;
+import eu.maksimov.demo.spring.versioning.controller.SessionV1Controller;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTableTest {
+
+  private final HandlerMethod personV1GetById = handlerMethod(new PersonV1Controller(), "getById", String.class);
+  private final HandlerMethod personV2GetAll =
+    handlerMethod(new PersonV2Controller(), "getAll", HttpServletResponse.class);
+  private final HandlerMethod sessionV1GetAll =
+    handlerMethod(new SessionV1Controller(), "getAll", HttpServletResponse.class);
+
+  @Test
+  void of_versionedPattern() {
+    var route = Route.of("/api/v12/person/{id}", personV1GetById).orElseThrow();
+
+    assertThat(route.getScope()).isEqualTo("api");
+    assertThat(route.getVersion()).isEqualTo(12);
+    assertThat(route.getVersionName()).isEqualTo("v12");
+    assertThat(route.getEndpoint()).isEqualTo("/person/{id}");
+    assertThat(route.getResource()).isEqualTo("person");
+    assertThat(Route.of("/api/v1", personV1GetById).orElseThrow().getResource()).isEqualTo("api");
+  }
+
+  @Test
+  void of_notVersionedPattern() {
+    assertThat(Route.of("/error", personV1GetById)).isEmpty();
+    assertThat(Route.of("/api/latest/person", personV1GetById)).isEmpty();
+    assertThat(Route.of("/api/person/{id}", personV1GetById)).isEmpty();
+  }
+
+  @Test
+  void getRequestedVersion() {
+    assertThat(Route.getRequestedVersion("/api/latest/session")).isZero();
+    assertThat(Route.getRequestedVersion("/api/v2/session/1")).isEqualTo(2);
+    assertThat(Route.getRequestedVersion("/api/v42")).isEqualTo(42);
+    assertThat(Route.getRequestedVersion("/api/v100/session")).isEqualTo(-1);
+    assertThat(Route.getRequestedVersion("/api/v0/session")).isEqualTo(-1);
+    assertThat(Route.getRequestedVersion("/api/session")).isEqualTo(-1);
+    assertThat(Route.getRequestedVersion("/error")).isEqualTo(-1);
+    assertThat(Route.getRequestedVersion("/api/latestX/session")).isEqualTo(-1);
+    assertThat(Route.getRequestedVersion("/api/v2x/session")).isEqualTo(-1);
+    assertThat(Route.getRequestedVersion("/api/v2-beta")).isEqualTo(-1);
+  }
+
+  @Test
+  void getVersionsPerScope() {
+    var table = new RouteTable(List.of(
+      Route.of("/api/v2/person", personV2GetAll).orElseThrow(),
+      Route.of("/api/v1/person/{id}", personV1GetById).orElseThrow(),
+      Route.of("/api/v1/session", sessionV1GetAll).orElseThrow()
+    ));
+
+    assertThat(table.getVersionsPerScope()).containsOnlyKeys("api");
+    assertThat(table.getVersionsPerScope().get("api")).containsExactly(1, 2);
+  }
+
+  @Test
+  void getRoute_byResolvedHandlerMethod() {
+    var route = Route.of("/api/v1/person/{id}", personV1GetById).orElseThrow();
+    var table = new RouteTable(List.of(route));
+
+    // handler method of a request has its bean resolved, it is a different instance
+    var resolved = handlerMethod(new PersonV1Controller(), "getById", String.class);
+    assertThat(table.getRoute(resolved, "/api/v1/person/{id}")).contains(route);
+    assertThat(table.getRoute(resolved, "/api/v1/person")).isEmpty();
+    assertThat(table.getRoutes(personV2GetAll)).isEmpty();
+  }
+
+  private static HandlerMethod handlerMethod(Object bean, String methodName, Class<?>... parameterTypes) {
+    try {
+      return new HandlerMethod(bean, methodName, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,57 @@
+package eu.maksimov.demo.spring.versioning.shadow;
+
+import eu.maksimov.demo.spring.versioning.controller.PersonV1Controller;
+import eu.maksimov.demo.spring.versioning.controller.PersonV2Controller;
+import eu.maksimov.demo.spring.versioning.controller.PersonV3Controller;
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShadowExecutorTest {
+
+  private final Route personV1GetById = route("/api/v1/person/{id}", new PersonV1Controller(), "getById", String.class);
+  private final Route personV2GetById = route("/api/v2/person/{id}", new PersonV2Controller(), "getById", String.class);
+  private final Route personV2GetOne = route("/api/v2/person/1", new PersonV2Controller(), "getById");
+  private final Route personV2GetAll =
+    route("/api/v2/person", new PersonV2Controller(), "getAll", HttpServletResponse.class);
+  private final Route personV3GetById = route("/api/v3/person/{id}", new PersonV3Controller(), "getById", String.class);
+  private final Route personV3GetAll =
+    route("/api/v3/person", new PersonV3Controller(), "getAll", HttpServletResponse.class);
+  private final List<Route> routes = List.of(
+    personV1GetById, personV2GetById, personV2GetOne, personV2GetAll, personV3GetById, personV3GetAll
+  );
+
+  @Test
+  void findShadowRoute_sameEndpointOfNextVersion() {
+    assertThat(ShadowExecutor.findShadowRoute(personV1GetById, routes)).contains(personV2GetById);
+    assertThat(ShadowExecutor.findShadowRoute(personV2GetById, routes)).contains(personV3GetById);
+  }
+
+  @Test
+  void findShadowRoute_noneWithoutNextVersionOfEndpoint() {
+    assertThat(ShadowExecutor.findShadowRoute(personV3GetById, routes)).isEmpty();
+    assertThat(ShadowExecutor.findShadowRoute(personV2GetOne, routes)).isEmpty();
+  }
+
+  @Test
+  void findShadowRoute_noneForHandlersWritingTheResponse() {
+    assertThat(ShadowExecutor.findShadowRoute(personV2GetAll, routes)).isEmpty();
+  }
+
+  private static Route route(String pattern, Object controller, String method, Class<?>... parameterTypes) {
+    try {
+      var handlerMethod = new HandlerMethod(controller, method, parameterTypes);
+      return Route.of(pattern, Set.of(RequestMethod.GET), handlerMethod).orElseThrow();
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,207 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.PathResource;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenVerifierTest {
+
+  private static final Instant NOW = Instant.parse("2020-03-01T12:00:00Z");
+  private static final long EXPIRES_AT = NOW.getEpochSecond() + 3600;
+
+  private static KeyPair rsaKeyPair;
+  private static KeyPair ecKeyPair;
+
+  @TempDir
+  Path directory;
+
+  @BeforeAll
+  static void generateKeys() throws Exception {
+    var rsa = KeyPairGenerator.getInstance("RSA");
+    rsa.initialize(2048);
+    rsaKeyPair = rsa.generateKeyPair();
+    var ec = KeyPairGenerator.getInstance("EC");
+    ec.initialize(new ECGenParameterSpec("secp256r1"));
+    ecKeyPair = ec.generateKeyPair();
+  }
+
+  @Test
+  void verify_rs256() throws Exception {
+    var verifier = verifier(new TokenProperties());
+
+    var token = verifier.verify(rs256("rsa-1", "{\"sub\":\"user-1\",\"exp\":" + EXPIRES_AT + "}"));
+
+    assertThat(token.getSubject()).isEqualTo("user-1");
+    assertThat(token.getExpiresAt()).isEqualTo(EXPIRES_AT);
+  }
+
+  @Test
+  void verify_es256() throws Exception {
+    var verifier = verifier(new TokenProperties());
+
+    var token = verifier.verify(es256("ec-1", "{\"sub\":\"user-1\",\"exp\":" + EXPIRES_AT + "}"));
+
+    assertThat(token.getSubject()).isEqualTo("user-1");
+  }
+
+  @Test
+  void verify_rejectsInvalidTokens() throws Exception {
+    var verifier = verifier(new TokenProperties());
+    var valid = rs256("rsa-1", "{\"sub\":\"user-1\",\"exp\":" + EXPIRES_AT + "}");
+    var tampered = valid.substring(0, valid.indexOf('.') + 1)
+      + encode("{\"sub\":\"admin\",\"exp\":" + EXPIRES_AT + "}") + valid.substring(valid.lastIndexOf('.'));
+
+    assertInvalid(verifier, tampered, "Invalid signature");
+    assertInvalid(verifier, "not-a-token", "Malformed token");
+    assertInvalid(verifier, valid + ".", "Malformed token");
+    assertInvalid(verifier, rs256("rsa-2", "{\"sub\":\"user-1\",\"exp\":" + EXPIRES_AT + "}"), "Unknown key rsa-2");
+    // RSA signature presented as ECDSA
+    assertInvalid(verifier, sign("ES256", "rsa-1", "{}", "SHA256withRSA", rsaKeyPair.getPrivate()), "does not match");
+    assertInvalid(verifier, rs256("rsa-1", "{\"sub\":\"user-1\",\"exp\":" + (NOW.getEpochSecond() - 60) + "}"),
+      "Token expired");
+    assertInvalid(verifier, rs256("rsa-1", "{\"sub\":\"user-1\"}"), "Token has no exp");
+    assertInvalid(verifier, rs256("rsa-1", "{\"exp\":" + EXPIRES_AT + "}"), "Token has no sub");
+  }
+
+  @Test
+  void verify_clockSkew() throws Exception {
+    var verifier = verifier(new TokenProperties());
+
+    verifier.verify(rs256("rsa-1", "{\"sub\":\"user-1\",\"exp\":" + (NOW.getEpochSecond() + 1) + "}"));
+    verifier.verify(rs256("rsa-1", "{\"sub\":\"user-1\",\"exp\":" + (NOW.getEpochSecond() - 10) + "}"));
+    assertInvalid(verifier, rs256("rsa-1",
+      "{\"sub\":\"user-1\",\"exp\":" + EXPIRES_AT + ",\"nbf\":" + (NOW.getEpochSecond() + 60) + "}"),
+      "Token not valid yet");
+  }
+
+  @Test
+  void verify_issuerAndAudience() throws Exception {
+    var properties = new TokenProperties();
+    properties.setIssuer("https://issuer");
+    properties.setAudience("versioning-demo");
+    var verifier = verifier(properties);
+
+    verifier.verify(rs256("rsa-1", "{\"sub\":\"u\",\"exp\":" + EXPIRES_AT
+      + ",\"iss\":\"https://issuer\",\"aud\":[\"other\",\"versioning-demo\"]}"));
+    assertInvalid(verifier, rs256("rsa-1", "{\"sub\":\"u\",\"exp\":" + EXPIRES_AT
+      + ",\"iss\":\"https://other\",\"aud\":\"versioning-demo\"}"), "Unexpected issuer");
+    assertInvalid(verifier, rs256("rsa-1", "{\"sub\":\"u\",\"exp\":" + EXPIRES_AT
+      + ",\"iss\":\"https://issuer\",\"aud\":\"other\"}"), "Unexpected audience");
+  }
+
+  @Test
+  void keySet_rereadForUnknownKey() throws Exception {
+    var file = directory.resolve("keys.json");
+    Files.writeString(file, "{\"keys\":[" + rsaJwk("rsa-1") + "]}");
+    var keySet = new KeySet(new PathResource(file), Duration.ZERO);
+    assertThat(keySet.get("rsa-2")).isNull();
+
+    Files.writeString(file, "{\"keys\":[" + rsaJwk("rsa-1") + "," + rsaJwk("rsa-2") + "]}");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+
+    assertThat(keySet.get("rsa-2").getAlgorithm()).isEqualTo("RS256");
+  }
+
+  @Test
+  void keySet_rereadWhenModified() throws Exception {
+    var file = directory.resolve("keys.json");
+    Files.writeString(file, "{\"keys\":[" + rsaJwk("rsa-1") + "," + rsaJwk("rsa-2") + "]}");
+    var keySet = new KeySet(new PathResource(file), Duration.ZERO);
+    assertThat(keySet.get("rsa-2")).isNotNull();
+
+    Files.writeString(file, "{\"keys\":[" + rsaJwk("rsa-1") + "]}");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+
+    assertThat(keySet.get("rsa-1")).isNotNull();
+    assertThat(keySet.get("rsa-2")).isNull();
+  }
+
+  @Test
+  void isValid_falseOnceKeyIsRemoved() throws Exception {
+    var verifier = verifier(new TokenProperties());
+    var verified = verifier.verify(rs256("rsa-1", "{\"sub\":\"u\",\"exp\":" + EXPIRES_AT + "}"));
+    assertThat(verifier.isValid(verified)).isTrue();
+
+    var file = directory.resolve("keys.json");
+    Files.writeString(file, "{\"keys\":[" + ecJwk("ec-1") + "]}");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+
+    assertThat(verifier.isValid(verified)).isFalse();
+  }
+
+  private TokenVerifier verifier(TokenProperties properties) throws Exception {
+    var file = directory.resolve("keys.json");
+    Files.writeString(file, "{\"keys\":[" + rsaJwk("rsa-1") + "," + ecJwk("ec-1") + "]}");
+    var keySet = new KeySet(new PathResource(file), Duration.ZERO);
+    return new TokenVerifier(keySet, properties, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  private static void assertInvalid(TokenVerifier verifier, String token, String message) {
+    assertThatThrownBy(() -> verifier.verify(token))
+      .isInstanceOf(InvalidTokenException.class)
+      .hasMessageContaining(message);
+  }
+
+  private static String rs256(String keyId, String claims) throws Exception {
+    return sign("RS256", keyId, claims, "SHA256withRSA", rsaKeyPair.getPrivate());
+  }
+
+  private static String es256(String keyId, String claims) throws Exception {
+    return sign("ES256", keyId, claims, "SHA256withECDSAinP1363Format", ecKeyPair.getPrivate());
+  }
+
+  private static String sign(String algorithm, String keyId, String claims, String signatureAlgorithm,
+                             PrivateKey privateKey) throws Exception {
+    var signingInput = encode("{\"alg\":\"" + algorithm + "\",\"kid\":\"" + keyId + "\"}") + '.' + encode(claims);
+    var signer = Signature.getInstance(signatureAlgorithm);
+    signer.initSign(privateKey);
+    signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+    return signingInput + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+  }
+
+  private static String rsaJwk(String keyId) {
+    var publicKey = (RSAPublicKey) rsaKeyPair.getPublic();
+    return "{\"kty\":\"RSA\",\"kid\":\"" + keyId + "\",\"n\":\"" + encode(publicKey.getModulus())
+      + "\",\"e\":\"" + encode(publicKey.getPublicExponent()) + "\"}";
+  }
+
+  private static String ecJwk(String keyId) {
+    var point = ((ECPublicKey) ecKeyPair.getPublic()).getW();
+    return "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"" + keyId + "\",\"x\":\"" + encode(point.getAffineX())
+      + "\",\"y\":\"" + encode(point.getAffineY()) + "\"}";
+  }
+
+  private static String encode(String json) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String encode(BigInteger value) {
+    var bytes = value.toByteArray();
+    var unsigned = bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+  }
+
+}
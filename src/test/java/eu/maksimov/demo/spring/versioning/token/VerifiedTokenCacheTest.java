@@ -0,0 +1,102 @@
+package eu.maksimov.demo.spring.versioning.token;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.PathResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedTokenCacheTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void verify_oncePerToken() throws Exception {
+    var verifier = new CountingVerifier();
+    var cache = new VerifiedTokenCache(verifier, 100);
+
+    var first = cache.verify("token-1");
+    assertThat(cache.verify("token-1")).isSameAs(first);
+    cache.verify("token-2");
+
+    assertThat(verifier.verified).containsExactly("token-1", "token-2");
+  }
+
+  @Test
+  void verify_againAfterExpiry() throws Exception {
+    var verifier = new CountingVerifier();
+    var cache = new VerifiedTokenCache(verifier, 100);
+    cache.verify("token-1");
+
+    verifier.now = 200;
+
+    assertThatThrownBy(() -> cache.verify("token-1")).isInstanceOf(InvalidTokenException.class);
+    assertThat(verifier.verified).containsExactly("token-1", "token-1");
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void verify_invalidTokensAreNotCached() throws Exception {
+    var verifier = new CountingVerifier();
+    var cache = new VerifiedTokenCache(verifier, 100);
+
+    assertThatThrownBy(() -> cache.verify("invalid")).isInstanceOf(InvalidTokenException.class);
+    assertThatThrownBy(() -> cache.verify("invalid")).isInstanceOf(InvalidTokenException.class);
+
+    assertThat(verifier.verified).containsExactly("invalid", "invalid");
+  }
+
+  @Test
+  void verify_boundedSize() throws Exception {
+    var verifier = new CountingVerifier();
+    var cache = new VerifiedTokenCache(verifier, 10);
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(cache.verify("token-" + i).getSubject()).isEqualTo("token-" + i);
+    }
+
+    assertThat(cache.size()).isEqualTo(10);
+  }
+
+  /**
+   * Tokens expire at second 100, except for those named {@code invalid}.
+   */
+  private class CountingVerifier extends TokenVerifier {
+
+    private final List<String> verified = new ArrayList<>();
+    private long now;
+
+    private CountingVerifier() throws Exception {
+      super(
+        new KeySet(new PathResource(Files.writeString(directory.resolve("keys.json"), "{\"keys\":[]}")), Duration.ZERO),
+        new TokenProperties(), Clock.systemUTC()
+      );
+    }
+
+    @Override
+    public VerifiedToken verify(String token) {
+      verified.add(token);
+      var verifiedToken = new VerifiedToken(token, 100, null);
+      if (token.equals("invalid") || !isValid(verifiedToken)) {
+        throw new InvalidTokenException("Invalid");
+      }
+      return verifiedToken;
+    }
+
+    @Override
+    public boolean isValid(VerifiedToken token) {
+      return now < token.getExpiresAt();
+    }
+
+  }
+
+}
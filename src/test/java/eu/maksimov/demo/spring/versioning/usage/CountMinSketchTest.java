@@ -0,0 +1,23 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+  @Test
+  void estimate_neverUnderestimates() {
+    var sketch = new CountMinSketch(4, 64);
+    for (int i = 0; i < 1000; i++) {
+      sketch.add(Hashing.hash("application-" + (i % 100)));
+    }
+    sketch.add(Hashing.hash("rare"));
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(sketch.estimate(Hashing.hash("application-" + i))).isGreaterThanOrEqualTo(10);
+    }
+    assertThat(sketch.estimate(Hashing.hash("rare"))).isBetween(1L, 100L);
+  }
+
+}
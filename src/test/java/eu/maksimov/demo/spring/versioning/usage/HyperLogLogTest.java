@@ -0,0 +1,45 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+  @Test
+  void estimate_smallCardinalityIsExact() {
+    var sketch = new HyperLogLog(12);
+    for (int i = 0; i < 1000; i++) {
+      sketch.add(Hashing.hash("user-" + (i % 10)));
+    }
+
+    assertThat(sketch.estimate()).isEqualTo(10);
+  }
+
+  @Test
+  void estimate_largeCardinalityWithinStandardError() {
+    var sketch = new HyperLogLog(12);
+    for (int i = 0; i < 100_000; i++) {
+      sketch.add(Hashing.hash("user-" + i));
+    }
+
+    // standard error is 1.04 / sqrt(4096) = 1.6%
+    assertThat((double) sketch.estimate()).isCloseTo(100_000, within(5_000.0));
+  }
+
+  @Test
+  void merge_estimatesUnion() {
+    var first = new HyperLogLog(12);
+    var second = new HyperLogLog(12);
+    for (int i = 0; i < 20_000; i++) {
+      first.add(Hashing.hash("user-" + i));
+      second.add(Hashing.hash("user-" + (i + 10_000)));
+    }
+
+    first.merge(second);
+
+    assertThat((double) first.estimate()).isCloseTo(30_000, within(1_500.0));
+  }
+
+}
@@ -0,0 +1,105 @@
+package eu.maksimov.demo.spring.versioning.usage;
+
+import eu.maksimov.demo.spring.versioning.controller.SessionV1Controller;
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.method.HandlerMethod;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class UsageTrackerTest {
+
+  @TempDir
+  Path directory;
+
+  private final Route sessionById = Route.of("/api/v1/session/{id}", handlerMethod()).orElseThrow();
+
+  @Test
+  void record_perRequestedAndResolvedVersion() {
+    var tracker = new UsageTracker(properties());
+
+    tracker.record(sessionById, "/api/v1/session/1", "app-1", "user-1");
+    tracker.record(sessionById, "/api/v2/session/1", "app-1", "user-1");
+    tracker.record(sessionById, "/api/v2/session/2", "app-2", "user-2");
+    tracker.record(sessionById, "/api/latest/session/3", null, null);
+
+    assertThat(tracker.getUsages())
+      .extracting(VersionUsage::getKey, VersionUsage::getRequests, VersionUsage::getDistinctApplications,
+        VersionUsage::getDistinctUsers)
+      .containsExactly(
+        tuple("session v1 v1", 1L, 1L, 1L),
+        tuple("session v2 v1", 2L, 2L, 2L),
+        tuple("session latest v1", 1L, 0L, 0L)
+      );
+    assertThat(tracker.getUsages().get(1).getRequests("app-2")).isEqualTo(1);
+  }
+
+  @Test
+  void record_boundedCombinations() {
+    var properties = properties();
+    properties.setMaxCombinations(1);
+    var tracker = new UsageTracker(properties);
+
+    tracker.record(sessionById, "/api/v1/session/1", "app-1", "user-1");
+    tracker.record(sessionById, "/api/v2/session/1", "app-1", "user-1");
+
+    assertThat(tracker.getUsages()).extracting(VersionUsage::getKey).containsExactly("session v1 v1");
+  }
+
+  @Test
+  void snapshot_mergedOnStartup() throws Exception {
+    var properties = properties();
+    var tracker = new UsageTracker(properties);
+    for (int i = 0; i < 100; i++) {
+      tracker.record(sessionById, "/api/v1/session/1", "app-" + (i % 3), "user-" + i);
+    }
+    tracker.destroy();
+
+    var restarted = new UsageTracker(properties);
+    restarted.record(sessionById, "/api/v1/session/1", "app-3", "user-100");
+
+    var usage = restarted.getUsages().get(0);
+    assertThat(usage.getRequests()).isEqualTo(101);
+    assertThat(usage.getDistinctApplications()).isEqualTo(4);
+    assertThat(usage.getDistinctUsers()).isBetween(98L, 104L);
+  }
+
+  @Test
+  void snapshot_lockedWhileTrackerIsOpen() {
+    var properties = properties();
+    var tracker = new UsageTracker(properties);
+
+    assertThatThrownBy(() -> new UsageTracker(properties)).isInstanceOf(IllegalStateException.class);
+    tracker.destroy();
+    new UsageTracker(properties).destroy();
+  }
+
+  @Test
+  void snapshot_ignoredIfCorrupt() throws Exception {
+    var properties = properties();
+    Files.write(properties.getSnapshotFile(), new byte[]{1, 2, 3});
+
+    assertThat(new UsageTracker(properties).getUsages()).isEmpty();
+  }
+
+  private UsageProperties properties() {
+    var properties = new UsageProperties();
+    properties.setSnapshotFile(directory.resolve("usage.bin"));
+    return properties;
+  }
+
+  private static HandlerMethod handlerMethod() {
+    try {
+      return new HandlerMethod(new SessionV1Controller(), "getById", String.class);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
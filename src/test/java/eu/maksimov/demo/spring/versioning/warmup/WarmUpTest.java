@@ -0,0 +1,48 @@
+package eu.maksimov.demo.spring.versioning.warmup;
+
+import eu.maksimov.demo.spring.versioning.controller.PersonV1Controller;
+import eu.maksimov.demo.spring.versioning.controller.PersonV2Controller;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import eu.maksimov.demo.spring.versioning.web.VersionedRequestMappingHandlerMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarmUpTest {
+
+  private final RouteRegistry routeRegistry = routeRegistry();
+
+  @Test
+  void getWarmUpPaths_everyVersionFallsThroughToOlderEndpoints() {
+    var paths = WarmUp.getWarmUpPaths(routeRegistry.getSnapshot(), "42", Set.of());
+
+    // without the collection endpoints, e.g. /api/v1/person
+    assertThat(paths).containsExactlyInAnyOrder(
+      "/api/v1/person/42",
+      "/api/v2/person/42", "/api/v2/person/1",
+      "/api/latest/person/42", "/api/latest/person/1"
+    );
+  }
+
+  @Test
+  void getWarmUpPaths_withoutSkippedResources() {
+    assertThat(WarmUp.getWarmUpPaths(routeRegistry.getSnapshot(), "42", Set.of("person"))).isEmpty();
+  }
+
+  private static RouteRegistry routeRegistry() {
+    var context = new StaticApplicationContext();
+    context.refresh();
+    var handlerMapping = new VersionedRequestMappingHandlerMapping();
+    handlerMapping.setApplicationContext(context);
+    handlerMapping.afterPropertiesSet();
+
+    var routeRegistry = new RouteRegistry(handlerMapping);
+    routeRegistry.register(new PersonV1Controller());
+    routeRegistry.register(new PersonV2Controller());
+    return routeRegistry;
+  }
+
+}
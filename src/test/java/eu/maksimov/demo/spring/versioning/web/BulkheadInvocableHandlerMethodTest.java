@@ -0,0 +1,115 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.bulkhead.BulkheadProperties;
+import eu.maksimov.demo.spring.versioning.bulkhead.Bulkheads;
+import eu.maksimov.demo.spring.versioning.routing.Route;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ServletResponseMethodArgumentResolver;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadInvocableHandlerMethodTest {
+
+  private final Bulkheads bulkheads = new Bulkheads(new BulkheadProperties(), new SimpleMeterRegistry());
+  private final TestController controller = new TestController();
+
+  @AfterEach
+  void destroy() {
+    bulkheads.destroy();
+  }
+
+  @Test
+  void invokeForRequest_handsOverToTheBulkhead() throws Exception {
+    var handlerMethod = invocableHandlerMethod(new HandlerMethod(controller, "get", String.class));
+    var mavContainer = new ModelAndViewContainer();
+
+    var result = handlerMethod.invokeForRequest(webRequest(handlerMethod), mavContainer, "1");
+
+    assertThat(result).isInstanceOf(WebAsyncTask.class);
+    assertThat(controller.threads).isEmpty();
+    var task = (WebAsyncTask<?>) result;
+    assertThat(task.getExecutor().submit(task.getCallable()).get(1, TimeUnit.SECONDS)).isEqualTo("1");
+    assertThat(controller.threads).hasSize(1).allMatch(it -> it.startsWith("bulkhead-api-v1-"));
+  }
+
+  @Test
+  void invokeForRequest_responseWritersStayOnTheirThread() throws Exception {
+    var handlerMethod = invocableHandlerMethod(new HandlerMethod(controller, "write", HttpServletResponse.class));
+    var mavContainer = new ModelAndViewContainer();
+
+    var result = handlerMethod.invokeForRequest(webRequest(handlerMethod), mavContainer);
+
+    assertThat(result).isNull();
+    assertThat(mavContainer.isRequestHandled()).isTrue();
+    assertThat(controller.threads).containsExactly(Thread.currentThread().getName());
+  }
+
+  private BulkheadInvocableHandlerMethod invocableHandlerMethod(HandlerMethod handlerMethod) {
+    var invocableHandlerMethod = new BulkheadInvocableHandlerMethod(handlerMethod, bulkheads, null);
+    invocableHandlerMethod.setHandlerMethodArgumentResolvers(
+      new HandlerMethodArgumentResolverComposite().addResolver(new ServletResponseMethodArgumentResolver())
+    );
+    return invocableHandlerMethod;
+  }
+
+  /**
+   * @return request admitted to the bulkhead of {@code /api/v1/test}, as if by the interceptor
+   */
+  private ServletWebRequest webRequest(HandlerMethod handlerMethod) {
+    var bulkhead = bulkheads.getBulkhead(Route.of("/api/v1/test", handlerMethod).orElseThrow());
+    assertThat(bulkhead.tryAcquire()).isTrue();
+    var request = (HttpServletRequest) Proxy.newProxyInstance(
+      getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getAttribute":
+            // the attribute the interceptor admits requests with
+            return ((String) args[0]).startsWith(Bulkheads.class.getName()) ? bulkhead : null;
+          case "isAsyncSupported":
+            return true;
+          case "getMethod":
+            return "GET";
+          default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+      }
+    );
+    var response = (HttpServletResponse) Proxy.newProxyInstance(
+      getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+      (proxy, method, args) -> {
+        throw new UnsupportedOperationException(method.getName());
+      }
+    );
+    return new ServletWebRequest(request, response);
+  }
+
+  static class TestController {
+
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+
+    public String get(String id) {
+      threads.add(Thread.currentThread().getName());
+      return id;
+    }
+
+    public void write(HttpServletResponse response) {
+      threads.add(Thread.currentThread().getName());
+    }
+
+  }
+
+}
@@ -0,0 +1,119 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.config.VersionedAntPathMatcher;
+import eu.maksimov.demo.spring.versioning.controller.PersonV1Controller;
+import eu.maksimov.demo.spring.versioning.controller.PersonV2Controller;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatternSortEventTest {
+
+  private static final String PATTERN_SORT = "eu.maksimov.versioning.PatternSort";
+
+  private final VersionedRequestMappingHandlerMapping handlerMapping = new VersionedRequestMappingHandlerMapping();
+
+  @BeforeEach
+  void initialize() {
+    var context = new StaticApplicationContext();
+    context.refresh();
+    handlerMapping.setApplicationContext(context);
+    handlerMapping.setPathMatcher(new VersionedAntPathMatcher());
+    handlerMapping.afterPropertiesSet();
+    var routeRegistry = new RouteRegistry(handlerMapping);
+    routeRegistry.register(new PersonV1Controller());
+    routeRegistry.register(new PersonV2Controller());
+  }
+
+  @Test
+  void recordedWhenEnabled() throws Exception {
+    var events = record(true);
+
+    // both /api/v1/person/{id} and /api/v2/person/{id} match
+    assertThat(events).hasSize(1);
+    assertThat(events.get(0).getString("lookupPath")).isEqualTo("/api/v2/person/42");
+    assertThat(events.get(0).getString("bestPattern")).isEqualTo("/api/v2/person/{id}");
+    assertThat(events.get(0).getInt("comparisons")).isPositive();
+  }
+
+  @Test
+  void notRecordedWhenDisabled() throws Exception {
+    assertThat(record(false)).isEmpty();
+  }
+
+  private List<RecordedEvent> record(boolean enabled) throws Exception {
+    var file = Files.createTempFile("events", ".jfr");
+    try (var recording = new Recording()) {
+      if (enabled) {
+        recording.enable(PATTERN_SORT);
+      } else {
+        recording.disable(PATTERN_SORT);
+      }
+      recording.start();
+      assertThat(PatternSortEvent.isRecorded()).isEqualTo(enabled);
+      var request = request("/api/v2/person/42");
+      assertThat(handlerMapping.getHandlerInternal(request).getBeanType()).isEqualTo(PersonV2Controller.class);
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+        .filter(it -> it.getEventType().getName().equals(PATTERN_SORT))
+        .collect(toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * @return {@code GET} request, other methods answer {@code null}, {@code false}, {@code 0} or nothing
+   */
+  private static HttpServletRequest request(String path) {
+    Map<String, Object> attributes = new HashMap<>();
+    return (HttpServletRequest) Proxy.newProxyInstance(
+      PatternSortEventTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getMethod":
+            return "GET";
+          case "getRequestURI":
+          case "getServletPath":
+            return path;
+          case "getContextPath":
+            return "";
+          case "getAttribute":
+            return attributes.get(args[0]);
+          case "setAttribute":
+            attributes.put((String) args[0], args[1]);
+            return null;
+          case "removeAttribute":
+            attributes.remove(args[0]);
+            return null;
+          default:
+            if (method.getReturnType() == Enumeration.class) {
+              return Collections.emptyEnumeration();
+            }
+            if (method.getReturnType() == boolean.class) {
+              return false;
+            }
+            return method.getReturnType() == int.class ? 0 : null;
+        }
+      }
+    );
+  }
+
+}
@@ -0,0 +1,81 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class SingleFlightTest {
+
+  private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+  @Test
+  void execute_sequentialCallsAreNotCoalesced() throws Exception {
+    var calls = new AtomicInteger();
+
+    assertThat(singleFlight.execute("key", calls::incrementAndGet)).isEqualTo(1);
+    assertThat(singleFlight.execute("key", calls::incrementAndGet)).isEqualTo(2);
+
+    assertThat(singleFlight.getExecutions()).isEqualTo(2);
+    assertThat(singleFlight.getCoalesced()).isZero();
+    assertThat(singleFlight.getInFlight()).isZero();
+  }
+
+  @Test
+  void execute_concurrentCallsWithEqualKeysAreCoalesced() throws Exception {
+    int followers = 7;
+    var calls = new AtomicInteger();
+    var leaderStarted = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(followers + 1);
+    try {
+      Future<Object> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+        leaderStarted.countDown();
+        release.await();
+        return "result-" + calls.incrementAndGet();
+      }));
+      leaderStarted.await();
+
+      List<Future<Object>> results = new ArrayList<>();
+      for (int i = 0; i < followers; i++) {
+        results.add(executor.submit(() -> singleFlight.execute("key", () -> "result-" + calls.incrementAndGet())));
+      }
+      while (singleFlight.getCoalesced() < followers) {
+        Thread.onSpinWait();
+      }
+      release.countDown();
+
+      assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+      for (var result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+      }
+      assertThat(calls).hasValue(1);
+      assertThat(singleFlight.getExecutions()).isEqualTo(1);
+      assertThat(singleFlight.getCoalesced()).isEqualTo(followers);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void execute_exceptionIsPropagatedAndKeyReleased() throws Exception {
+    assertThatIllegalStateException()
+      .isThrownBy(() -> singleFlight.execute("key", () -> {
+        throw new IllegalStateException("boom");
+      }))
+      .withMessage("boom");
+
+    assertThat(singleFlight.getInFlight()).isZero();
+    assertThat(singleFlight.execute("key", () -> "ok")).isEqualTo("ok");
+  }
+
+}
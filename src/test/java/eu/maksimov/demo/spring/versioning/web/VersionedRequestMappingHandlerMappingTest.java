@@ -0,0 +1,100 @@
+package eu.maksimov.demo.spring.versioning.web;
+
+import eu.maksimov.demo.spring.versioning.controller.PersonV1Controller;
+import eu.maksimov.demo.spring.versioning.controller.PersonV2Controller;
+import eu.maksimov.demo.spring.versioning.routing.RouteRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedRequestMappingHandlerMappingTest {
+
+  private final VersionedRequestMappingHandlerMapping handlerMapping = new VersionedRequestMappingHandlerMapping();
+  private final RouteRegistry routeRegistry = new RouteRegistry(handlerMapping);
+
+  @BeforeEach
+  void initialize() {
+    var context = new StaticApplicationContext();
+    context.refresh();
+    handlerMapping.setApplicationContext(context);
+    handlerMapping.afterPropertiesSet();
+  }
+
+  @Test
+  void getHandlerInternal_fromPublishedTable() throws Exception {
+    routeRegistry.register(new PersonV1Controller());
+
+    var request = request("/api/v1/person/42");
+    var handlerMethod = handlerMapping.getHandlerInternal(request);
+    assertThat(handlerMethod.getMethod().getName()).isEqualTo("getById");
+    assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+      .isEqualTo("/api/v1/person/{id}");
+    // direct path, the mapping with the ids parameter does not match
+    assertThat(handlerMapping.getHandlerInternal(request("/api/v1/person")).getMethod().getName())
+      .isEqualTo("getAll");
+  }
+
+  @Test
+  void getHandlerInternal_mappingsChangeWithTheTable() throws Exception {
+    var controller = new PersonV1Controller();
+    routeRegistry.register(controller);
+
+    // registered with the superclass only, dispatch does not see it before the registry publishes it
+    handlerMapping.registerHandler(new PersonV2Controller());
+    assertThat(handlerMapping.getHandlerInternal(request("/api/v2/person/42"))).isNull();
+    routeRegistry.refresh();
+    assertThat(handlerMapping.getHandlerInternal(request("/api/v2/person/42")).getBeanType())
+      .isEqualTo(PersonV2Controller.class);
+
+    routeRegistry.unregister(controller);
+    assertThat(handlerMapping.getHandlerInternal(request("/api/v1/person/42"))).isNull();
+  }
+
+  /**
+   * @return {@code GET} request, other methods answer {@code null}, {@code false}, {@code 0} or nothing
+   */
+  private static HttpServletRequest request(String path) {
+    Map<String, Object> attributes = new HashMap<>();
+    return (HttpServletRequest) Proxy.newProxyInstance(
+      VersionedRequestMappingHandlerMappingTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getMethod":
+            return "GET";
+          case "getRequestURI":
+          case "getServletPath":
+            return path;
+          case "getContextPath":
+            return "";
+          case "getAttribute":
+            return attributes.get(args[0]);
+          case "setAttribute":
+            attributes.put((String) args[0], args[1]);
+            return null;
+          case "removeAttribute":
+            attributes.remove(args[0]);
+            return null;
+          default:
+            if (method.getReturnType() == Enumeration.class) {
+              return Collections.emptyEnumeration();
+            }
+            if (method.getReturnType() == boolean.class) {
+              return false;
+            }
+            return method.getReturnType() == int.class ? 0 : null;
+        }
+      }
+    );
+  }
+
+}